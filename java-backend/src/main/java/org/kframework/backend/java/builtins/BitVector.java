@@ -48,7 +48,8 @@ public abstract class BitVector<T extends Number> extends Token {
 
     /**
      * Returns a {@code BitVector} representation of the given big integer javaBackendValue on the given
-     * bit width.
+     * bit width. Bit vectors of at most {@link Long#SIZE} bits are implemented on java primitives, and wider
+     * ones on {@link BigInteger}.
      */
     public static BitVector of(BigInteger value, int bitwidth) {
         assert bitwidth > 0;
@@ -57,6 +58,10 @@ public abstract class BitVector<T extends Number> extends Token {
             case Integer.SIZE:
                 return Int32Token.of(value.intValue());
             default:
+                if (bitwidth <= Long.SIZE) {
+                    /* longValue keeps the lowest 64 bits */
+                    return LongBitVector.of(value.longValue(), bitwidth);
+                }
                 return BigIntegerBitVector.of(value, bitwidth);
         }
     }
@@ -71,6 +76,9 @@ public abstract class BitVector<T extends Number> extends Token {
             case Integer.SIZE:
                 return Int32Token.of(Long.valueOf(value).intValue());
             default:
+                if (bitwidth <= Long.SIZE) {
+                    return LongBitVector.of(value, bitwidth);
+                }
                 return BigIntegerBitVector.of(BigInteger.valueOf(value), bitwidth);
         }
     }
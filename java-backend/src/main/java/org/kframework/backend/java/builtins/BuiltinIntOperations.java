@@ -8,24 +8,65 @@ import java.util.Random;
 
 /**
  * Table of {@code public static} methods on builtin integers.
+ * <p>
+ * Operations on integers that fit in a {@code long} are computed on {@code long}s, and fall back to
+ * {@link BigInteger} when the result overflows.
  *
  * @author: AndreiS
  */
 public class BuiltinIntOperations {
 
+    private static boolean small(IntToken term1, IntToken term2) {
+        return term1.isSmall() && term2.isSmall();
+    }
+
     public static IntToken add(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            long a = term1.smallValue(), b = term2.smallValue();
+            long result = a + b;
+            // overflow iff both arguments have the sign opposite to that of the result, as in Math.addExact
+            if (((a ^ result) & (b ^ result)) >= 0) {
+                return IntToken.of(result);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().add(term2.bigIntegerValue()));
     }
 
     public static IntToken sub(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            long a = term1.smallValue(), b = term2.smallValue();
+            long result = a - b;
+            // overflow iff the arguments have different signs and the sign of the result differs from that of a,
+            // as in Math.subtractExact
+            if (((a ^ b) & (a ^ result)) >= 0) {
+                return IntToken.of(result);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().subtract(term2.bigIntegerValue()));
     }
 
     public static IntToken mul(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            long a = term1.smallValue(), b = term2.smallValue();
+            long high = Math.abs(a) | Math.abs(b);
+            if (high >>> 31 == 0) {
+                // both fit in 31 bits, so the product fits in 62
+                return IntToken.of(a * b);
+            }
+            try {
+                return IntToken.of(Math.multiplyExact(a, b));
+            } catch (ArithmeticException e) {
+                // the product does not fit in a long
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().multiply(term2.bigIntegerValue()));
     }
 
     public static IntToken div(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2) && term2.smallValue() != 0
+                && !(term1.smallValue() == Long.MIN_VALUE && term2.smallValue() == -1)) {
+            return IntToken.of(term1.smallValue() / term2.smallValue());
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().divide(term2.bigIntegerValue()));
         } catch (ArithmeticException e) {
@@ -44,6 +85,9 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken rem(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2) && term2.smallValue() != 0) {
+            return IntToken.of(term1.smallValue() % term2.smallValue());
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().remainder(term2.bigIntegerValue()));
         } catch (ArithmeticException e) {
@@ -52,6 +96,9 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken mod(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2) && term2.smallValue() > 0) {
+            return IntToken.of(Math.floorMod(term1.smallValue(), term2.smallValue()));
+        }
         return IntToken.of(term1.bigIntegerValue().mod(term2.bigIntegerValue()));
     }
 
@@ -64,10 +111,21 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken shl(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2) && term2.smallValue() >= 0 && term2.smallValue() < Long.SIZE) {
+            long a = term1.smallValue();
+            int n = (int) term2.smallValue();
+            long result = a << n;
+            if (result >> n == a) {
+                return IntToken.of(result);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().shiftLeft(term2.bigIntegerValue().intValueExact()));
     }
 
     public static IntToken shr(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2) && term2.smallValue() >= 0) {
+            return IntToken.of(term1.smallValue() >> Math.min(term2.smallValue(), Long.SIZE - 1));
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().shiftRight(term2.bigIntegerValue().intValueExact()));
         } catch (ArithmeticException e) {
@@ -80,34 +138,53 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken not(IntToken term, TermContext context) {
+        if (term.isSmall()) {
+            return IntToken.of(~term.smallValue());
+        }
         return IntToken.of(term.bigIntegerValue().not());
     }
 
     public static IntToken and(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            return IntToken.of(term1.smallValue() & term2.smallValue());
+        }
         return IntToken.of(term1.bigIntegerValue().and(term2.bigIntegerValue()));
     }
 
     public static IntToken or(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            return IntToken.of(term1.smallValue() | term2.smallValue());
+        }
         return IntToken.of(term1.bigIntegerValue().or(term2.bigIntegerValue()));
     }
 
     public static IntToken xor(IntToken term1, IntToken term2, TermContext context) {
+        if (small(term1, term2)) {
+            return IntToken.of(term1.smallValue() ^ term2.smallValue());
+        }
         return IntToken.of(term1.bigIntegerValue().xor(term2.bigIntegerValue()));
     }
 
     public static IntToken min(IntToken term1, IntToken term2, TermContext context) {
-        return IntToken.of(term1.bigIntegerValue().min(term2.bigIntegerValue()));
+        return IntToken.compare(term1, term2) <= 0 ? term1 : term2;
     }
 
     public static IntToken max(IntToken term1, IntToken term2, TermContext context) {
-        return IntToken.of(term1.bigIntegerValue().max(term2.bigIntegerValue()));
+        return IntToken.compare(term1, term2) >= 0 ? term1 : term2;
     }
 
     public static IntToken abs(IntToken term, TermContext context) {
+        if (term.isSmall() && term.smallValue() != Long.MIN_VALUE) {
+            return IntToken.of(Math.abs(term.smallValue()));
+        }
         return IntToken.of(term.bigIntegerValue().abs());
     }
 
     public static IntToken log2(IntToken term, TermContext context) {
+        if (term.isSmall()) {
+            long val = term.smallValue();
+            return val <= 0 ? null : IntToken.of(Long.SIZE - 1 - Long.numberOfLeadingZeros(val));
+        }
         BigInteger val = term.bigIntegerValue();
         if (val.compareTo(BigInteger.ZERO) <= 0)
             return null;
@@ -120,27 +197,27 @@ public class BuiltinIntOperations {
     }
 
     public static BoolToken eq(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) == 0);
+        return BoolToken.of(IntToken.compare(term1, term2) == 0);
     }
 
     public static BoolToken ne(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) != 0);
+        return BoolToken.of(IntToken.compare(term1, term2) != 0);
     }
 
     public static BoolToken gt(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) > 0);
+        return BoolToken.of(IntToken.compare(term1, term2) > 0);
     }
 
     public static BoolToken ge(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) >= 0);
+        return BoolToken.of(IntToken.compare(term1, term2) >= 0);
     }
 
     public static BoolToken lt(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) < 0);
+        return BoolToken.of(IntToken.compare(term1, term2) < 0);
     }
 
     public static BoolToken le(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) <= 0);
+        return BoolToken.of(IntToken.compare(term1, term2) <= 0);
     }
 
     private static final Random randomGenerator = new Random();
@@ -19,15 +19,15 @@ import org.kframework.utils.StringUtil;
 public class BuiltinStringOperations {
 
     public static StringToken add(StringToken term1, StringToken term2, TermContext context) {
-        return StringToken.of(term1.stringValue() + term2.stringValue());
+        return StringToken.concatenate(term1, term2);
     }
 
     public static BoolToken eq(StringToken term1, StringToken term2, TermContext context) {
-        return BoolToken.of(term1.stringValue().compareTo(term2.stringValue()) == 0);
+        return BoolToken.of(term1.equals(term2));
     }
 
     public static BoolToken ne(StringToken term1, StringToken term2, TermContext context) {
-        return BoolToken.of(term1.stringValue().compareTo(term2.stringValue()) != 0);
+        return BoolToken.of(!term1.equals(term2));
     }
 
     public static BoolToken gt(StringToken term1, StringToken term2, TermContext context) {
@@ -47,11 +47,11 @@ public class BuiltinStringOperations {
     }
 
     public static IntToken len(StringToken term, TermContext context) {
-        return IntToken.of(term.stringValue().codePointCount(0, term.stringValue().length()));
+        return IntToken.of(term.codePointCount());
     }
 
     public static IntToken ord(StringToken term, TermContext context) {
-        if (term.stringValue().codePointCount(0, term.stringValue().length()) != 1) {
+        if (term.codePointCount() != 1) {
             return null;
         }
         return IntToken.of(term.stringValue().codePointAt(0));
@@ -70,37 +70,37 @@ public class BuiltinStringOperations {
     }
 
     public static StringToken substr(StringToken term, IntToken start, IntToken end, TermContext context) {
-        int beginOffset = term.stringValue().offsetByCodePoints(0, start.intValue());
-        int endOffset = term.stringValue().offsetByCodePoints(0, end.intValue());
+        int beginOffset = term.offsetByCodePoints(start.intValue());
+        int endOffset = term.offsetByCodePoints(end.intValue());
         try {
-            return StringToken.of(term.stringValue().substring(beginOffset, endOffset));
+            return term.substring(beginOffset, endOffset);
         } catch (StringIndexOutOfBoundsException e) {
             return null;
         }
     }
 
     public static IntToken find(StringToken term1, StringToken term2, IntToken idx, TermContext context) {
-        int offset = term1.stringValue().offsetByCodePoints(0, idx.intValue());
+        int offset = term1.offsetByCodePoints(idx.intValue());
         int foundOffset = term1.stringValue().indexOf(term2.stringValue(), offset);
-        return IntToken.of((foundOffset == -1 ? -1 : term1.stringValue().codePointCount(0, foundOffset)));
+        return IntToken.of((foundOffset == -1 ? -1 : term1.codePointCount(foundOffset)));
     }
 
     public static IntToken rfind(StringToken term1, StringToken term2, IntToken idx, TermContext context) {
-        int offset = term1.stringValue().offsetByCodePoints(0, idx.intValue());
+        int offset = term1.offsetByCodePoints(idx.intValue());
         int foundOffset = term1.stringValue().lastIndexOf(term2.stringValue(), offset);
-        return IntToken.of((foundOffset == -1 ? -1 : term1.stringValue().codePointCount(0, foundOffset)));
+        return IntToken.of((foundOffset == -1 ? -1 : term1.codePointCount(foundOffset)));
     }
 
     public static IntToken findChar(StringToken term1, StringToken term2, IntToken idx, TermContext context) {
-        int offset = term1.stringValue().offsetByCodePoints(0, idx.intValue());
+        int offset = term1.offsetByCodePoints(idx.intValue());
         int foundOffset = StringUtil.indexOfAny(term1.stringValue(), term2.stringValue(), offset);
-        return IntToken.of((foundOffset == -1 ? -1 : term1.stringValue().codePointCount(0, foundOffset)));
+        return IntToken.of((foundOffset == -1 ? -1 : term1.codePointCount(foundOffset)));
     }
 
     public static IntToken rfindChar(StringToken term1, StringToken term2, IntToken idx, TermContext context) {
-        int offset = term1.stringValue().offsetByCodePoints(0, idx.intValue());
+        int offset = term1.offsetByCodePoints(idx.intValue());
         int foundOffset = StringUtil.lastIndexOfAny(term1.stringValue(), term2.stringValue(), offset);
-        return IntToken.of((foundOffset == -1 ? -1 : term1.stringValue().codePointCount(0, foundOffset)));
+        return IntToken.of((foundOffset == -1 ? -1 : term1.codePointCount(foundOffset)));
     }
 
     public static IntToken string2int(StringToken term, TermContext context) {
@@ -141,7 +141,7 @@ public class BuiltinStringOperations {
 /*
     // when we support java 7
     public static StringToken name(StringToken term) {
-        if (term.stringValue().codePointCount(0, term.stringValue().length()) != 1) {
+        if (term.codePointCount() != 1) {
             throw new IllegalArgumentException();
         }
         String name = Character.getName(term.stringValue().codePointAt(0));
@@ -152,7 +152,7 @@ public class BuiltinStringOperations {
     }
 */
     public static StringToken category(StringToken term, TermContext context) {
-        if (term.stringValue().codePointCount(0, term.stringValue().length()) != 1) {
+        if (term.codePointCount() != 1) {
             throw new IllegalArgumentException();
         }
         int cat = Character.getType(term.stringValue().codePointAt(0));
@@ -161,7 +161,7 @@ public class BuiltinStringOperations {
     }
 
     public static StringToken directionality(StringToken term, TermContext context) {
-        if (term.stringValue().codePointCount(0, term.stringValue().length()) != 1) {
+        if (term.codePointCount() != 1) {
             throw new IllegalArgumentException();
         }
         byte cat = Character.getDirectionality(term.stringValue().codePointAt(0));
@@ -1,6 +1,7 @@
 // Copyright (c) 2014-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import com.google.common.collect.MapMaker;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.kil.JavaSymbolicObject;
@@ -20,7 +21,7 @@ public class FloatToken extends Token {
 
     public static final Sort SORT = Sort.FLOAT;
 
-    /* Token cache */
+    /* Token cache, by exponent; holds its tokens weakly */
     private static final Map<Integer, Map<BigFloat, FloatToken>> cache = new ConcurrentHashMap<>();
 
     private final BigFloat value;
@@ -38,7 +39,7 @@ public class FloatToken extends Token {
      * and {@code int} exponent return the same {@code FloatToken} object).
      */
     public static FloatToken of(BigFloat value, int exponent) {
-        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, ConcurrentHashMap::new);
+        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, e -> new MapMaker().weakValues().makeMap());
         return exponentCache.computeIfAbsent(value, v -> new FloatToken(v, exponent));
     }
 
@@ -132,7 +133,7 @@ public class FloatToken extends Token {
      * instance.
      */
     private Object readResolve() {
-        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, ConcurrentHashMap::new);
+        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, e -> new MapMaker().weakValues().makeMap());
         return exponentCache.computeIfAbsent(value, v -> this);
     }
 
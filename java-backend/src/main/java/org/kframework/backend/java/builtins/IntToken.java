@@ -12,6 +12,10 @@ import java.math.BigInteger;
 
 /**
  * An integer token. Integer tokens have arbitrary precision.
+ * <p>
+ * Values that fit in a {@code long} are stored as one, so that arithmetic on them does not allocate
+ * {@link BigInteger}s; see {@link BuiltinIntOperations}. Larger values are stored as a {@code BigInteger}.
+ * Every value has exactly one of the two representations.
  *
  * @author AndreiS
  */
@@ -19,25 +23,49 @@ public final class IntToken extends Token {
 
     public static final Sort SORT = Sort.INT;
 
-    /* BigInteger javaBackendValue wrapped by this IntToken */
-    private final BigInteger value;
+    /* the IntTokens of the values most used as counters and offsets */
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final IntToken[] cache = new IntToken[CACHE_HIGH - CACHE_LOW];
 
-    private IntToken(BigInteger value) {
-        this.value = value;
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new IntToken(CACHE_LOW + i, null);
+        }
+    }
+
+    /* value wrapped by this IntToken if it fits in a long */
+    private final long smallValue;
+    /* value wrapped by this IntToken if it does not fit in a long, and null otherwise */
+    private final BigInteger bigValue;
+    /* BigInteger representation of smallValue, built when first asked for */
+    private transient BigInteger bigIntegerValue;
+
+    private IntToken(long smallValue, BigInteger bigValue) {
+        this.smallValue = smallValue;
+        this.bigValue = bigValue;
     }
 
     /**
-     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue. The
-     * {@code IntToken} instances are cached to ensure uniqueness (subsequent invocations of this
-     * method with the same {@code BigInteger} javaBackendValue return the same {@code IntToken} object).
+     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue.
      */
     public static IntToken of(BigInteger value) {
         assert value != null;
-        return new IntToken(value);
+        if (value.bitLength() < Long.SIZE) {
+            return of(value.longValue());
+        }
+        return new IntToken(0, value);
     }
 
+    /**
+     * Returns a {@code IntToken} representation of the given {@code long} javaBackendValue. Small values are
+     * cached, so that subsequent invocations with the same value return the same {@code IntToken} object.
+     */
     public static IntToken of(long value) {
-        return of(BigInteger.valueOf(value));
+        if (value >= CACHE_LOW && value < CACHE_HIGH) {
+            return cache[(int) value - CACHE_LOW];
+        }
+        return new IntToken(value, null);
     }
 
     public static IntToken of(String value) {
@@ -54,10 +82,30 @@ public final class IntToken extends Token {
         }
     }
 
+    /**
+     * Returns true if the value of this IntToken fits in a {@code long}, in which case {@link #smallValue()} is
+     * the value.
+     */
+    boolean isSmall() {
+        return bigValue == null;
+    }
+
+    long smallValue() {
+        return smallValue;
+    }
+
     /**
      * Returns a {@link BigInteger} representation of the (interpreted) javaBackendValue of this IntToken.
      */
     public BigInteger bigIntegerValue() {
+        if (bigValue != null) {
+            return bigValue;
+        }
+        BigInteger value = bigIntegerValue;
+        if (value == null) {
+            value = BigInteger.valueOf(smallValue);
+            bigIntegerValue = value;
+        }
         return value;
     }
 
@@ -67,13 +115,13 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer does not fit in an int.
      */
     public int intValue() {
-        if (value.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (compareTo(Integer.MAX_VALUE) > 0) {
             throw new ArithmeticException("IntToken too large for Int");
         }
-        if (value.compareTo(BigInteger.valueOf(Integer.MIN_VALUE)) < 0) {
+        if (compareTo(Integer.MIN_VALUE) < 0) {
             throw new ArithmeticException("IntToken too low for Int");
         }
-        return (int)value.longValue();
+        return (int) smallValue;
     }
 
     /**
@@ -82,13 +130,13 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer does not fit in a long.
      */
     public long longValue() {
-        if (value.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
-            throw new ArithmeticException("IntToken too large for Long");
-        }
-        if (value.compareTo(BigInteger.valueOf(Long.MIN_VALUE)) < 0) {
+        if (!isSmall()) {
+            if (bigValue.signum() > 0) {
+                throw new ArithmeticException("IntToken too large for Long");
+            }
             throw new ArithmeticException("IntToken too low for Long");
         }
-        return value.longValue();
+        return smallValue;
     }
 
     /**
@@ -97,13 +145,30 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer is not in the range of an unsigned byte.
      */
     public byte unsignedByteValue() {
-        if (value.compareTo(BigInteger.valueOf(255)) > 0) {
+        if (compareTo(255) > 0) {
             throw new ArithmeticException("IntToken too large for byte");
         }
-        if (value.compareTo(BigInteger.valueOf(0)) < 0) {
+        if (compareTo(0) < 0) {
             throw new ArithmeticException("IntToken too low for byte");
         }
-        return (byte)value.longValue();
+        return (byte) smallValue;
+    }
+
+    /**
+     * Compares the value of this IntToken with {@code value}.
+     */
+    private int compareTo(long value) {
+        return isSmall() ? Long.compare(smallValue, value) : bigValue.signum();
+    }
+
+    /**
+     * Compares the values of two IntTokens.
+     */
+    static int compare(IntToken term1, IntToken term2) {
+        if (term1.isSmall() && term2.isSmall()) {
+            return Long.compare(term1.smallValue, term2.smallValue);
+        }
+        return term1.bigIntegerValue().compareTo(term2.bigIntegerValue());
     }
 
     @Override
@@ -116,12 +181,25 @@ public final class IntToken extends Token {
      */
     @Override
     public String javaBackendValue() {
-        return value.toString();
+        return isSmall() ? Long.toString(smallValue) : bigValue.toString();
     }
 
     @Override
     protected int computeHash() {
-        return value.hashCode();
+        return isSmall() ? bigIntegerHashCode(smallValue) : bigValue.hashCode();
+    }
+
+    /**
+     * Returns {@code BigInteger.valueOf(value).hashCode()} without building the {@code BigInteger}, so that hash
+     * codes do not depend on the representation of the value.
+     */
+    static int bigIntegerHashCode(long value) {
+        // the magnitude of Long.MIN_VALUE is read correctly as an unsigned long
+        long magnitude = value < 0 ? -value : value;
+        int high = (int) (magnitude >>> 32);
+        int low = (int) magnitude;
+        int hashCode = high == 0 ? low : 31 * high + low;
+        return hashCode * Long.signum(value);
     }
 
     @Override
@@ -131,7 +209,10 @@ public final class IntToken extends Token {
 
         IntToken intToken = (IntToken) o;
 
-        return value.equals(intToken.value);
+        if (isSmall() || intToken.isSmall()) {
+            return isSmall() && intToken.isSmall() && smallValue == intToken.smallValue;
+        }
+        return bigValue.equals(intToken.bigValue);
 
     }
 
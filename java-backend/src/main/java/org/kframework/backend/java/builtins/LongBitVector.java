@@ -0,0 +1,291 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import org.kframework.backend.java.builtins.primitives.Longs;
+import org.kframework.backend.java.builtins.primitives.OverflowArithmeticResult;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.TermContext;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Implementation of a bit vector of at most {@link Long#SIZE} bits using a java primitive long.
+ * <p>
+ * The wrapped value is the signed value of the bit vector, so that two bit vectors with the same bits are equal,
+ * and signed operations are plain long operations. Unsigned operations mask the value to the bit width.
+ *
+ * @see Longs
+ */
+public final class LongBitVector extends BitVector<Long> {
+
+    private LongBitVector(long value, int bitwidth) {
+        super(value, bitwidth);
+    }
+
+    /**
+     * Returns a {@code LongBitVector} representation of the lowest {@code bitwidth} bits of the given value.
+     */
+    public static LongBitVector of(long value, int bitwidth) {
+        assert bitwidth > 0 && bitwidth <= Long.SIZE;
+
+        return new LongBitVector(Longs.signExtend(value, bitwidth), bitwidth);
+    }
+
+    private long unsigned() {
+        return Longs.toUnsigned(value, bitwidth);
+    }
+
+    @Override
+    public boolean isZero() {
+        return value == 0;
+    }
+
+    @Override
+    public BigInteger signedValue() {
+        return BigInteger.valueOf(value);
+    }
+
+    @Override
+    public BigInteger unsignedValue() {
+        long unsigned = unsigned();
+        BigInteger result = BigInteger.valueOf(unsigned);
+        return unsigned >= 0 ? result : result.add(BigInteger.ONE.shiftLeft(Long.SIZE));
+    }
+
+    @Override
+    public LongBitVector add(BitVector<Long> bitVector) {
+        return LongBitVector.of(value + bitVector.value, bitwidth);
+    }
+
+    @Override
+    public LongBitVector sub(BitVector<Long> bitVector) {
+        return LongBitVector.of(value - bitVector.value, bitwidth);
+    }
+
+    @Override
+    public LongBitVector mul(BitVector<Long> bitVector) {
+        return LongBitVector.of(value * bitVector.value, bitwidth);
+    }
+
+    @Override
+    public BuiltinList sdiv(BitVector<Long> bitVector, TermContext context) {
+        if (bitVector.value != 0) {
+            return makeBuiltinListOfOverflowArithmeticResult(
+                    Longs.checkedDiv(value, bitVector.value, bitwidth),
+                    context);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public BuiltinList srem(BitVector<Long> bitVector, TermContext context) {
+        if (bitVector.value != 0) {
+            return makeBuiltinListOfOverflowArithmeticResult(
+                    Longs.checkedRem(value, bitVector.value, bitwidth),
+                    context);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public LongBitVector udiv(BitVector<Long> bitVector) {
+        if (bitVector.value != 0) {
+            return LongBitVector.of(
+                    Long.divideUnsigned(unsigned(), ((LongBitVector) bitVector).unsigned()),
+                    bitwidth);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public LongBitVector urem(BitVector<Long> bitVector) {
+        if (bitVector.value != 0) {
+            return LongBitVector.of(
+                    Long.remainderUnsigned(unsigned(), ((LongBitVector) bitVector).unsigned()),
+                    bitwidth);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public BuiltinList sadd(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedAdd(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    @Override
+    public BuiltinList uadd(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedUnsignedAdd(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    @Override
+    public BuiltinList ssub(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedSub(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    @Override
+    public BuiltinList usub(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedUnsignedSub(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    @Override
+    public BuiltinList smul(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedMul(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    @Override
+    public BuiltinList umul(BitVector<Long> bitVector, TermContext context) {
+        return makeBuiltinListOfOverflowArithmeticResult(
+                Longs.checkedUnsignedMul(value, bitVector.value, bitwidth),
+                context);
+    }
+
+    /* as for BigIntegerBitVector, a shift by a negative distance is a shift in the other direction */
+
+    @Override
+    public LongBitVector shl(IntToken intToken) {
+        long distance = intToken.intValue();
+        return distance < 0 ? shiftRight(-distance) : shiftLeft(distance);
+    }
+
+    @Override
+    public LongBitVector ashr(IntToken intToken) {
+        long distance = intToken.intValue();
+        return distance < 0 ? shiftLeft(-distance) : shiftRight(distance);
+    }
+
+    @Override
+    public LongBitVector lshr(IntToken intToken) {
+        long distance = intToken.intValue();
+        if (distance < 0) {
+            return shiftLeft(-distance);
+        }
+        return LongBitVector.of(distance < Long.SIZE ? unsigned() >>> distance : 0, bitwidth);
+    }
+
+    private LongBitVector shiftLeft(long distance) {
+        return LongBitVector.of(distance < Long.SIZE ? value << distance : 0, bitwidth);
+    }
+
+    private LongBitVector shiftRight(long distance) {
+        return LongBitVector.of(value >> Math.min(distance, Long.SIZE - 1), bitwidth);
+    }
+
+    @Override
+    public LongBitVector and(BitVector<Long> bitVector) {
+        return LongBitVector.of(value & bitVector.value, bitwidth);
+    }
+
+    @Override
+    public LongBitVector or(BitVector<Long> bitVector) {
+        return LongBitVector.of(value | bitVector.value, bitwidth);
+    }
+
+    @Override
+    public LongBitVector xor(BitVector<Long> bitVector) {
+        return LongBitVector.of(value ^ bitVector.value, bitwidth);
+    }
+
+    /*
+     * Sign extension preserves the unsigned order of bit vectors of the same width, so unsigned comparisons do not
+     * need to mask the values.
+     */
+
+    @Override
+    public BoolToken slt(BitVector<Long> bitVector) {
+        return BoolToken.of(value < bitVector.value);
+    }
+
+    @Override
+    public BoolToken ult(BitVector<Long> bitVector) {
+        return BoolToken.of(Long.compareUnsigned(value, bitVector.value) < 0);
+    }
+
+    @Override
+    public BoolToken sle(BitVector<Long> bitVector) {
+        return BoolToken.of(value <= bitVector.value);
+    }
+
+    @Override
+    public BoolToken ule(BitVector<Long> bitVector) {
+        return BoolToken.of(Long.compareUnsigned(value, bitVector.value) <= 0);
+    }
+
+    @Override
+    public BoolToken sgt(BitVector<Long> bitVector) {
+        return BoolToken.of(value > bitVector.value);
+    }
+
+    @Override
+    public BoolToken ugt(BitVector<Long> bitVector) {
+        return BoolToken.of(Long.compareUnsigned(value, bitVector.value) > 0);
+    }
+
+    @Override
+    public BoolToken sge(BitVector<Long> bitVector) {
+        return BoolToken.of(value >= bitVector.value);
+    }
+
+    @Override
+    public BoolToken uge(BitVector<Long> bitVector) {
+        return BoolToken.of(Long.compareUnsigned(value, bitVector.value) >= 0);
+    }
+
+    @Override
+    public BoolToken eq(BitVector<Long> bitVector) {
+        return BoolToken.of(value.equals(bitVector.value));
+    }
+
+    @Override
+    public BoolToken ne(BitVector<Long> bitVector) {
+        return BoolToken.of(!value.equals(bitVector.value));
+    }
+
+    @Override
+    public BitVector extract(int beginIndex, int endIndex) {
+        int resultBitwidth = endIndex - beginIndex;
+        return BitVector.of(
+                (unsigned() >>> (bitwidth - endIndex)) & Longs.mask(resultBitwidth),
+                resultBitwidth);
+    }
+
+    @Override
+    public List<BitVector> toDigits(int digitBitWidth, int count) {
+        assert digitBitWidth > 0;
+        assert digitBitWidth * count <= bitwidth;
+
+        List<BitVector> digits = new ArrayList<>();
+        long unsignedValue = unsigned();
+        long mask = Longs.mask(digitBitWidth);
+        for (int i = 0, j = bitwidth - digitBitWidth; i < count;  ++i, j -= digitBitWidth) {
+            digits.add(BitVector.of((unsignedValue >>> j) & mask, digitBitWidth));
+        }
+
+        return digits;
+    }
+
+    private BuiltinList makeBuiltinListOfOverflowArithmeticResult(
+            OverflowArithmeticResult<Long> result, TermContext context) {
+        return (BuiltinList) BuiltinList.builder(context.global())
+                .add(BuiltinListOperations.wrapListItem(LongBitVector.of(result.value, bitwidth), context))
+                .add(BuiltinListOperations.wrapListItem(BoolToken.of(result.overflow), context))
+                .build();
+    }
+
+}
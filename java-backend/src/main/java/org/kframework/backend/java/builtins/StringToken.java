@@ -1,6 +1,7 @@
 // Copyright (c) 2013-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import com.google.common.collect.MapMaker;
 import org.kframework.backend.java.kil.JavaSymbolicObject;
 import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.Token;
@@ -14,13 +15,19 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A string token. String tokens represent a sequence of unicode code points.
  * In this regard they differ from the underlying String class they are built
  * off of in Java because Java Strings are a sequence of 16-bit UTF-16 characters.
+ * <p>
+ * Long strings built by {@link #concatenate} and {@link #substring} are not copied: they are kept as the
+ * concatenation of two string tokens, or as a slice of a {@link String}, and flattened into a {@code String}
+ * the first time their contiguous value is needed, e.g. to hash them. String tokens built by
+ * {@link #of(String)} are cached; the others are compared by value.
  *
  * @author DwightG
  */
@@ -28,14 +35,70 @@ public final class StringToken extends Token {
 
     public static final Sort SORT = Sort.STRING;
 
-    /* StringToken cache */
-    private static final Map<String, StringToken> cache = new ConcurrentHashMap<>();
+    /* StringToken cache; holds its tokens weakly, so that the strings of a run do not outlive it */
+    private static final Map<String, StringToken> cache = new MapMaker().weakValues().makeMap();
 
-    /* String javaBackendValue wrapped by this StringToken */
-    private final String value;
+    /* strings shorter than this are copied and cached rather than shared */
+    private static final int MIN_SHARED_LENGTH = 64;
+
+    /* slices shorter than this fraction of the string they are taken from are copied, so as not to keep it alive */
+    private static final int MAX_SLICE_RATIO = 4;
+
+    /* number of code points, when it has not been computed yet */
+    private static final int UNKNOWN = -1;
+
+    /* String javaBackendValue wrapped by this StringToken, or null until it is flattened */
+    private volatile String value;
+
+    /*
+     * Before flattening, a Concatenation or a Slice with the same value; null once value is set. Both are
+     * immutable, so threads flattening the same token concurrently compute the same value and may both publish it.
+     */
+    private transient volatile Object parts;
+
+    /* number of UTF-16 chars */
+    private final int length;
+    /* number of code points, or UNKNOWN */
+    private transient int codePointCount;
 
     private StringToken(String value) {
         this.value = value;
+        this.length = value.length();
+        this.codePointCount = UNKNOWN;
+    }
+
+    private StringToken(StringToken left, StringToken right) {
+        this.parts = new Concatenation(left, right);
+        this.length = left.length + right.length;
+        int leftCount = left.knownCodePointCount();
+        int rightCount = right.knownCodePointCount();
+        this.codePointCount = leftCount == UNKNOWN || rightCount == UNKNOWN ? UNKNOWN : leftCount + rightCount;
+    }
+
+    private StringToken(String base, int begin, int end, int codePointCount) {
+        this.parts = new Slice(base, begin);
+        this.length = end - begin;
+        this.codePointCount = codePointCount;
+    }
+
+    private static final class Concatenation {
+        final StringToken left;
+        final StringToken right;
+
+        Concatenation(StringToken left, StringToken right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static final class Slice {
+        final String base;
+        final int begin;
+
+        Slice(String base, int begin) {
+            this.base = base;
+            this.begin = begin;
+        }
     }
 
     /**
@@ -49,6 +112,23 @@ public final class StringToken extends Token {
         return cache.computeIfAbsent(value, StringToken::new);
     }
 
+    /**
+     * Returns a {@code StringToken} representation of the concatenation of two string tokens, in constant time
+     * if the result is long.
+     */
+    public static StringToken concatenate(StringToken term1, StringToken term2) {
+        if (term1.length == 0) {
+            return term2;
+        }
+        if (term2.length == 0) {
+            return term1;
+        }
+        if (term1.length + term2.length < MIN_SHARED_LENGTH) {
+            return of(term1.stringValue() + term2.stringValue());
+        }
+        return new StringToken(term1, term2);
+    }
+
     /**
      * Returns a {@code StringToklen} representation of a given {@code byte[]} javaBackendValue. This javaBackendValue is
      * interpreted as a sequence of code points in the Latin-1 Unicode block according to the
@@ -69,9 +149,126 @@ public final class StringToken extends Token {
      * this StringToken.
      */
     public String stringValue() {
+        String value = this.value;
+        return value != null ? value : flatten(this);
+    }
+
+    private static String flatten(StringToken token) {
+        StringBuilder sb = new StringBuilder(token.length);
+        /* iterate rather than recurse, as repeated concatenation builds deep trees */
+        Deque<StringToken> stack = new ArrayDeque<>();
+        stack.push(token);
+        while (!stack.isEmpty()) {
+            StringToken t = stack.pop();
+            Object parts = t.parts();
+            if (parts instanceof String) {
+                sb.append((String) parts);
+            } else if (parts instanceof Slice) {
+                Slice slice = (Slice) parts;
+                sb.append(slice.base, slice.begin, slice.begin + t.length);
+            } else {
+                Concatenation concatenation = (Concatenation) parts;
+                stack.push(concatenation.right);
+                stack.push(concatenation.left);
+            }
+        }
+        String value = sb.toString();
+        token.value = value;
+        token.parts = null;
         return value;
     }
 
+    /* the value of this token if it is flattened, and its Concatenation or Slice otherwise */
+    private Object parts() {
+        String value = this.value;
+        if (value != null) {
+            return value;
+        }
+        Object parts = this.parts;
+        /* parts is only cleared after value is set */
+        return parts != null ? parts : this.value;
+    }
+
+    /**
+     * Returns the number of code points of this StringToken.
+     */
+    public int codePointCount() {
+        int count = codePointCount;
+        if (count == UNKNOWN) {
+            String value = stringValue();
+            count = value.codePointCount(0, value.length());
+            codePointCount = count;
+        }
+        return count;
+    }
+
+    /* the number of code points if it is known or cheap to compute, and UNKNOWN otherwise */
+    private int knownCodePointCount() {
+        return length < MIN_SHARED_LENGTH ? codePointCount() : codePointCount;
+    }
+
+    /**
+     * Returns the index of the UTF-16 char at which the code point of index {@code codePointIndex} starts. It is
+     * computed in constant time if this StringToken has no supplementary code points.
+     *
+     * @throws IndexOutOfBoundsException if {@code codePointIndex} is negative or larger than the number of code
+     * points.
+     */
+    public int offsetByCodePoints(int codePointIndex) {
+        if (codePointCount() == length) {
+            if (codePointIndex < 0 || codePointIndex > length) {
+                throw new IndexOutOfBoundsException();
+            }
+            return codePointIndex;
+        }
+        return stringValue().offsetByCodePoints(0, codePointIndex);
+    }
+
+    /**
+     * Returns the number of code points before the UTF-16 char of index {@code offset}.
+     */
+    public int codePointCount(int offset) {
+        return codePointCount() == length ? offset : stringValue().codePointCount(0, offset);
+    }
+
+    /**
+     * Returns a {@code StringToken} representation of the UTF-16 chars of this StringToken between
+     * {@code beginOffset} and {@code endOffset}, in constant time if the result is long.
+     *
+     * @throws StringIndexOutOfBoundsException if the offsets are out of range.
+     */
+    public StringToken substring(int beginOffset, int endOffset) {
+        if (beginOffset < 0 || endOffset > length || beginOffset > endOffset) {
+            throw new StringIndexOutOfBoundsException();
+        }
+        if (beginOffset == 0 && endOffset == length) {
+            return this;
+        }
+        /* slice the String this StringToken is a slice of, if it is one, rather than flattening it */
+        Object parts = parts();
+        String base;
+        int offset;
+        if (parts instanceof Slice) {
+            base = ((Slice) parts).base;
+            offset = ((Slice) parts).begin;
+        } else {
+            base = stringValue();
+            offset = 0;
+        }
+        int sliceLength = endOffset - beginOffset;
+        if (sliceLength < MIN_SHARED_LENGTH) {
+            return of(base.substring(offset + beginOffset, offset + endOffset));
+        }
+        /* a slice of a string without supplementary code points has none either */
+        int count = codePointCount == length ? sliceLength : UNKNOWN;
+        if (sliceLength * MAX_SLICE_RATIO < base.length()) {
+            StringToken copy = new StringToken(base.substring(offset + beginOffset, offset + endOffset));
+            copy.codePointCount = count;
+            return copy;
+        }
+        return new StringToken(base, offset + beginOffset, offset + endOffset, count);
+    }
+
     /**
      * Returns a {@code byte[]} representation of the interpreted javaBackendValue of this StringToken.
      * @throws CharacterCodingException Thrown if the String is not a valid sequence of code points
@@ -81,7 +278,7 @@ public final class StringToken extends Token {
         ByteBuffer buffer = Charset.forName("ISO-8859-1")
             .newEncoder()
             .onUnmappableCharacter(CodingErrorAction.REPORT)
-            .encode(CharBuffer.wrap(value));
+            .encode(CharBuffer.wrap(stringValue()));
         byte[] bytes = new byte[buffer.remaining()];
         buffer.get(bytes);
         return bytes;
@@ -97,18 +294,24 @@ public final class StringToken extends Token {
      */
     @Override
     public String javaBackendValue() {
-        return StringUtil.enquoteKString(value);
+        return StringUtil.enquoteKString(stringValue());
     }
 
     @Override
     protected int computeHash() {
-        return value.hashCode();
+        return stringValue().hashCode();
     }
 
     @Override
     public boolean equals(Object object) {
-        // cached
-        return this == object;
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof StringToken)) {
+            return false;
+        }
+        StringToken stringToken = (StringToken) object;
+        return length == stringToken.length && stringValue().equals(stringToken.stringValue());
     }
 
     @Override
@@ -126,7 +329,16 @@ public final class StringToken extends Token {
      * instance.
      */
     private Object readResolve() {
+        codePointCount = UNKNOWN;
         return cache.computeIfAbsent(value, v -> this);
     }
 
+    /**
+     * Flattens this StringToken before it is serialized, since the parts it is built of are not.
+     */
+    private Object writeReplace() {
+        stringValue();
+        return this;
+    }
+
 }
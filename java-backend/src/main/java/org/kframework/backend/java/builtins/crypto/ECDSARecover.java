@@ -260,7 +260,9 @@ public class ECDSARecover implements Serializable {
         // So it's encoded in the recId.
         ECPoint R = decompressKey(x, (recId & 1) == 1);
         //   1.4. If nR != point at infinity, then do another iteration of Step 1 (callers responsibility).
-        if (!R.multiply(n).isInfinity())
+        //        With a cofactor of 1, as for secp256k1, every point of the curve has order n, so the
+        //        multiplication, which costs as much as the recovery itself, is only needed for other curves.
+        if (!CURVE.getH().equals(BigInteger.ONE) && !R.multiply(n).isInfinity())
             return null;
         //   1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
         BigInteger e = new BigInteger(1, messageHash);
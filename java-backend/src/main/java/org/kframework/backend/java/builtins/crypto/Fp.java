@@ -18,42 +18,77 @@
 package org.kframework.backend.java.builtins.crypto;
 
 import java.math.BigInteger;
-
-import static org.kframework.backend.java.builtins.crypto.Params.P;
+import java.util.Arrays;
 
 /**
  * Arithmetic in F_p, p = 21888242871839275222246405745257275088696311157297823662689037894645226208583
+ * <br/>
+ * <br/>
+ *
+ * Elements are stored in Montgomery form, as 4 little-endian 64-bit limbs of {@code v * 2^256 mod p}, so that
+ * multiplication is a fixed sequence of word operations without division or {@link BigInteger} allocation.
+ * Conversion from and to {@link BigInteger} only happens at the boundaries, in {@link #create(BigInteger)} and
+ * {@link #v()}.
  *
  * @author Mikhail Kalinin
  * @since 01.09.2017
  */
 public class Fp implements Field<Fp> {
 
+    /**
+     * "p" field parameter, see {@link Params#P}. It is defined here so that initializing this class does not
+     * depend on {@link Params}, whose constants are elements of this class.
+     */
+    static final BigInteger P = new BigInteger("21888242871839275222246405745257275088696311157297823662689037894645226208583");
+
+    private static final int LIMBS = 4;
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final BigInteger R = BigInteger.ONE.shiftLeft(64 * LIMBS);
+
+    /* p in limbs */
+    private static final long[] MODULUS = toLimbs(P);
+    /* -p^-1 mod 2^64 */
+    private static final long INV = P.negate().modInverse(BigInteger.ONE.shiftLeft(64)).longValue();
+
     static final Fp ZERO = new Fp(BigInteger.ZERO);
     static final Fp _1 = new Fp(BigInteger.ONE);
     static final Fp NON_RESIDUE = new Fp(new BigInteger("21888242871839275222246405745257275088696311157297823662689037894645226208582"));
 
     static final Fp _2_INV = new Fp(BigInteger.valueOf(2).modInverse(P));
 
-    BigInteger v;
+    /* limbs of the Montgomery form of the value, always reduced modulo p */
+    private final long[] m;
+    /* false if this element was created from a value which is not below p */
+    private final boolean valid;
+
+    Fp(BigInteger v) {
+        this(toLimbs(v.mod(P).multiply(R).mod(P)), v.compareTo(P) < 0);
+    }
+
+    private Fp(long[] m, boolean valid) {
+        this.m = m;
+        this.valid = valid;
+    }
 
-    Fp(BigInteger v) { this.v = v; }
+    private Fp(long[] m) {
+        this(m, true);
+    }
 
-    @Override public Fp add(Fp o) { return new Fp(this.v.add(o.v).mod(P)); }
-    @Override public Fp mul(Fp o) { return new Fp(this.v.multiply(o.v).mod(P)); }
-    @Override public Fp sub(Fp o) { return new Fp(this.v.subtract(o.v).mod(P)); }
-    @Override public Fp squared() { return new Fp(v.multiply(v).mod(P)); }
-    @Override public Fp dbl() { return new Fp(v.add(v).mod(P)); }
-    @Override public Fp inverse() { return new Fp(v.modInverse(P)); }
-    @Override public Fp negate() { return new Fp(v.negate().mod(P)); }
-    @Override public boolean isZero() { return v.compareTo(BigInteger.ZERO) == 0; }
+    @Override public Fp add(Fp o) { return new Fp(add(this.m, o.m)); }
+    @Override public Fp mul(Fp o) { return new Fp(montgomeryMultiply(this.m, o.m)); }
+    @Override public Fp sub(Fp o) { return new Fp(sub(this.m, o.m)); }
+    @Override public Fp squared() { return new Fp(montgomeryMultiply(m, m)); }
+    @Override public Fp dbl() { return new Fp(add(m, m)); }
+    @Override public Fp inverse() { return new Fp(v().modInverse(P)); }
+    @Override public Fp negate() { return isZero() ? this : new Fp(sub(MODULUS, m)); }
+    @Override public boolean isZero() { return (m[0] | m[1] | m[2] | m[3]) == 0; }
 
     /**
      * Checks if provided value is a valid Fp member
      */
     @Override
     public boolean isValid() {
-        return v.compareTo(P) < 0;
+        return valid;
     }
 
     Fp2 mul(Fp2 o) { return new Fp2(o.a.mul(this), o.b.mul(this)); }
@@ -67,11 +102,17 @@ public class Fp implements Field<Fp> {
     }
 
     public byte[] bytes() {
-        return v.toByteArray();
+        return v().toByteArray();
     }
 
     public BigInteger v() {
-        return v;
+        /* multiplying by 1 divides the Montgomery form by 2^256 */
+        long[] limbs = montgomeryMultiply(m, new long[] {1, 0, 0, 0});
+        BigInteger result = BigInteger.ZERO;
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            result = result.shiftLeft(64).or(new BigInteger(Long.toUnsignedString(limbs[i])));
+        }
+        return result;
     }
 
     @Override
@@ -81,11 +122,142 @@ public class Fp implements Field<Fp> {
 
         Fp fp = (Fp) o;
 
-        return !(v != null ? v.compareTo(fp.v) != 0 : fp.v != null);
+        return Arrays.equals(m, fp.m);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(m);
     }
 
     @Override
     public String toString() {
-        return v.toString();
+        return v().toString();
+    }
+
+    private static long[] toLimbs(BigInteger v) {
+        long[] limbs = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            limbs[i] = v.shiftRight(64 * i).longValue();
+        }
+        return limbs;
+    }
+
+    private static boolean lessThanModulus(long[] a) {
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            if (a[i] != MODULUS[i]) {
+                return Long.compareUnsigned(a[i], MODULUS[i]) < 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Subtracts p from {@code a} in place.
+     */
+    private static void subtractModulus(long[] a) {
+        long borrow = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            long d = a[i] - MODULUS[i] - borrow;
+            borrow = Long.compareUnsigned(a[i], MODULUS[i]) < 0 || (a[i] == MODULUS[i] && borrow != 0) ? 1 : 0;
+            a[i] = d;
+        }
+    }
+
+    /* p < 2^254, so the sum of two reduced limbs does not overflow 256 bits */
+    private static long[] add(long[] a, long[] b) {
+        long[] r = new long[LIMBS];
+        long carry = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            long s = a[i] + b[i];
+            long c = Long.compareUnsigned(s, a[i]) < 0 ? 1 : 0;
+            r[i] = s + carry;
+            carry = c | (r[i] == 0 && carry != 0 ? 1 : 0);
+        }
+        if (!lessThanModulus(r)) {
+            subtractModulus(r);
+        }
+        return r;
+    }
+
+    private static long[] sub(long[] a, long[] b) {
+        long[] r = new long[LIMBS];
+        long borrow = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] - b[i] - borrow;
+            borrow = Long.compareUnsigned(a[i], b[i]) < 0 || (a[i] == b[i] && borrow != 0) ? 1 : 0;
+        }
+        if (borrow != 0) {
+            /* add p back; the carry out of the top limb cancels the borrow */
+            long carry = 0;
+            for (int i = 0; i < LIMBS; i++) {
+                long s = r[i] + MODULUS[i];
+                long c = Long.compareUnsigned(s, r[i]) < 0 ? 1 : 0;
+                r[i] = s + carry;
+                carry = c | (r[i] == 0 && carry != 0 ? 1 : 0);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of {@code x} and {@code y}.
+     */
+    private static long multiplyHighUnsigned(long x, long y) {
+        long x0 = x & MASK_32, x1 = x >>> 32;
+        long y0 = y & MASK_32, y1 = y >>> 32;
+        long w0 = x0 * y0;
+        long t = x1 * y0 + (w0 >>> 32);
+        long w1 = (t & MASK_32) + x0 * y1;
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
+    /**
+     * Returns {@code a * b / 2^256 mod p}, by coarsely integrated operand scanning.
+     */
+    private static long[] montgomeryMultiply(long[] a, long[] b) {
+        long[] t = new long[LIMBS + 2];
+        for (int i = 0; i < LIMBS; i++) {
+            /* t += a * b[i] */
+            long carry = 0;
+            for (int j = 0; j < LIMBS; j++) {
+                long lo = a[j] * b[i];
+                long hi = multiplyHighUnsigned(a[j], b[i]);
+                lo += t[j];
+                hi += Long.compareUnsigned(lo, t[j]) < 0 ? 1 : 0;
+                lo += carry;
+                hi += Long.compareUnsigned(lo, carry) < 0 ? 1 : 0;
+                t[j] = lo;
+                carry = hi;
+            }
+            long s = t[LIMBS] + carry;
+            t[LIMBS + 1] = Long.compareUnsigned(s, carry) < 0 ? 1 : 0;
+            t[LIMBS] = s;
+
+            /* t = (t + u * p) / 2^64, where u makes the lowest limb vanish */
+            long u = t[0] * INV;
+            long lo = u * MODULUS[0];
+            carry = multiplyHighUnsigned(u, MODULUS[0]);
+            lo += t[0];
+            carry += Long.compareUnsigned(lo, t[0]) < 0 ? 1 : 0;
+            for (int j = 1; j < LIMBS; j++) {
+                lo = u * MODULUS[j];
+                long hi = multiplyHighUnsigned(u, MODULUS[j]);
+                lo += t[j];
+                hi += Long.compareUnsigned(lo, t[j]) < 0 ? 1 : 0;
+                lo += carry;
+                hi += Long.compareUnsigned(lo, carry) < 0 ? 1 : 0;
+                t[j - 1] = lo;
+                carry = hi;
+            }
+            s = t[LIMBS] + carry;
+            t[LIMBS - 1] = s;
+            t[LIMBS] = t[LIMBS + 1] + (Long.compareUnsigned(s, carry) < 0 ? 1 : 0);
+        }
+        long[] r = Arrays.copyOf(t, LIMBS);
+        if (t[LIMBS] != 0 || !lessThanModulus(r)) {
+            subtractModulus(r);
+        }
+        return r;
     }
 }
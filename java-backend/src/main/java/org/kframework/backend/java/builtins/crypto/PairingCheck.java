@@ -69,14 +69,16 @@ public class PairingCheck {
 
     public void run() {
 
+        // miller loop result equals "1" if at least one of the points is zero
+        List<Pair> nonTrivial = new ArrayList<>(pairs.size());
         for (Pair pair : pairs) {
-
-            Fp12 miller = pair.millerLoop();
-
-            if (!miller.equals(Fp12._1))    // run mul code only if necessary
-                product = product.mul(miller);
+            if (!pair.g1.isZero() && !pair.g2.isZero())
+                nonTrivial.add(pair);
         }
 
+        if (!nonTrivial.isEmpty())
+            product = product.mul(millerLoop(nonTrivial));
+
         // finalize
         product = finalExponentiation(product);
     }
@@ -85,14 +87,19 @@ public class PairingCheck {
         return product.equals(Fp12._1) ? 1 : 0;
     }
 
-    private static Fp12 millerLoop(BN128G1 g1, BN128G2 g2) {
-
-        // convert to affine coordinates
-        g1 = g1.toAffine();
-        g2 = g2.toAffine();
-
-        // calculate Ell coefficients
-        List<EllCoeffs> coeffs = calcEllCoeffs(g2);
+    /**
+     * Computes the product of the Miller loops of all the pairs at once: the squaring of the accumulator, which
+     * dominates the loop, is shared by all the pairs, since the square of a product is the product of the squares.
+     */
+    private static Fp12 millerLoop(List<Pair> pairs) {
+
+        // convert to affine coordinates and calculate Ell coefficients
+        BN128G1[] g1s = new BN128G1[pairs.size()];
+        List<List<EllCoeffs>> coeffs = new ArrayList<>(pairs.size());
+        for (int k = 0; k < pairs.size(); k++) {
+            g1s[k] = pairs.get(k).g1.toAffine();
+            coeffs.add(calcEllCoeffs(pairs.get(k).g2.toAffine()));
+        }
 
         Fp12 f = Fp12._1;
         int idx = 0;
@@ -100,23 +107,27 @@ public class PairingCheck {
         // for each bit except most significant one
         for (int i = LOOP_COUNT.bitLength() - 2; i >=0; i--) {
 
-            EllCoeffs c = coeffs.get(idx++);
             f = f.squared();
-            f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+            f = mulByEllCoeffs(f, g1s, coeffs, idx++);
 
             if (LOOP_COUNT.testBit(i)) {
-                c = coeffs.get(idx++);
-                f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+                f = mulByEllCoeffs(f, g1s, coeffs, idx++);
             }
 
         }
 
-        EllCoeffs c = coeffs.get(idx++);
-        f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+        f = mulByEllCoeffs(f, g1s, coeffs, idx++);
+        f = mulByEllCoeffs(f, g1s, coeffs, idx);
 
-        c = coeffs.get(idx);
-        f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+        return f;
+    }
 
+    private static Fp12 mulByEllCoeffs(Fp12 f, BN128G1[] g1s, List<List<EllCoeffs>> coeffs, int idx) {
+        for (int k = 0; k < g1s.length; k++) {
+            BN128G1 g1 = g1s[k];
+            EllCoeffs c = coeffs.get(k).get(idx);
+            f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+        }
         return f;
     }
 
@@ -277,15 +288,6 @@ public class PairingCheck {
             this.g1 = g1;
             this.g2 = g2;
         }
-
-        Fp12 millerLoop() {
-
-            // miller loop result equals "1" if at least one of the points is zero
-            if (g1.isZero()) return Fp12._1;
-            if (g2.isZero()) return Fp12._1;
-
-            return PairingCheck.millerLoop(g1, g2);
-        }
     }
 
     static class EllCoeffs {
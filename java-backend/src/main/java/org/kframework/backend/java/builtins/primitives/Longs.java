@@ -0,0 +1,116 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins.primitives;
+
+/**
+ * Arithmetic on integers of at most {@link Long#SIZE} bits stored in a java primitive long.
+ * <p>
+ * An integer on {@code bitwidth} bits is represented by its signed value, that is, its lowest {@code bitwidth} bits
+ * sign extended to 64 bits. The arguments of the checked operations are expected in this representation, and their
+ * results are returned in it.
+ */
+public final class Longs {
+
+    private Longs() { }
+
+    /**
+     * Returns the lowest {@code bitwidth} bits of {@code value}, sign extended.
+     */
+    public static long signExtend(long value, int bitwidth) {
+        int shift = Long.SIZE - bitwidth;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * Returns the lowest {@code bitwidth} bits of {@code value}, zero extended. If {@code bitwidth} is 64, the
+     * result is to be read as an unsigned long.
+     */
+    public static long toUnsigned(long value, int bitwidth) {
+        return value & mask(bitwidth);
+    }
+
+    /**
+     * Returns the long whose lowest {@code bitwidth} bits are set.
+     */
+    public static long mask(int bitwidth) {
+        return -1L >>> (Long.SIZE - bitwidth);
+    }
+
+    /**
+     * Returns the smallest signed value on {@code bitwidth} bits.
+     */
+    public static long signedMin(int bitwidth) {
+        return -1L << (bitwidth - 1);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedAdd(long a, long b, int bitwidth) {
+        long result = a + b;
+        boolean overflow = bitwidth == Long.SIZE
+                ? ((a ^ result) & (b ^ result)) < 0
+                : result != signExtend(result, bitwidth);
+        return new OverflowArithmeticResult<>(signExtend(result, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedUnsignedAdd(long a, long b, int bitwidth) {
+        long unsignedA = toUnsigned(a, bitwidth);
+        long result = unsignedA + toUnsigned(b, bitwidth);
+        boolean overflow = bitwidth == Long.SIZE
+                ? Long.compareUnsigned(result, unsignedA) < 0
+                : result >>> bitwidth != 0;
+        return new OverflowArithmeticResult<>(signExtend(result, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedSub(long a, long b, int bitwidth) {
+        long result = a - b;
+        boolean overflow = bitwidth == Long.SIZE
+                ? ((a ^ b) & (a ^ result)) < 0
+                : result != signExtend(result, bitwidth);
+        return new OverflowArithmeticResult<>(signExtend(result, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedUnsignedSub(long a, long b, int bitwidth) {
+        boolean overflow = Long.compareUnsigned(toUnsigned(a, bitwidth), toUnsigned(b, bitwidth)) < 0;
+        return new OverflowArithmeticResult<>(signExtend(a - b, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedMul(long a, long b, int bitwidth) {
+        long result = a * b;
+        boolean overflow;
+        if (bitwidth <= Integer.SIZE) {
+            /* both arguments fit in an int, so the product is exact */
+            overflow = result != signExtend(result, bitwidth);
+        } else if ((Math.abs(a) | Math.abs(b)) >>> 31 != 0
+                && ((b != 0 && result / b != a) || (a == Long.MIN_VALUE && b == -1))) {
+            /* the product does not fit in a long, as in Math.multiplyExact */
+            overflow = true;
+        } else {
+            overflow = result != signExtend(result, bitwidth);
+        }
+        return new OverflowArithmeticResult<>(signExtend(result, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedUnsignedMul(long a, long b, int bitwidth) {
+        long unsignedA = toUnsigned(a, bitwidth);
+        long unsignedB = toUnsigned(b, bitwidth);
+        long result = unsignedA * unsignedB;
+        boolean overflow = bitwidth <= Integer.SIZE
+                /* both arguments fit in 32 bits, so the product is exact as an unsigned long */
+                ? result >>> bitwidth != 0
+                : unsignedB != 0 && Long.compareUnsigned(unsignedA, Long.divideUnsigned(mask(bitwidth), unsignedB)) > 0;
+        return new OverflowArithmeticResult<>(signExtend(result, bitwidth), overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedDiv(long a, long b, int bitwidth) {
+        /* the only quotient out of range is that of the smallest value by -1 */
+        return new OverflowArithmeticResult<>(
+                signExtend(a / b, bitwidth),
+                a == signedMin(bitwidth) && b == -1);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedRem(long a, long b, int bitwidth) {
+        /* the overflow flag for srem is set if the associated sdiv overflows */
+        return new OverflowArithmeticResult<>(
+                a % b,
+                a == signedMin(bitwidth) && b == -1);
+    }
+
+}
@@ -25,6 +25,8 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import scala.collection.JavaConversions;
 import scala.collection.JavaConverters;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import static org.kframework.Collections.*;
@@ -103,7 +107,11 @@ public class Definition extends JavaSymbolicObject {
 
     public final Map<Integer, Integer> reverseRuleTable = new HashMap<>();
 
-    private final Map<KItem.CacheTableColKey, KItem.CacheTableValue> sortCacheTable = new HashMap<>();
+    /**
+     * The sorts of {@link KItem}s, by KLabel and the sorts of their children. It is filled lazily by the
+     * rewriter threads sharing this definition, and it is not serialized since it can always be filled again.
+     */
+    private transient ConcurrentMap<KItem.CacheTableColKey, KItem.CacheTableValue> sortCacheTable = new ConcurrentHashMap<>();
 
     public Definition(org.kframework.definition.Module module, KExceptionManager kem) {
         kLabels = new HashSet<>();
@@ -345,15 +353,16 @@ public class Definition extends JavaSymbolicObject {
     }
 
     public KItem.CacheTableValue getSortCacheValue(KItem.CacheTableColKey key) {
-        synchronized (sortCacheTable) {
-            return sortCacheTable.get(key);
-        }
+        return sortCacheTable.get(key);
     }
 
     public void putSortCacheValue(KItem.CacheTableColKey key, KItem.CacheTableValue value) {
-        synchronized (sortCacheTable) {
-            sortCacheTable.put(key, value);
-        }
+        sortCacheTable.putIfAbsent(key, value);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        sortCacheTable = new ConcurrentHashMap<>();
     }
 
     // added from context
@@ -1,11 +1,11 @@
 package org.kframework.backend.java.kil;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Denis Bogdanas
@@ -13,15 +13,47 @@ import java.util.Map;
  */
 public class FunctionCache {
 
-    final Table<JavaSymbolicObject<?>, ConjunctiveFormula, Term> evaluationCache = HashBasedTable.create();
-    final Map<JavaSymbolicObject<?>, Term> nullConstraintEvalCache = new HashMap<>();
+    /* source of generations, shared by all caches so that a term never mistakes one cache for another */
+    private static final AtomicInteger generations = new AtomicInteger(0);
+
+    private final ConcurrentMap<JavaSymbolicObject<?>, Map<ConjunctiveFormula, Term>> evaluationCache =
+            new ConcurrentHashMap<>();
+    final Map<JavaSymbolicObject<?>, Term> nullConstraintEvalCache = new ConcurrentHashMap<>();
+
+    private volatile int generation = generations.incrementAndGet();
+
+    /**
+     * Returns the generation of this cache, which changes every time it is cleared. Terms keep what they looked up
+     * in the cache together with its generation, and look it up again once the generation changed.
+     */
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * Returns the results cached for {@code term} under the constraints they were evaluated with, or null if there
+     * are none.
+     */
+    Map<ConjunctiveFormula, Term> row(JavaSymbolicObject<?> term) {
+        return evaluationCache.get(term);
+    }
+
+    /**
+     * Returns the results cached for {@code term}, creating an empty row for it if there is none.
+     */
+    Map<ConjunctiveFormula, Term> getOrCreateRow(JavaSymbolicObject<?> term) {
+        return evaluationCache.computeIfAbsent(term, t -> new ConcurrentHashMap<>());
+    }
 
     public void clear() {
+        generation = generations.incrementAndGet();
+        // terms may still hold their row until they look it up again, so empty the rows to release the results
+        evaluationCache.values().forEach(Map::clear);
         evaluationCache.clear();
         nullConstraintEvalCache.clear();
     }
 
     public int size() {
-        return evaluationCache.size() + nullConstraintEvalCache.size();
+        return evaluationCache.values().stream().mapToInt(Map::size).sum() + nullConstraintEvalCache.size();
     }
 }
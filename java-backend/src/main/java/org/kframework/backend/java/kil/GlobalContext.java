@@ -4,6 +4,8 @@ package org.kframework.backend.java.kil;
 
 import org.kframework.backend.java.kil.KItem.KItemOperations;
 import org.kframework.backend.java.symbolic.BuiltinFunction;
+import org.kframework.backend.java.symbolic.ConstraintIndependence;
+import org.kframework.backend.java.symbolic.ImplicationCache;
 import org.kframework.backend.java.symbolic.Equality.EqualityOperations;
 import org.kframework.backend.java.symbolic.JavaExecutionOptions;
 import org.kframework.backend.java.symbolic.SMTOperations;
@@ -47,6 +49,8 @@ public class GlobalContext implements Serializable {
     public final transient FunctionCache functionCache = new FunctionCache();
     public final transient FormulaSimplificationCache formulaCache = new FormulaSimplificationCache();
     public final transient ToStringCache toStringCache = new ToStringCache();
+    public final transient ConstraintIndependence constraintIndependence = new ConstraintIndependence();
+    public final transient ImplicationCache implicationCache = new ImplicationCache();
 
     private boolean isExecutionPhase = true;
 
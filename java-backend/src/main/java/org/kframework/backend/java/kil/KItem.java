@@ -63,9 +63,9 @@ public class KItem extends Term implements KItemRepresentation {
     private final Term kLabel;
     private final Term kList;
 
-    // sort info, computed lazily
+    // sort info, computed lazily; sort is written last, so that a thread seeing it also sees the others
     private boolean isExactSort;
-    private Sort sort;
+    private volatile Sort sort;
     private Set<Sort> possibleSorts;
     private transient boolean enableCache; // for lazy computation
     private final GlobalContext global; // for lazy computation
@@ -173,9 +173,9 @@ public class KItem extends Term implements KItemRepresentation {
             CacheTableColKey cacheTabColKey = new CacheTableColKey((KLabelConstant) kLabel, (KList) kList);
             CacheTableValue cacheTabVal = definition.getSortCacheValue(cacheTabColKey);
             if (cacheTabVal != null) {
-                sort = cacheTabVal.sort;
                 isExactSort = cacheTabVal.isExactSort;
                 possibleSorts = cacheTabVal.possibleSorts;
+                sort = cacheTabVal.sort;
                 return;
             }
         }
@@ -269,9 +269,9 @@ public class KItem extends Term implements KItemRepresentation {
         boolean isExactSort = kLabelConstant.isConstructor() && possibleSorts.isEmpty();
         possibleSorts.add(sort);
 
-        this.sort = sort;
         this.isExactSort = isExactSort;
         this.possibleSorts = possibleSorts;
+        this.sort = sort;
 
         CacheTableValue cacheTabVal = new CacheTableValue(sort, isExactSort, possibleSorts);
 
@@ -12,6 +12,7 @@ import org.kframework.utils.errorsystem.KEMException;
 import scala.collection.Seq;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,6 +30,7 @@ import java.util.stream.Collectors;
  */
 public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel {
 
+    /* held strongly, since the ordinals of KLabels must not change; see the cache of {@link Sort} */
     private static final ConcurrentMap<Pair<Set<SortSignature>, Att>,
             ConcurrentMap<String, KLabelConstant>> cache = new ConcurrentHashMap<>();
 
@@ -123,14 +125,29 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
      * @return AST term representation the the KLabel;
      */
     public static KLabelConstant of(org.kframework.kore.KLabel label, Definition definition) {
-        return cache.computeIfAbsent(Pair.of(definition.signaturesOf(label.name()), definition.kLabelAttributesOf(label)), p -> new ConcurrentHashMap<>())
-                .computeIfAbsent(label.toString(), l -> new KLabelConstant(
-                        label.name(),
-                        label.params(),
-                        maxOrdinal.getAndIncrement(),
-                        definition.signaturesOf(label.name()),
-                        definition.allSorts(),
-                        definition.kLabelAttributesOf(label)));
+        Set<SortSignature> signatures = definition.signaturesOf(label.name());
+        Att attributes = definition.kLabelAttributesOf(label);
+        // look up before computeIfAbsent, which locks even when the entry is present
+        ConcurrentMap<String, KLabelConstant> labels = cache.get(Pair.of(signatures, attributes));
+        if (labels == null) {
+            labels = cache.computeIfAbsent(Pair.of(signatures, attributes), p -> new ConcurrentHashMap<>());
+        }
+        KLabelConstant kLabelConstant = labels.get(label.toString());
+        if (kLabelConstant != null) {
+            return kLabelConstant;
+        }
+        Sort.ordinalLock.readLock().lock();
+        try {
+            return labels.computeIfAbsent(label.toString(), l -> new KLabelConstant(
+                    label.name(),
+                    label.params(),
+                    maxOrdinal.getAndIncrement(),
+                    signatures,
+                    definition.allSorts(),
+                    attributes));
+        } finally {
+            Sort.ordinalLock.readLock().unlock();
+        }
     }
 
     /*
@@ -208,6 +225,23 @@ public class KLabelConstant extends KLabel implements org.kframework.kore.KLabel
         return label;
     }
 
+    /**
+     * Returns a description of each KLabel constant created so far, by ordinal. KLabels with the same name but
+     * different signatures or attributes have different descriptions.
+     */
+    public static Map<Integer, String> descriptionsByOrdinal() {
+        Map<Integer, String> descriptions = new HashMap<>();
+        cache.forEach((key, labels) -> {
+            String signatures = key.getLeft().stream()
+                    .map(s -> s.parameters() + " -> " + s.result())
+                    .sorted()
+                    .collect(Collectors.joining(", ", "{", "}"));
+            labels.forEach((label, constant) ->
+                    descriptions.put(constant.ordinal, label + " " + signatures + " " + key.getRight()));
+        });
+        return descriptions;
+    }
+
     /**
      * @return an unique integer representing the KLabel -- used by {@link org.kframework.backend.java.symbolic.FastRuleMatcher}
      */
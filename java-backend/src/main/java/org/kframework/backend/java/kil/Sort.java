@@ -10,9 +10,13 @@ import java.io.Serializable;
 import org.kframework.kore.KORE;
 import scala.collection.Seq;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Sort of a {@link Term}.
@@ -22,6 +26,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public final class Sort implements org.kframework.kore.Sort, Serializable {
 
+    /*
+     * Sorts are held strongly, unlike tokens: their ordinals index the arrays of the rule automaton, which are sized
+     * when the definition is loaded, so a sort must keep its ordinal for the life of the process.
+     */
     private static final ConcurrentMap<String, Sort> cache = new ConcurrentHashMap<>();
 
     /**
@@ -29,6 +37,12 @@ public final class Sort implements org.kframework.kore.Sort, Serializable {
      */
     public static final AtomicInteger maxOrdinal = new AtomicInteger(0);
 
+    /**
+     * Held for reading while a new sort or KLabel takes an ordinal and is added to its cache, and for writing while
+     * the ordinals in use are compared with those of a cached definition and reserved for it.
+     */
+    public static final ReadWriteLock ordinalLock = new ReentrantReadWriteLock();
+
 
     public static final Sort KITEM          =   Sort.of(Sorts.KItem());
     public static final Sort KSEQUENCE      =   Sort.of(Sorts.K());
@@ -69,10 +83,29 @@ public final class Sort implements org.kframework.kore.Sort, Serializable {
      * @return the sort
      */
     public static Sort of(org.kframework.kore.Sort sort) {
-        return cache.computeIfAbsent(sort.toString(), s -> new Sort(sort.name(), sort.params(), maxOrdinal.getAndIncrement()));
+        String key = sort.toString();
+        Sort cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ordinalLock.readLock().lock();
+        try {
+            return cache.computeIfAbsent(key, s -> new Sort(sort.name(), sort.params(), maxOrdinal.getAndIncrement()));
+        } finally {
+            ordinalLock.readLock().unlock();
+        }
     }
 
 
+    /**
+     * Returns the names of all the sorts created so far, by ordinal.
+     */
+    public static Map<Integer, String> namesByOrdinal() {
+        Map<Integer, String> names = new HashMap<>();
+        cache.forEach((name, sort) -> names.put(sort.ordinal, name));
+        return names;
+    }
+
     private Sort(String name, Seq<org.kframework.kore.Sort> params, int ordinal) {
         this.name = name;
         this.params = params;
@@ -24,8 +24,27 @@ public abstract class Term extends JavaSymbolicObject<Term> implements Comparabl
         org.kframework.kore.K {
 
     //For performance improvement. Faster than accessing evaluationCache directly.
-    private transient Map<ConjunctiveFormula, Term> evaluationCacheRow;
-    private transient Term nullConstraintEvalResult;
+    private transient CachedEvaluation cachedEvaluation;
+
+    /**
+     * What a term saved from a {@link FunctionCache}, together with the generation of the cache it was taken from.
+     * <p>
+     * Terms are shared between the threads proving claims in parallel. The fields are final and a holder is never
+     * changed, only replaced, so a thread that reads {@link #cachedEvaluation} without synchronization sees either
+     * null or a complete holder. At worst it sees an older holder, or its own holder replaces the one of another
+     * thread, which only costs another lookup in the {@link FunctionCache}, itself a concurrent map.
+     */
+    private static final class CachedEvaluation {
+        final int generation;
+        final Map<ConjunctiveFormula, Term> row;
+        final Term nullConstraintResult;
+
+        CachedEvaluation(int generation, Map<ConjunctiveFormula, Term> row, Term nullConstraintResult) {
+            this.generation = generation;
+            this.row = row;
+            this.nullConstraintResult = nullConstraintResult;
+        }
+    }
 
     protected final Kind kind;
     // protected final boolean normalized;
@@ -132,28 +151,62 @@ public abstract class Term extends JavaSymbolicObject<Term> implements Comparabl
     }
 
     Term cacheGet(ConjunctiveFormula constraint, TermContext context) {
+        return cacheGet(constraint, context.global().functionCache);
+    }
+
+    void cachePut(ConjunctiveFormula constraint, Term result, TermContext context) {
+        cachePut(constraint, result, context.global().functionCache);
+    }
+
+    /**
+     * Returns what this term saved from {@code functionCache}, forgetting it if the cache was cleared since.
+     */
+    private CachedEvaluation cachedEvaluation(FunctionCache functionCache) {
+        int generation = functionCache.generation();
+        CachedEvaluation cached = cachedEvaluation;
+        if (cached == null || cached.generation != generation) {
+            cached = new CachedEvaluation(generation, null, null);
+            cachedEvaluation = cached;
+        }
+        return cached;
+    }
+
+    Term cacheGet(ConjunctiveFormula constraint, FunctionCache functionCache) {
+        CachedEvaluation cached = cachedEvaluation(functionCache);
         if (constraint == null) {
-            if (nullConstraintEvalResult == null) {
-                nullConstraintEvalResult = context.global().functionCache.nullConstraintEvalCache.get(this);
+            Term result = cached.nullConstraintResult;
+            if (result == null) {
+                result = functionCache.nullConstraintEvalCache.get(this);
+                if (result != null) {
+                    cachedEvaluation = new CachedEvaluation(cached.generation, cached.row, result);
+                }
             }
-            return nullConstraintEvalResult;
+            return result;
         } else {
-            if (evaluationCacheRow == null) {
-                evaluationCacheRow = context.global().functionCache.evaluationCache.row(this);
+            Map<ConjunctiveFormula, Term> row = cached.row;
+            if (row == null) {
+                row = functionCache.row(this);
+                if (row == null) {
+                    return null;
+                }
+                cachedEvaluation = new CachedEvaluation(cached.generation, row, cached.nullConstraintResult);
             }
-            return evaluationCacheRow.get(constraint);
+            return row.get(constraint);
         }
     }
 
-    void cachePut(ConjunctiveFormula constraint, Term result, TermContext context) {
+    void cachePut(ConjunctiveFormula constraint, Term result, FunctionCache functionCache) {
+        CachedEvaluation cached = cachedEvaluation(functionCache);
         if (constraint == null) {
-            context.global().functionCache.nullConstraintEvalCache.put(this, result);
-            nullConstraintEvalResult = result;
+            functionCache.nullConstraintEvalCache.put(this, result);
+            cachedEvaluation = new CachedEvaluation(cached.generation, cached.row, result);
         } else {
-            if (evaluationCacheRow == null) {
-                evaluationCacheRow = context.global().functionCache.evaluationCache.row(this);
+            Map<ConjunctiveFormula, Term> row = cached.row;
+            if (row == null) {
+                row = functionCache.getOrCreateRow(this);
+                cachedEvaluation = new CachedEvaluation(cached.generation, row, cached.nullConstraintResult);
             }
-            evaluationCacheRow.put(constraint, result);
+            row.put(constraint, result);
         }
     }
 
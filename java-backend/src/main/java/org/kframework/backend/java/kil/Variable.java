@@ -3,6 +3,7 @@ package org.kframework.backend.java.kil;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.MapMaker;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.symbolic.Transformer;
@@ -12,7 +13,6 @@ import scala.collection.Seq;
 
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.kframework.Collections.Seq;
@@ -27,7 +27,8 @@ public class Variable extends Term implements org.kframework.kore.KVariable {
 
     protected static final String VARIABLE_PREFIX = "_";
     protected static final AtomicInteger counter = new AtomicInteger(0);
-    private static final Map<Pair<Integer, Sort>, Variable> deserializationAnonymousVariableMap = new ConcurrentHashMap<>();
+    /* the fresh copies of the deserialized anonymous variables; held weakly */
+    private static final Map<Pair<Integer, Sort>, Variable> deserializationAnonymousVariableMap = new MapMaker().weakValues().makeMap();
 
     public static int getCounter() {
         return counter.get();
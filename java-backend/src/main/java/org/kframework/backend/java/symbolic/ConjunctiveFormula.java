@@ -7,7 +7,6 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.lang3.tuple.Triple;
 import org.kframework.backend.java.builtins.BoolToken;
 import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.kil.Bottom;
@@ -144,6 +143,14 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         return global;
     }
 
+    /**
+     * Returns this formula in the given context. The context is not serialized with the formula, so formulas
+     * that are deserialized have to be attached to the context of the run that loads them.
+     */
+    ConjunctiveFormula withGlobalContext(GlobalContext global) {
+        return new ConjunctiveFormula(substitution, equalities, disjunctions, truthValue, falsifyingEquality, global);
+    }
+
     public Substitution<Variable, Term> substitution() {
         return substitution;
     }
@@ -954,8 +961,6 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         return simplifiedConstraint;
     }
 
-    private static final Map<Triple<ConjunctiveFormula, ConjunctiveFormula, Set<Variable>>, Boolean> impliesSMTCache = Collections.synchronizedMap(new HashMap<>());
-
     public static CounterStopwatch impliesStopwatch = new CounterStopwatch("impliesSMT");
 
     /**
@@ -970,14 +975,15 @@ public class ConjunctiveFormula extends Term implements CollectionInternalRepres
         impliesStopwatch.start();
         formulaContext.z3Profiler.newRequest();
         try {
-            Triple<ConjunctiveFormula, ConjunctiveFormula, Set<Variable>> triple = Triple.of(left, right, existentialQuantVars);
-            boolean cached = true;
-            if (!impliesSMTCache.containsKey(triple)) {
-                impliesSMTCache.put(triple,
-                        left.global.constraintOps.impliesSMT(left, right, existentialQuantVars, formulaContext));
-                cached = false;
+            Object key = left.global.implicationCache.key(left, right, existentialQuantVars);
+            Boolean result = left.global.implicationCache.get(key);
+            boolean cached = result != null;
+            if (cached) {
+                formulaContext.z3Profiler.cacheHit();
+            } else {
+                result = left.global.constraintOps.impliesSMT(left, right, existentialQuantVars, formulaContext);
+                left.global.implicationCache.put(key, result);
             }
-            Boolean result = impliesSMTCache.get(triple);
 
             if (left.globalContext().javaExecutionOptions.debugZ3) {
                 formulaContext.printImplication(left, right, result, cached);
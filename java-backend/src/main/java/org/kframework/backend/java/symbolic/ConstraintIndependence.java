@@ -0,0 +1,383 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import org.kframework.backend.java.builtins.BitVector;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.FloatToken;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.builtins.UninterpretedToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Token;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Splits conjunctions of equalities into independent components before they are sent to the SMT solver, and
+ * caches the verdict for each component, in the style of KLEE's constraint independence optimization.
+ * <p>
+ * Two equalities are related if they share a variable or an uninterpreted function symbol. Terms that the SMT
+ * translation abstracts into fresh variables are shared between all the equalities containing them, so all such
+ * equalities are conservatively related to each other. Every query also loads the SMT prelude and the declarations
+ * of the definition, whose axioms, such as the translations of smt-lemma rules, and function definitions can
+ * constrain several uninterpreted symbols together. Equalities containing symbols that occur in the same axiom or
+ * definition are therefore related as well, once {@link #relateAxiomSymbols} has been called with that text.
+ * <p>
+ * With the axioms loaded, a conjunction is then unsat exactly when one of its components is, so components can be
+ * checked separately, and a component that was checked along one path does not need to be checked again when the
+ * path condition grows with unrelated equalities.
+ * <p>
+ * The cache of verdicts holds at most {@link #MAXIMUM_SIZE} components and evicts the least recently used ones
+ * first.
+ */
+public class ConstraintIndependence {
+
+    /**
+     * SMTLib functions interpreted by the theories of the solver. All other functions may be constrained by
+     * declarations and axioms in the SMT prelude, so they relate the equalities they occur in.
+     */
+    private static final ImmutableSet<String> INTERPRETED_FUNCTIONS = ImmutableSet.of(
+            "not", "and", "or", "xor", "=>", "=", "distinct", "ite",
+            "+", "-", "*", "div", "mod", "abs", "<=", "<", ">=", ">",
+            "select", "store",
+            "concat", "extract", "bvnot", "bvneg", "bvand", "bvor", "bvadd", "bvmul", "bvudiv", "bvurem",
+            "bvshl", "bvlshr", "bvult", "bvsub", "bvxor", "bvslt", "bvule", "bvsle", "bvugt", "bvsgt",
+            "bvuge", "bvsge", "bv2int");
+
+    /**
+     * The top level SMTLib commands whose symbols constrain each other. Declarations only introduce a symbol.
+     */
+    private static final ImmutableSet<String> AXIOM_COMMANDS = ImmutableSet.of(
+            "assert", "define-fun", "define-fun-rec", "define-funs-rec", "define-const");
+
+    /** Relates all equalities containing terms that are abstracted into fresh variables. */
+    private static final Object ABSTRACTED = new Object();
+
+    static final int MAXIMUM_SIZE = 1 << 16;
+
+    private final Cache<Set<Equality>, Boolean> unsatCache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+    private volatile Axioms axioms = new Axioms(new String[0], Collections.emptyMap());
+
+    /**
+     * The groups of uninterpreted symbols that occur together in the axioms and definitions of some SMTLib text.
+     */
+    private static final class Axioms {
+        private final String[] texts;
+        /** The group of each symbol, by SMTLib name. Symbols in the same group share the same object. */
+        private final Map<String, Object> groups;
+
+        Axioms(String[] texts, Map<String, Object> groups) {
+            this.texts = texts;
+            this.groups = groups;
+        }
+    }
+
+    /**
+     * Relates the uninterpreted symbols that occur together in an axiom or a function definition of {@code texts},
+     * the SMTLib commands loaded before every query. Only the SMTLib names of {@code kLabels} are considered, since
+     * the other names in the commands are sorts, bound variables and keywords. Calling it again with the same texts
+     * does nothing.
+     */
+    public void relateAxiomSymbols(Collection<KLabelConstant> kLabels, String... texts) {
+        if (Arrays.equals(axioms.texts, texts)) {
+            return;
+        }
+        Set<String> symbols = kLabels.stream()
+                .map(KLabelConstant::smtlib)
+                .filter(smtlib -> smtlib != null && !INTERPRETED_FUNCTIONS.contains(smtlib))
+                .collect(Collectors.toSet());
+        Map<String, String> parent = new HashMap<>();
+        for (String text : texts) {
+            for (List<String> command : commands(text)) {
+                if (command.isEmpty() || !AXIOM_COMMANDS.contains(command.get(0))) {
+                    continue;
+                }
+                String first = null;
+                for (String symbol : command) {
+                    if (symbols.contains(symbol)) {
+                        if (first == null) {
+                            first = symbol;
+                        }
+                        union(parent, first, symbol);
+                    }
+                }
+            }
+        }
+        Map<String, Object> roots = new HashMap<>();
+        Map<String, Object> groups = new HashMap<>();
+        for (String symbol : parent.keySet()) {
+            groups.put(symbol, roots.computeIfAbsent(find(parent, symbol), root -> new Object()));
+        }
+        axioms = new Axioms(texts.clone(), groups);
+    }
+
+    /**
+     * Splits SMTLib text into its top level commands, each given by the symbols occurring in it. Comments and string
+     * literals are skipped, and quoted symbols are returned without their bars.
+     */
+    private static List<List<String>> commands(String text) {
+        List<List<String>> commands = new ArrayList<>();
+        List<String> command = new ArrayList<>();
+        int depth = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+                if (depth == 0) {
+                    commands.add(command);
+                    command = new ArrayList<>();
+                }
+            } else if (c == ';') {
+                int end = text.indexOf('\n', i);
+                i = end < 0 ? text.length() : end + 1;
+            } else if (c == '"') {
+                i++;
+                while (i < text.length()) {
+                    // a quote inside a string literal is written twice
+                    if (text.charAt(i) == '"' && (i + 1 == text.length() || text.charAt(i + 1) != '"')) {
+                        break;
+                    }
+                    i += text.charAt(i) == '"' ? 2 : 1;
+                }
+                i++;
+            } else if (c == '|') {
+                int end = text.indexOf('|', i + 1);
+                end = end < 0 ? text.length() : end;
+                command.add(text.substring(i + 1, end));
+                i = end + 1;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && "()|\";".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                command.add(text.substring(start, i));
+            }
+        }
+        return commands;
+    }
+
+    private static String find(Map<String, String> parent, String symbol) {
+        String root = symbol;
+        for (String next = parent.get(root); !next.equals(root); next = parent.get(root)) {
+            root = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> parent, String first, String second) {
+        parent.putIfAbsent(first, first);
+        parent.putIfAbsent(second, second);
+        String firstRoot = find(parent, first);
+        String secondRoot = find(parent, second);
+        if (!firstRoot.equals(secondRoot)) {
+            parent.put(secondRoot, firstRoot);
+        }
+    }
+
+    /**
+     * Returns the cached verdict of a component, or null if it was not checked yet.
+     */
+    public Boolean getUnsat(Collection<Equality> component) {
+        return unsatCache.getIfPresent(ImmutableSet.copyOf(component));
+    }
+
+    public void putUnsat(Collection<Equality> component, boolean unsat) {
+        unsatCache.put(ImmutableSet.copyOf(component), unsat);
+    }
+
+    /**
+     * Partitions the given equalities into independent components. Equalities keep their relative order, and
+     * components are ordered by their first equality.
+     */
+    public List<List<Equality>> components(List<Equality> equalities) {
+        return components(equalities, equalities.stream().map(this::symbols).collect(Collectors.toList()));
+    }
+
+    /**
+     * Partitions {@code equalities} into the equalities related to the term {@code related}, directly or through
+     * other equalities, and the independent components of the others.
+     *
+     * @return the related equalities, followed by the components of the others.
+     */
+    public List<List<Equality>> slice(List<Equality> equalities, Term related) {
+        Set<Object> relatedSymbols = symbols(related);
+        List<Set<Object>> symbols = equalities.stream().map(this::symbols).collect(Collectors.toList());
+        List<Equality> relevant = new ArrayList<>();
+        List<List<Equality>> result = new ArrayList<>();
+        result.add(relevant);
+        int[] parent = partition(symbols);
+        Set<Integer> relatedRoots = new HashSet<>();
+        for (int i = 0; i < equalities.size(); i++) {
+            if (!Collections.disjoint(symbols.get(i), relatedSymbols)) {
+                relatedRoots.add(find(parent, i));
+            }
+        }
+        Map<Integer, List<Equality>> components = new LinkedHashMap<>();
+        for (int i = 0; i < equalities.size(); i++) {
+            int root = find(parent, i);
+            if (relatedRoots.contains(root)) {
+                relevant.add(equalities.get(i));
+            } else {
+                components.computeIfAbsent(root, k -> new ArrayList<>()).add(equalities.get(i));
+            }
+        }
+        result.addAll(components.values());
+        return result;
+    }
+
+    private static List<List<Equality>> components(List<Equality> equalities, List<Set<Object>> symbols) {
+        int[] parent = partition(symbols);
+        Map<Integer, List<Equality>> components = new LinkedHashMap<>();
+        for (int i = 0; i < equalities.size(); i++) {
+            components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(equalities.get(i));
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    /**
+     * Computes a union-find forest over the indices of {@code symbols}, joining the indices that share a symbol.
+     */
+    private static int[] partition(List<Set<Object>> symbols) {
+        int[] parent = new int[symbols.size()];
+        Map<Object, Integer> owners = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            parent[i] = i;
+            for (Object symbol : symbols.get(i)) {
+                Integer owner = owners.putIfAbsent(symbol, i);
+                if (owner != null) {
+                    union(parent, owner, i);
+                }
+            }
+        }
+        return parent;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int i, int j) {
+        int ri = find(parent, i);
+        int rj = find(parent, j);
+        if (ri != rj) {
+            parent[Math.max(ri, rj)] = Math.min(ri, rj);
+        }
+    }
+
+    private Set<Object> symbols(Equality equality) {
+        SymbolCollector collector = new SymbolCollector(axioms.groups);
+        equality.leftHandSide().accept(collector);
+        equality.rightHandSide().accept(collector);
+        return collector.symbols;
+    }
+
+    private Set<Object> symbols(Term term) {
+        SymbolCollector collector = new SymbolCollector(axioms.groups);
+        term.accept(collector);
+        return collector.symbols;
+    }
+
+    /**
+     * Collects the variables, uninterpreted function symbols, their groups of axioms and abstracted terms occurring
+     * in a term.
+     */
+    private static class SymbolCollector extends BottomUpVisitor {
+        private final Set<Object> symbols = new HashSet<>();
+        private final Map<String, Object> groups;
+
+        SymbolCollector(Map<String, Object> groups) {
+            this.groups = groups;
+        }
+
+        @Override
+        public void visit(Term term) {
+            symbols.add(ABSTRACTED);
+        }
+
+        @Override
+        public void visit(Variable variable) {
+            symbols.add(variable);
+        }
+
+        @Override
+        public void visit(KItem kItem) {
+            if (kItem.kLabel() instanceof KLabelConstant && kItem.kList() instanceof KList
+                    && !((KList) kItem.kList()).hasFrame()) {
+                kItem.kLabel().accept(this);
+                for (Term term : (KList) kItem.kList()) {
+                    term.accept(this);
+                }
+            } else {
+                super.visit(kItem);
+            }
+        }
+
+        @Override
+        public void visit(KLabelConstant kLabelConstant) {
+            String smtlib = kLabelConstant.smtlib();
+            if (smtlib == null) {
+                symbols.add(ABSTRACTED);
+            } else if (!INTERPRETED_FUNCTIONS.contains(smtlib)) {
+                symbols.add(kLabelConstant);
+                Object group = groups.get(smtlib);
+                if (group != null) {
+                    symbols.add(group);
+                }
+            }
+        }
+
+        @Override
+        public void visit(BuiltinList builtinList) {
+            builtinList.toKore().accept(this);
+        }
+
+        @Override
+        public void visit(Token token) {
+            if (!(token instanceof FloatToken)) {
+                symbols.add(ABSTRACTED);
+            }
+        }
+
+        @Override
+        public void visit(IntToken intToken) { }
+
+        @Override
+        public void visit(BoolToken boolToken) { }
+
+        @Override
+        public void visit(BitVector bitVector) { }
+
+        @Override
+        public void visit(UninterpretedToken uninterpretedToken) { }
+    }
+}
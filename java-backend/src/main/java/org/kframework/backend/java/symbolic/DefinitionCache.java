@@ -0,0 +1,251 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.apache.commons.codec.binary.Hex;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.util.Profiler2;
+import org.kframework.definition.Module;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.kframework.Collections.*;
+
+/**
+ * Stores the Java backend {@link Definition} built from a module in the kompiled directory, so that later runs
+ * on the same module load it instead of converting the module again.
+ * <p>
+ * The definition refers to sorts and KLabels by their ordinals, which are assigned in the order in which a
+ * process creates them. A cache file records the sorts and KLabels that existed when it was written, and it is
+ * only loaded if every sort and KLabel created so far by this process has the same ordinal in it. The
+ * {@link GlobalContext} and the {@link Profiler2} of the run that wrote the file are not stored; the objects
+ * that refer to them are attached to those of the run that loads it.
+ */
+class DefinitionCache {
+
+    static final String DIRECTORY = "java-definition";
+
+    /** The number of cache files kept in the kompiled directory. The least recently used ones are deleted. */
+    private static final int MAXIMUM_FILES = 20;
+
+    private final FileUtil files;
+    private final KExceptionManager kem;
+
+    DefinitionCache(FileUtil files, KExceptionManager kem) {
+        this.files = files;
+        this.kem = kem;
+    }
+
+    /**
+     * @return the cache file of the definition built from {@code module}.
+     */
+    File file(Module module) {
+        return files.resolveKompiled(DIRECTORY + File.separator + key(module) + ".bin");
+    }
+
+    /**
+     * Loads the definition stored in {@code file} into {@code global}.
+     *
+     * @return the definition, or null if there is no usable definition in the file.
+     */
+    Definition load(File file, GlobalContext global) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (ObjectInputStream in = new DefinitionInputStream(new BufferedInputStream(new FileInputStream(file)), global)) {
+            int sortMaxOrdinal = in.readInt();
+            Map<?, ?> sorts = (Map<?, ?>) in.readObject();
+            int kLabelMaxOrdinal = in.readInt();
+            Map<?, ?> kLabels = (Map<?, ?>) in.readObject();
+            // no sort or KLabel may take an ordinal between the check and the reservation
+            Sort.ordinalLock.writeLock().lock();
+            try {
+                if (!agrees(Sort.namesByOrdinal(), sorts) || !agrees(KLabelConstant.descriptionsByOrdinal(), kLabels)) {
+                    return null;
+                }
+                // sorts and KLabels created after this point must not reuse the ordinals of those in the file
+                Sort.maxOrdinal.accumulateAndGet(sortMaxOrdinal, Math::max);
+                KLabelConstant.maxOrdinal.accumulateAndGet(kLabelMaxOrdinal, Math::max);
+            } finally {
+                Sort.ordinalLock.writeLock().unlock();
+            }
+            Definition definition = (Definition) in.readObject();
+            file.setLastModified(System.currentTimeMillis());
+            return definition;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            kem.registerInternalHiddenWarning("Could not load the cached Java backend definition from " + file
+                    + "; it will be rebuilt.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code definition} in {@code file}. Failures are reported as hidden warnings, since the definition
+     * can always be built again.
+     */
+    void save(File file, Definition definition) {
+        File temp = null;
+        try {
+            File directory = file.getParentFile();
+            directory.mkdirs();
+            temp = File.createTempFile("definition", ".tmp", directory);
+            int sortMaxOrdinal, kLabelMaxOrdinal;
+            Map<Integer, String> sorts, kLabels;
+            Sort.ordinalLock.writeLock().lock();
+            try {
+                sortMaxOrdinal = Sort.maxOrdinal.get();
+                sorts = Sort.namesByOrdinal();
+                kLabelMaxOrdinal = KLabelConstant.maxOrdinal.get();
+                kLabels = KLabelConstant.descriptionsByOrdinal();
+            } finally {
+                Sort.ordinalLock.writeLock().unlock();
+            }
+            try (ObjectOutputStream out = new DefinitionOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(sortMaxOrdinal);
+                out.writeObject(sorts);
+                out.writeInt(kLabelMaxOrdinal);
+                out.writeObject(kLabels);
+                out.writeObject(definition);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            prune(directory);
+        } catch (IOException | RuntimeException e) {
+            kem.registerInternalHiddenWarning("Could not cache the Java backend definition in " + file + ".", e);
+        } finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static void prune(File directory) {
+        File[] cached = directory.listFiles((dir, name) -> name.endsWith(".bin"));
+        if (cached == null || cached.length <= MAXIMUM_FILES) {
+            return;
+        }
+        Arrays.sort(cached, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = MAXIMUM_FILES; i < cached.length; i++) {
+            cached[i].delete();
+        }
+    }
+
+    /**
+     * @return true if every ordinal assigned so far by this process names the same object in {@code saved}.
+     */
+    private static boolean agrees(Map<Integer, String> current, Map<?, ?> saved) {
+        return current.entrySet().stream().allMatch(e -> e.getValue().equals(saved.get(e.getKey())));
+    }
+
+    /**
+     * Returns the name of the cache file of {@code module}. It depends on the sentences of the module and on the
+     * build of the Java backend, since the serialized form of the definition changes with its classes.
+     */
+    private static String key(Module module) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            update(md, module.name());
+            List<String> sentences = stream(module.sentences())
+                    .map(s -> s.toString() + s.att())
+                    .sorted()
+                    .collect(Collectors.toList());
+            for (String sentence : sentences) {
+                update(md, sentence);
+            }
+            CodeSource source = Definition.class.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                update(md, source.getLocation().toString());
+                update(md, Long.toString(new File(source.getLocation().getPath()).lastModified()));
+            }
+            return Hex.encodeHexString(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is a required MessageDigest algorithm", e);
+        }
+    }
+
+    private static void update(MessageDigest md, String part) {
+        byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+        md.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        md.update((byte) ':');
+        md.update(bytes);
+    }
+
+    /**
+     * Stands for an object that belongs to the run rather than to the definition.
+     */
+    private enum Placeholder {
+        GLOBAL_CONTEXT, PROFILER
+    }
+
+    private static class DefinitionOutputStream extends ObjectOutputStream {
+
+        DefinitionOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof GlobalContext) {
+                return Placeholder.GLOBAL_CONTEXT;
+            } else if (obj instanceof Profiler2) {
+                return Placeholder.PROFILER;
+            }
+            return obj;
+        }
+    }
+
+    private static class DefinitionInputStream extends ObjectInputStream {
+
+        private final GlobalContext global;
+
+        DefinitionInputStream(InputStream in, GlobalContext global) throws IOException {
+            super(in);
+            this.global = global;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj == Placeholder.GLOBAL_CONTEXT) {
+                return global;
+            } else if (obj == Placeholder.PROFILER) {
+                return global.profiler;
+            } else if (obj instanceof ConjunctiveFormula && ((ConjunctiveFormula) obj).globalContext() == null) {
+                return ((ConjunctiveFormula) obj).withGlobalContext(global);
+            } else if (obj instanceof DisjunctiveFormula && ((DisjunctiveFormula) obj).globalContext() == null) {
+                return ((DisjunctiveFormula) obj).withGlobalContext(global);
+            }
+            return obj;
+        }
+    }
+}
@@ -45,6 +45,13 @@ public class DisjunctiveFormula extends Term implements CollectionInternalRepres
         return global;
     }
 
+    /**
+     * @see ConjunctiveFormula#withGlobalContext(GlobalContext)
+     */
+    DisjunctiveFormula withGlobalContext(GlobalContext global) {
+        return new DisjunctiveFormula(conjunctions, global);
+    }
+
     @Override
     public boolean isExactSort() {
         return true;
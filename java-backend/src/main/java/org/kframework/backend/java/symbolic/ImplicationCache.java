@@ -0,0 +1,166 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.builtins.BitVector;
+import org.kframework.backend.java.builtins.FloatToken;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the results of SMT implication queries for one {@link org.kframework.backend.java.kil.GlobalContext}.
+ * <p>
+ * Queries are keyed up to a renaming of their variables: each variable is renamed after the position of its
+ * first occurrence, its sort, and the attributes the SMT translation depends on. Implications that differ only
+ * in the names of their variables, such as the same side condition checked on different paths, share an entry.
+ * So that the position of a variable does not depend on the order of the equalities either, the equalities of
+ * each side are first sorted by their text with every variable replaced by its sort. Equalities with the same
+ * text keep their order, so reordering them may still give another key, which only costs a cache miss.
+ * The cache holds at most {@link #MAXIMUM_SIZE} entries and evicts the least recently used ones first.
+ */
+public class ImplicationCache {
+
+    static final int MAXIMUM_SIZE = 1 << 16;
+
+    private final Cache<Object, Boolean> cache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+
+    /**
+     * Returns the key of the query {@code left => right}, where {@code existentialQuantVars} are existentially
+     * quantified.
+     */
+    public Object key(ConjunctiveFormula left, ConjunctiveFormula right, Set<Variable> existentialQuantVars) {
+        if (!left.disjunctions().isEmpty() || !right.disjunctions().isEmpty()) {
+            return ImmutableList.of(left, right, existentialQuantVars);
+        }
+        List<Pair<Term, Term>> leftSubstitution = pairs(left.substitution());
+        List<Pair<Term, Term>> leftEqualities = pairs(left.equalities());
+        List<Pair<Term, Term>> rightSubstitution = pairs(right.substitution());
+        List<Pair<Term, Term>> rightEqualities = pairs(right.equalities());
+        List<List<Pair<Term, Term>>> parts = ImmutableList.of(
+                leftSubstitution, leftEqualities, rightSubstitution, rightEqualities);
+
+        VariableCollector variables = new VariableCollector();
+        parts.forEach(part -> collect(part, variables));
+        Map<Variable, Variable> anonymous = new HashMap<>();
+        for (Variable variable : variables.variables) {
+            anonymous.put(variable, new Variable(canonicalName("", variable), variable.sort()));
+        }
+        parts.forEach(part -> sortByShape(part, anonymous));
+
+        VariableCollector sortedVariables = new VariableCollector();
+        parts.forEach(part -> collect(part, sortedVariables));
+        Map<Variable, Variable> renaming = new HashMap<>();
+        for (Variable variable : sortedVariables.variables) {
+            renaming.put(variable, new Variable(canonicalName(Integer.toString(renaming.size()), variable),
+                    variable.sort()));
+        }
+        ImmutableSet.Builder<Variable> quantified = ImmutableSet.builder();
+        for (Variable variable : existentialQuantVars) {
+            // quantifying over a variable that does not occur does not change the query
+            if (renaming.containsKey(variable)) {
+                quantified.add(renaming.get(variable));
+            }
+        }
+        return ImmutableList.of(
+                ImmutableSet.copyOf(rename(leftSubstitution, renaming)),
+                rename(leftEqualities, renaming),
+                ImmutableSet.copyOf(rename(rightSubstitution, renaming)),
+                rename(rightEqualities, renaming),
+                quantified.build());
+    }
+
+    public Boolean get(Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(Object key, boolean result) {
+        cache.put(key, result);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private static String canonicalName(String id, Variable variable) {
+        StringBuilder name = new StringBuilder();
+        name.append("#").append(id).append(":").append(variable.sort());
+        Integer bitwidth = BitVector.getBitwidth(variable.att());
+        if (bitwidth != null) {
+            name.append("{bitwidth(").append(bitwidth).append(")}");
+        }
+        Pair<Integer, Integer> exponentAndSignificand = FloatToken.getExponentAndSignificand(variable.att());
+        if (exponentAndSignificand != null) {
+            name.append("{exponent(").append(exponentAndSignificand.getLeft())
+                    .append("), significand(").append(exponentAndSignificand.getRight()).append(")}");
+        }
+        return name.toString();
+    }
+
+    private static List<Pair<Term, Term>> pairs(Substitution<Variable, Term> substitution) {
+        List<Pair<Term, Term>> pairs = new ArrayList<>();
+        for (Map.Entry<Variable, Term> entry : substitution.entrySet()) {
+            pairs.add(Pair.of(entry.getKey(), entry.getValue()));
+        }
+        return pairs;
+    }
+
+    private static List<Pair<Term, Term>> pairs(List<Equality> equalities) {
+        List<Pair<Term, Term>> pairs = new ArrayList<>();
+        for (Equality equality : equalities) {
+            pairs.add(Pair.of(equality.leftHandSide(), equality.rightHandSide()));
+        }
+        return pairs;
+    }
+
+    private static void collect(List<Pair<Term, Term>> pairs, VariableCollector collector) {
+        for (Pair<Term, Term> pair : pairs) {
+            pair.getLeft().accept(collector);
+            pair.getRight().accept(collector);
+        }
+    }
+
+    /**
+     * Sorts {@code pairs} by their text once {@code anonymous} renamed their variables, which does not depend on
+     * the names of the variables.
+     */
+    private static void sortByShape(List<Pair<Term, Term>> pairs, Map<Variable, Variable> anonymous) {
+        Map<Pair<Term, Term>, String> shapes = new HashMap<>();
+        for (Pair<Term, Term> pair : pairs) {
+            shapes.put(pair, pair.getLeft().substitute(anonymous) + " = " + pair.getRight().substitute(anonymous));
+        }
+        pairs.sort(Comparator.comparing(shapes::get));
+    }
+
+    private static ImmutableList<Pair<Term, Term>> rename(List<Pair<Term, Term>> pairs,
+                                                          Map<Variable, Variable> renaming) {
+        ImmutableList.Builder<Pair<Term, Term>> result = ImmutableList.builder();
+        for (Pair<Term, Term> pair : pairs) {
+            result.add(Pair.of(pair.getLeft().substitute(renaming), pair.getRight().substitute(renaming)));
+        }
+        return result.build();
+    }
+
+    /**
+     * Collects variables in the order of their first occurrence.
+     */
+    private static class VariableCollector extends BottomUpVisitor {
+        private final Set<Variable> variables = new LinkedHashSet<>();
+
+        @Override
+        public void visit(Variable variable) {
+            variables.add(variable);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.FormulaContext;
+import org.kframework.backend.java.util.Z3Session;
+import org.kframework.backend.java.util.Z3Wrapper;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks the satisfiability of path conditions incrementally, in a single Z3 process that is kept running.
+ * <p>
+ * Along an execution path the equalities of the path condition only grow at the end, so the solver keeps the
+ * equalities of the previous query asserted, one {@code push} scope per equality. A query pops back to the
+ * longest prefix it shares with the previous query, which is the branching point when the query comes from
+ * another path, and then pushes and asserts only the equalities after it. Each query therefore translates and
+ * sends only what changed since the previous one.
+ * <p>
+ * The translator remembers every term it abstracted and every token it encoded, so it is replaced whenever the
+ * solver pops back to no equalities, and the solver pops back to no equalities once the translator has encoded
+ * {@link #MAXIMUM_ENCODED_TERMS} terms.
+ */
+class IncrementalConstraintSolver {
+
+    static final int MAXIMUM_ENCODED_TERMS = 10000;
+
+    private final Z3Wrapper z3;
+    private final int timeout;
+
+    private Z3Session session;
+    private KILtoSMTLib.DefinitionDeclarations sessionDeclarations;
+    private KILtoSMTLib translator;
+
+    /** The equalities currently asserted, one per scope. */
+    private final List<Equality> asserted = new ArrayList<>();
+    /** The variables and sorts declared in each scope, so that they can be forgotten when it is popped. */
+    private final List<List<Variable>> scopeVariables = new ArrayList<>();
+    private final List<List<Sort>> scopeSorts = new ArrayList<>();
+    private final Set<Variable> declaredVariables = new HashSet<>();
+    private final Set<Sort> declaredSorts = new HashSet<>();
+
+    IncrementalConstraintSolver(Z3Wrapper z3, int timeout) {
+        this.z3 = z3;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return true if the equalities of {@code constraint} are unsat, false if they are sat or the result is unknown.
+     */
+    synchronized boolean checkUnsat(ConjunctiveFormula constraint, KILtoSMTLib.DefinitionDeclarations declarations,
+                                    FormulaContext formulaContext) {
+        try {
+            return check(constraint, declarations, formulaContext);
+        } catch (IOException e) {
+            // the solver exited; replay the whole path condition in a new one
+            reset();
+        }
+        try {
+            return check(constraint, declarations, formulaContext);
+        } catch (IOException e) {
+            reset();
+            throw KEMException.criticalError("Exception while invoking Z3", e);
+        }
+    }
+
+    private boolean check(ConjunctiveFormula constraint, KILtoSMTLib.DefinitionDeclarations declarations,
+                          FormulaContext formulaContext) throws IOException {
+        GlobalContext global = constraint.globalContext();
+        StringBuilder commands = new StringBuilder();
+        global.profiler.queryBuildTimer.start();
+        try {
+            if (session != null && sessionDeclarations != declarations) {
+                // the definition changed since the session was started
+                reset();
+            }
+            if (session == null) {
+                start(global, declarations, commands);
+            }
+            List<Equality> equalities = constraint.equalities();
+            int common = 0;
+            if (translator.encodedTerms() < MAXIMUM_ENCODED_TERMS) {
+                while (common < asserted.size() && common < equalities.size()
+                        && asserted.get(common).equals(equalities.get(common))) {
+                    common++;
+                }
+            }
+            if (common < asserted.size()) {
+                commands.append("(pop ").append(asserted.size() - common).append(")\n");
+                popTo(common);
+            }
+            if (common == 0) {
+                // nothing asserted refers to the terms encoded so far
+                translator = KILtoSMTLib.forSession(global);
+            }
+            for (Equality equality : equalities.subList(common, equalities.size())) {
+                commands.append("(push 1)\n");
+                push(equality, commands);
+            }
+        } catch (RuntimeException e) {
+            // nothing was sent, so the solver no longer agrees with what we recorded as asserted
+            reset();
+            throw e;
+        } finally {
+            global.profiler.queryBuildTimer.stop();
+        }
+        if (global.javaExecutionOptions.debugZ3Queries) {
+            System.err.format("\nZ3 incremental constraint query:\n%s\n", commands);
+        }
+        try {
+            boolean result = z3.isUnsat(session, commands, timeout, formulaContext.z3Profiler);
+            if (result && RuleAuditing.isAuditBegun()) {
+                System.err.format("SMT query returned unsat: %s\n", constraint);
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            reset();
+            throw e;
+        }
+    }
+
+    private void start(GlobalContext global, KILtoSMTLib.DefinitionDeclarations declarations, StringBuilder commands) {
+        session = z3.startSession(timeout);
+        sessionDeclarations = declarations;
+        translator = KILtoSMTLib.forSession(global);
+        commands.append(declarations.text());
+        declaredSorts.addAll(declarations.sorts());
+    }
+
+    private void push(Equality equality, StringBuilder commands) {
+        List<Variable> variables = new ArrayList<>();
+        List<Sort> sorts = new ArrayList<>();
+        asserted.add(equality);
+        scopeVariables.add(variables);
+        scopeSorts.add(sorts);
+        CharSequence expression = translator.translateEquality(equality);
+        if (expression == null) {
+            return;
+        }
+        for (Variable variable : translator.translatedVariables()) {
+            if (declaredVariables.add(variable)) {
+                Sort sort = translator.declaredSortOf(variable);
+                if (sort != null && declaredSorts.add(sort)) {
+                    translator.appendSortDeclaration(commands, sort);
+                    sorts.add(sort);
+                }
+                variables.add(variable);
+            }
+        }
+        translator.appendConstantDeclarations(commands, new HashSet<>(variables));
+        commands.append("(assert ").append(expression).append(")\n");
+    }
+
+    private void popTo(int size) {
+        for (int i = asserted.size() - 1; i >= size; i--) {
+            declaredVariables.removeAll(scopeVariables.remove(i));
+            declaredSorts.removeAll(scopeSorts.remove(i));
+            asserted.remove(i);
+        }
+    }
+
+    /**
+     * Stops the Z3 process of this solver. The next query starts a new one.
+     */
+    synchronized void close() {
+        reset();
+    }
+
+    private void reset() {
+        if (session != null) {
+            session.close();
+        }
+        session = null;
+        sessionDeclarations = null;
+        translator = null;
+        asserted.clear();
+        scopeVariables.clear();
+        scopeSorts.clear();
+        declaredVariables.clear();
+        declaredSorts.clear();
+    }
+}
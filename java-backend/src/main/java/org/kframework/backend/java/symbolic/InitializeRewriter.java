@@ -43,6 +43,7 @@ import scala.Tuple2;
 import scala.collection.JavaConversions;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -50,6 +51,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -199,6 +204,7 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             rewritingContext.javaExecutionOptions.logRulesPublic = rewritingContext.javaExecutionOptions.logRules;
             RewriterResult result = rewriter.rewrite(new ConstrainedTerm(backendKil, termContext), depth.orElse(-1));
             rewritingContext.stateLog.close();
+            rewritingContext.constraintOps.close();
             return result;
         }
 
@@ -222,6 +228,7 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             SymbolicRewriter rewriter = new SymbolicRewriter(rewritingContext, transitions, converter);
             K result = rewriter.search(javaTerm, javaPattern, bound.orElse(NEGATIVE_VALUE), depth.orElse(NEGATIVE_VALUE), searchType, termContext);
             rewritingContext.stateLog.close();
+            rewritingContext.constraintOps.close();
             return result;
         }
 
@@ -256,46 +263,112 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
                     .map(org.kframework.backend.java.kil.Rule::renameVariables)
                     .collect(Collectors.toList());
 
+            List<org.kframework.backend.java.kil.Rule> claims = javaRules.stream()
+                    .filter(r -> !r.att().contains(Attribute.TRUSTED_KEY))
+                    .collect(Collectors.toList());
+            int parallelClaims = Math.min(rewritingContext.kproveOptions.parallelClaims, claims.size());
+
             SymbolicRewriter rewriter = new SymbolicRewriter(rewritingContext, transitions, converter);
 
             if (rewritingContext.globalOptions.verbose) {
                 rewritingContext.profiler.logInitTime(rewritingContext);
             }
             rewritingContext.setExecutionPhase(true);
-            List<ConstrainedTerm> proofResults = javaRules.stream()
-                    .filter(r -> !r.att().contains(Attribute.TRUSTED_KEY))
-                    .map(r -> {
-                        //Build LHS with fully evaluated constraint. Then expand patterns.
-                        ConjunctiveFormula constraint = processProofRules.getEvaluatedConstraint(r);
-                        ConstrainedTerm lhs = new ConstrainedTerm(r.leftHandSide(), constraint, termContext);
-                        termContext.setTopConstraint(constraint);
-                        lhs = lhs.expandPatterns(true);
-
-                        //Build RHS with fully evaluated ensures. RHS term is already evaluated.
-                        ConjunctiveFormula ensures = (ConjunctiveFormula) processProofRules.evaluate(
-                                ConjunctiveFormula.of(termContext.global()).addAll(r.ensures()), constraint, termContext);
-                        ConstrainedTerm rhs = new ConstrainedTerm(
-                                r.rightHandSide(), ensures, TermContext.builder(termContext.global()).build());
-
-                        termContext.setInitialVariables(lhs.variableSet());
-                        termContext.setTopConstraint(null);
-                        if (rewritingContext.javaExecutionOptions.cacheFunctionsOptimized) {
-                            rewritingContext.functionCache.clear();
-                        }
-                        rewritingContext.stateLog.log(StateLog.LogEvent.REACHINIT,   lhs.term(), lhs.constraint());
-                        rewritingContext.stateLog.log(StateLog.LogEvent.REACHTARGET, rhs.term(), rhs.constraint());
-                        return rewriter.proveRule(r, lhs, rhs, specRules, kem, javaBoundaryPattern);
-                    })
-                    .flatMap(List::stream)
-                    .collect(Collectors.toList());
+            List<ConstrainedTerm> proofResults;
+            if (parallelClaims > 1) {
+                proofResults = proveInParallel(claims, parallelClaims, processProofRules, specRules, javaBoundaryPattern);
+            } else {
+                proofResults = claims.stream()
+                        .map(r -> proveClaim(r, rewriter, termContext, processProofRules, specRules, javaBoundaryPattern, false))
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+            }
 
             K result = proofResults.stream()
                     .map(constrainedTerm -> (K) constrainedTerm.term())
                     .reduce(((k1, k2) -> KApply(KLabels.ML_AND, k1, k2))).orElse(KApply(KLabels.ML_TRUE));
             rewritingContext.stateLog.close();
+            rewritingContext.constraintOps.close();
             return result;
         }
 
+        private List<ConstrainedTerm> proveClaim(
+                org.kframework.backend.java.kil.Rule r,
+                SymbolicRewriter rewriter,
+                TermContext termContext,
+                ProcessProofRules processProofRules,
+                List<org.kframework.backend.java.kil.Rule> specRules,
+                org.kframework.backend.java.kil.Rule javaBoundaryPattern,
+                boolean parallel) {
+            //Build LHS with fully evaluated constraint. Then expand patterns.
+            ConjunctiveFormula constraint = processProofRules.getEvaluatedConstraint(r, termContext);
+            ConstrainedTerm lhs = new ConstrainedTerm(r.leftHandSide(), constraint, termContext);
+            termContext.setTopConstraint(constraint);
+            lhs = lhs.expandPatterns(true);
+
+            //Build RHS with fully evaluated ensures. RHS term is already evaluated.
+            ConjunctiveFormula ensures = (ConjunctiveFormula) processProofRules.evaluate(
+                    ConjunctiveFormula.of(termContext.global()).addAll(r.ensures()), constraint, termContext);
+            ConstrainedTerm rhs = new ConstrainedTerm(
+                    r.rightHandSide(), ensures, TermContext.builder(termContext.global()).build());
+
+            termContext.setInitialVariables(lhs.variableSet());
+            termContext.setTopConstraint(null);
+            if (rewritingContext.javaExecutionOptions.cacheFunctionsOptimized && !parallel) {
+                rewritingContext.functionCache.clear();
+            }
+            rewritingContext.stateLog.log(StateLog.LogEvent.REACHINIT,   lhs.term(), lhs.constraint());
+            rewritingContext.stateLog.log(StateLog.LogEvent.REACHTARGET, rhs.term(), rhs.constraint());
+            return rewriter.proveRule(r, lhs, rhs, specRules, kem, javaBoundaryPattern);
+        }
+
+        /**
+         * Proves each claim in a task of its own, with its own {@link TermContext} and {@link SymbolicRewriter}.
+         * The claims share the {@link GlobalContext} and its caches. Every claim starts from the same fresh counter,
+         * so the results do not depend on the order in which the claims are scheduled, and they are merged in the
+         * order of the claims.
+         */
+        private List<ConstrainedTerm> proveInParallel(
+                List<org.kframework.backend.java.kil.Rule> claims,
+                int threads,
+                ProcessProofRules processProofRules,
+                List<org.kframework.backend.java.kil.Rule> specRules,
+                org.kframework.backend.java.kil.Rule javaBoundaryPattern) {
+            if (rewritingContext.javaExecutionOptions.cacheFunctionsOptimized) {
+                // the cache is shared by the claims, so it can only be cleared before any of them starts
+                rewritingContext.functionCache.clear();
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<List<ConstrainedTerm>>> results = new ArrayList<>();
+                for (org.kframework.backend.java.kil.Rule claim : claims) {
+                    TermContext termContext = processProofRules.getTermContext().fork();
+                    termContext.setKOREtoBackendKILConverter(processProofRules.getConverter());
+                    results.add(executor.submit(() -> proveClaim(claim,
+                            new SymbolicRewriter(rewritingContext, transitions, processProofRules.getConverter()),
+                            termContext, processProofRules, specRules, javaBoundaryPattern, true)));
+                }
+                List<ConstrainedTerm> proofResults = new ArrayList<>();
+                for (Future<List<ConstrainedTerm>> result : results) {
+                    proofResults.addAll(result.get());
+                }
+                return proofResults;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw KEMException.criticalError("Interrupted while proving claims", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw KEMException.criticalError("Exception while proving claims", e.getCause());
+            } finally {
+                // stops the remaining claims if one of them failed
+                executor.shutdownNow();
+            }
+        }
+
         @Override
         public boolean equivalence(Rewriter firstDef, Rewriter secondDef, Module firstSpec, Module secondSpec) {
             if (!(firstDef instanceof SymbolicRewriterGlue) || !(secondDef instanceof SymbolicRewriterGlue)) {
@@ -420,6 +493,11 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             }
 
             public ConjunctiveFormula getEvaluatedConstraint(org.kframework.backend.java.kil.Rule rule) {
+                return getEvaluatedConstraint(rule, termContext);
+            }
+
+            public ConjunctiveFormula getEvaluatedConstraint(org.kframework.backend.java.kil.Rule rule,
+                                                             TermContext termContext) {
                 termContext.setTopConstraint(null);
                 //We need this ConsTerm only to evaluate the constraint. That's why we use an empty first argument.
                 ConstrainedTerm constraintHolder = new ConstrainedTerm(
@@ -521,6 +599,16 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
             if (cache.containsKey(module)) {
                 return cache.get(module);
             }
+            DefinitionCache definitionCache = new DefinitionCache(global.files, kem);
+            File cacheFile = definitionCache.file(module);
+            Definition cached = definitionCache.load(cacheFile, global);
+            if (cached != null) {
+                cached.setKem(kem);
+                global.setDefinition(cached);
+                cache.put(module, cached);
+                return cached;
+            }
+
             Definition definition = new Definition(module, kem);
 
             global.setDefinition(definition);
@@ -529,6 +617,7 @@ public class InitializeRewriter implements Function<org.kframework.definition.De
                     .map(l -> KLabelConstant.of(l, definition))
                     .forEach(definition::addKLabel);
             definition.addKoreRules(module, global);
+            definitionCache.save(cacheFile, definition);
             cache.put(module, definition);
             return definition;
         }
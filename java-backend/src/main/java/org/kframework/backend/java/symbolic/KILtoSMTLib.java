@@ -33,6 +33,7 @@ import org.kframework.krun.KRunOptions;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Formatter;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -172,15 +173,65 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
             /* bool2int */
             "smt_bool2int");
 
-    public static CharSequence translateConstraint(ConjunctiveFormula constraint) {
+    /**
+     * The declarations of the sorts and functions of a definition, and its axioms. They are the same for
+     * every query against the definition, so they are generated once and loaded once into each solver
+     * session, and queries only declare what is particular to them.
+     */
+    public static final class DefinitionDeclarations {
+        private final Definition definition;
+        private final String text;
+        private final ImmutableSet<Sort> sorts;
+
+        private DefinitionDeclarations(Definition definition, String text, ImmutableSet<Sort> sorts) {
+            this.definition = definition;
+            this.text = text;
+            this.sorts = sorts;
+        }
+
+        /**
+         * Returns the definition the declarations were generated from.
+         */
+        public Definition definition() {
+            return definition;
+        }
+
+        /**
+         * Returns the declarations as SMTLib commands.
+         */
+        public String text() {
+            return text;
+        }
+
+        /**
+         * Returns the sorts declared by {@link #text()}.
+         */
+        Set<Sort> sorts() {
+            return sorts;
+        }
+    }
+
+    /**
+     * Generates the declarations of the current definition of {@code global}.
+     */
+    public static DefinitionDeclarations declareDefinition(GlobalContext global) {
+        KILtoSMTLib kil2SMT = new KILtoSMTLib(false, global);
+        StringBuilder sb = new StringBuilder(1024);
+        Set<Sort> sorts = kil2SMT.appendDefinitionDeclarations(sb);
+        return new DefinitionDeclarations(global.getDefinition(), sb.toString(), ImmutableSet.copyOf(sorts));
+    }
+
+    /**
+     * Generates the z3 query for {@code constraint}, to be checked after {@code declarations} are loaded.
+     */
+    public static CharSequence translateConstraint(ConjunctiveFormula constraint, DefinitionDeclarations declarations) {
         KILtoSMTLib kil2SMT = new KILtoSMTLib(true, constraint.globalContext());
 
         //this line has side effects used later
         CharSequence expression = kil2SMT.translate(constraint).expression();
 
         StringBuilder sb = new StringBuilder(1024);
-        kil2SMT.appendSortAndFunctionDeclarations(sb, kil2SMT.variables());
-        kil2SMT.appendAxioms(sb);
+        kil2SMT.appendVariableSortDeclarations(sb, kil2SMT.variables(), declarations.sorts);
         kil2SMT.appendConstantDeclarations(sb, kil2SMT.variables());
         sb.append("(assert ")
                 .append(expression)
@@ -189,14 +240,15 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
     }
 
     /**
-     * Generates the z3 query for "left /\ !right".
+     * Generates the z3 query for "left /\ !right", to be checked after {@code declarations} are loaded.
      * left -> right <==> !(left /\ !right)
      * => this query should be unsat for implication to be proven.
      */
     public static CharSequence translateImplication(
             ConjunctiveFormula leftHandSide,
             ConjunctiveFormula rightHandSide,
-            Set<Variable> existentialQuantVars) {
+            Set<Variable> existentialQuantVars,
+            DefinitionDeclarations declarations) {
         KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext());
         // termAbstractionMap is shared between transformers
         KILtoSMTLib rightTransformer = new KILtoSMTLib(false,
@@ -209,8 +261,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         StringBuilder sb = new StringBuilder(1024);
         Sets.SetView<Variable> allVars = Sets.union(leftTransformer.variables(), rightTransformer.variables());
         Set<Variable> usedExistentialQuantVars = Sets.intersection(existentialQuantVars, rightTransformer.variables());
-        leftTransformer.appendSortAndFunctionDeclarations(sb, allVars);
-        leftTransformer.appendAxioms(sb);
+        leftTransformer.appendVariableSortDeclarations(sb, allVars, declarations.sorts);
         leftTransformer.appendConstantDeclarations(sb, Sets.difference(allVars, usedExistentialQuantVars));
 
         sb.append("(assert (and\n  ");
@@ -229,6 +280,22 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         return sb;
     }
 
+    /**
+     * Creates a translator for a solver session in which equalities are asserted one at a time. Terms
+     * that cannot be translated are abstracted into the same fresh variables for the whole session.
+     */
+    static KILtoSMTLib forSession(GlobalContext global) {
+        return new KILtoSMTLib(true, global);
+    }
+
+    /**
+     * @return the number of terms and tokens this translator has encoded so far, which it keeps for as long as it
+     * is used.
+     */
+    int encodedTerms() {
+        return termAbstractionMap.size() + tokenEncoding.size();
+    }
+
     private final Definition definition;
 
     private final GlobalContext globalContext;
@@ -277,7 +344,77 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         }
     }
 
-    private StringBuilder appendSortAndFunctionDeclarations(StringBuilder sb, Set<Variable> variables) {
+    /**
+     * Appends the declarations of the sorts and functions of the definition, and its axioms.
+     *
+     * @return the sorts that were declared.
+     */
+    private Set<Sort> appendDefinitionDeclarations(StringBuilder sb) {
+        Set<Sort> declaredSorts = appendSortAndFunctionDeclarations(sb);
+        appendAxioms(sb);
+        return declaredSorts;
+    }
+
+    /**
+     * Translates a single equality. Afterwards, {@link #translatedVariables()} holds the variables it
+     * refers to.
+     *
+     * @return the translation, or null if the equality cannot be translated and should be skipped.
+     */
+    CharSequence translateEquality(Equality equality) {
+        variables.clear();
+        try {
+            CharSequence left = translateTerm(equality.leftHandSide());
+            CharSequence right = translateTerm(equality.rightHandSide());
+            return new StringBuilder().append("(= ").append(left).append(" ").append(right).append(")");
+        } catch (UnsupportedOperationException e) {
+            /* it is sound to skip the equalities that cannot be translated */
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns an unmodifiable view of the variables occurring in the last translation, including the
+     * variables abstracting untranslatable terms.
+     */
+    Set<Variable> translatedVariables() {
+        return Collections.unmodifiableSet(variables);
+    }
+
+    /**
+     * Returns the sort that has to be declared before {@code variable} can be declared, or null if its sort
+     * is built into SMTLib or the SMT prelude.
+     */
+    Sort declaredSortOf(Variable variable) {
+        Sort sort = renameSort(variable.sort());
+        return SMTLIB_BUILTIN_SORTS.contains(sort) || definition.smtPreludeSorts().contains(sort) ? null : sort;
+    }
+
+    void appendSortDeclaration(StringBuilder sb, Sort sort) {
+        if (sort.equals(Sort.MAP) && krunOptions.experimental.smt.mapAsIntArray) {
+            sb.append("(define-sort Map () (Array Int Int))");
+        } else {
+            sb.append("(declare-sort ");
+            sb.append(renameSort(sort).name());
+            sb.append(")\n");
+        }
+    }
+
+    /**
+     * Appends the declarations of the sorts of {@code variables} that are not declared by the definition.
+     */
+    private void appendVariableSortDeclarations(StringBuilder sb, Set<Variable> variables, Set<Sort> definitionSorts) {
+        Set<Sort> declaredSorts = new HashSet<>(definitionSorts);
+        for (Variable variable : variables) {
+            Sort sort = declaredSortOf(variable);
+            if (sort != null && declaredSorts.add(sort)) {
+                appendSortDeclaration(sb, sort);
+            }
+        }
+    }
+
+    private Set<Sort> appendSortAndFunctionDeclarations(StringBuilder sb) {
         Set<Sort> sorts = new HashSet<>();
         List<KLabelConstant> functions = new ArrayList<>();
         for (KLabelConstant kLabel : definition.kLabels()) {
@@ -293,18 +430,9 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                         .forEach(sorts::add);
             }
         }
-        for (Variable variable : variables) {
-            sorts.add(renameSort(variable.sort()));
-        }
-
-        for (Sort sort : Sets.difference(sorts, Sets.union(SMTLIB_BUILTIN_SORTS, definition.smtPreludeSorts()))) {
-            if (sort.equals(Sort.MAP) && krunOptions.experimental.smt.mapAsIntArray) {
-                sb.append("(define-sort Map () (Array Int Int))");
-            } else {
-                sb.append("(declare-sort ");
-                sb.append(renameSort(sort).name());
-                sb.append(")\n");
-            }
+        Set<Sort> declaredSorts = Sets.difference(sorts, Sets.union(SMTLIB_BUILTIN_SORTS, definition.smtPreludeSorts()));
+        for (Sort sort : declaredSorts) {
+            appendSortDeclaration(sb, sort);
         }
 
         for (KLabelConstant kLabel : functions) {
@@ -321,7 +449,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
             sb.append(")\n");
         }
 
-        return sb;
+        return declaredSorts;
     }
 
     private CharSequence appendAxioms(StringBuilder sb) {
@@ -356,7 +484,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
         return sb;
     }
 
-    private CharSequence appendConstantDeclarations(StringBuilder sb, Set<Variable> variables) {
+    CharSequence appendConstantDeclarations(StringBuilder sb, Set<Variable> variables) {
         for (Variable variable : variables) {
             sb.append("(declare-fun ");
             sb.append("|").append(variable.longName()).append("|");
@@ -485,6 +613,7 @@ public class    KILtoSMTLib extends CopyOnWriteTransformer {
                 throw e;
             }
         }
+        variables.add(variable);
         return variable.longName();
     }
 
@@ -2,6 +2,7 @@
 package org.kframework.backend.java.symbolic;
 
 import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
 import org.kframework.backend.java.kil.Variable;
 import org.kframework.backend.java.util.FormulaContext;
 import org.kframework.backend.java.util.Z3Wrapper;
@@ -9,7 +10,10 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.options.SMTOptions;
 import org.kframework.utils.options.SMTSolver;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.inject.Provider;
 
@@ -19,6 +23,14 @@ public class SMTOperations {
     private final Z3Wrapper         z3;
     private final JavaExecutionOptions javaExecutionOptions;
     private final KExceptionManager kem;
+    /**
+     * One solver per thread, since each follows the path condition of the claim its thread is proving, or null
+     * unless {@code --z3-incremental} is given.
+     */
+    private volatile ThreadLocal<IncrementalConstraintSolver> incrementalSolver;
+    /** The solvers handed out by {@link #incrementalSolver}, so that {@link #close} can stop their processes. */
+    private final Set<IncrementalConstraintSolver> incrementalSolvers = ConcurrentHashMap.newKeySet();
+    private volatile KILtoSMTLib.DefinitionDeclarations declarations;
 
     public SMTOperations(
             Provider<Definition> definitionProvider,
@@ -30,6 +42,32 @@ public class SMTOperations {
         this.z3         = z3;
         this.kem        = kem;
         this.javaExecutionOptions = javaExecutionOptions;
+        this.incrementalSolver = smtOptions.z3Incremental && !smtOptions.z3JNI ? newIncrementalSolvers() : null;
+    }
+
+    private ThreadLocal<IncrementalConstraintSolver> newIncrementalSolvers() {
+        return ThreadLocal.withInitial(() -> {
+            IncrementalConstraintSolver solver = new IncrementalConstraintSolver(z3, smtOptions.z3CnstrTimeout);
+            incrementalSolvers.add(solver);
+            return solver;
+        });
+    }
+
+    /**
+     * Stops the Z3 processes kept running for the queries made so far, such as those of the threads that proved
+     * claims in parallel. Later queries start new ones.
+     */
+    public void close() {
+        if (incrementalSolver != null) {
+            // the threads that used a solver get a new one on their next query
+            incrementalSolver = newIncrementalSolvers();
+            for (Iterator<IncrementalConstraintSolver> it = incrementalSolvers.iterator(); it.hasNext(); ) {
+                IncrementalConstraintSolver solver = it.next();
+                it.remove();
+                solver.close();
+            }
+        }
+        z3.close();
     }
 
     public boolean checkUnsat(ConjunctiveFormula constraint, FormulaContext formulaContext) {
@@ -41,22 +79,61 @@ public class SMTOperations {
             return false;
         }
 
+        if (smtOptions.z3SliceConstraints) {
+            List<List<Equality>> components = independence(constraint.globalContext()).components(constraint.equalities());
+            for (int i = 0; i < components.size(); i++) {
+                if (i > 0) {
+                    // every component is a request of its own, so that reused verdicts are reported as cached
+                    formulaContext.z3Profiler.newRequest();
+                }
+                if (checkUnsat(components.get(i), constraint.globalContext(), formulaContext)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return checkUnsatSMT(constraint, formulaContext);
+    }
+
+    /**
+     * Checks one independent component of a constraint, reusing its verdict if it was checked before.
+     */
+    private boolean checkUnsat(List<Equality> component, GlobalContext global, FormulaContext formulaContext) {
+        Boolean unsat = global.constraintIndependence.getUnsat(component);
+        if (unsat != null) {
+            formulaContext.z3Profiler.cacheHit();
+        } else {
+            unsat = checkUnsatSMT(ConjunctiveFormula.of(ImmutableMapSubstitution.empty(),
+                    PersistentUniqueList.from(component), PersistentUniqueList.empty(), global), formulaContext);
+            global.constraintIndependence.putUnsat(component, unsat);
+        }
+        return unsat;
+    }
+
+    private boolean checkUnsatSMT(ConjunctiveFormula constraint, FormulaContext formulaContext) {
         boolean result = false;
         try {
+            ThreadLocal<IncrementalConstraintSolver> incrementalSolver = this.incrementalSolver;
+            if (incrementalSolver != null) {
+                return incrementalSolver.get()
+                        .checkUnsat(constraint, declarations(constraint.globalContext()), formulaContext);
+            }
             constraint.globalContext().profiler.queryBuildTimer.start();
+            KILtoSMTLib.DefinitionDeclarations declarations;
             CharSequence query;
             if (javaExecutionOptions.debugZ3Queries) {
                 System.err.println("\nAnonymous vars in query:");
             }
             try {
-                query = KILtoSMTLib.translateConstraint(constraint).toString();
+                declarations = declarations(constraint.globalContext());
+                query = KILtoSMTLib.translateConstraint(constraint, declarations).toString();
             } finally {
                 constraint.globalContext().profiler.queryBuildTimer.stop();
             }
             if (javaExecutionOptions.debugZ3Queries) {
                 System.err.format("\nZ3 constraint query:\n%s\n", query);
             }
-            result = z3.isUnsat(query, smtOptions.z3CnstrTimeout, formulaContext.z3Profiler);
+            result = z3.isUnsat(declarations.text(), query, smtOptions.z3CnstrTimeout, formulaContext.z3Profiler);
             if (result && RuleAuditing.isAuditBegun()) {
                 System.err.format("SMT query returned unsat: %s\n", query);
             }
@@ -79,22 +156,47 @@ public class SMTOperations {
             ConjunctiveFormula left,
             ConjunctiveFormula right,
             Set<Variable> existentialQuantVars, FormulaContext formulaContext) {
+        if (smtOptions.smt == SMTSolver.Z3 && smtOptions.z3SliceConstraints) {
+            // only the equalities related to the right-hand side can take part in proving it
+            List<List<Equality>> slices = independence(left.globalContext()).slice(left.equalities(), right);
+            ConjunctiveFormula relevant = ConjunctiveFormula.of(left.substitution(),
+                    PersistentUniqueList.from(slices.get(0)), left.disjunctions(), left.globalContext());
+            if (impliesSMTQuery(relevant, right, existentialQuantVars, formulaContext)) {
+                return true;
+            }
+            // unless the others are contradictory on their own
+            for (List<Equality> component : slices.subList(1, slices.size())) {
+                if (checkUnsat(component, left.globalContext(), formulaContext)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return impliesSMTQuery(left, right, existentialQuantVars, formulaContext);
+    }
+
+    private boolean impliesSMTQuery(
+            ConjunctiveFormula left,
+            ConjunctiveFormula right,
+            Set<Variable> existentialQuantVars, FormulaContext formulaContext) {
         if (smtOptions.smt == SMTSolver.Z3) {
             try {
                 left.globalContext().profiler.queryBuildTimer.start();
+                KILtoSMTLib.DefinitionDeclarations declarations;
                 CharSequence query;
                 if (javaExecutionOptions.debugZ3Queries) {
                     System.err.println("\nAnonymous vars in query:");
                 }
                 try {
-                    query = KILtoSMTLib.translateImplication(left, right, existentialQuantVars).toString();
+                    declarations = declarations(left.globalContext());
+                    query = KILtoSMTLib.translateImplication(left, right, existentialQuantVars, declarations).toString();
                 } finally {
                     left.globalContext().profiler.queryBuildTimer.stop();
                 }
                 if (javaExecutionOptions.debugZ3Queries) {
                     System.err.format("\nZ3 query:\n%s\n", query);
                 }
-                return z3.isUnsat(query, smtOptions.z3ImplTimeout, formulaContext.z3Profiler);
+                return z3.isUnsat(declarations.text(), query, smtOptions.z3ImplTimeout, formulaContext.z3Profiler);
             } catch (UnsupportedOperationException | SMTTranslationFailure e) {
                 if (!smtOptions.ignoreMissingSMTLibWarning) {
                     //These warnings have different degree of relevance depending whether they are in init or execution phase
@@ -109,4 +211,26 @@ public class SMTOperations {
         }
         return false;
     }
+
+    /**
+     * Returns the constraint independence of {@code global}, relating the symbols that the axioms loaded before
+     * every query constrain together.
+     */
+    private ConstraintIndependence independence(GlobalContext global) {
+        global.constraintIndependence.relateAxiomSymbols(global.getDefinition().kLabels(),
+                z3.SMT_PRELUDE, declarations(global).text());
+        return global.constraintIndependence;
+    }
+
+    /**
+     * Returns the SMT declarations of the current definition, which are generated once per definition.
+     */
+    private KILtoSMTLib.DefinitionDeclarations declarations(GlobalContext global) {
+        KILtoSMTLib.DefinitionDeclarations result = declarations;
+        if (result == null || result.definition() != global.getDefinition()) {
+            result = KILtoSMTLib.declareDefinition(global);
+            declarations = result;
+        }
+        return result;
+    }
 }
@@ -1,9 +1,15 @@
 // Copyright (c) 2015-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A stopwatch that can be reentered recursively. Also counts the number of top-level invocations.
  * Time counted in nanoseconds, but displayed in ms.
+ * <p>
+ * The stopwatch may be shared by threads, in which case it measures the time during which at least one of them
+ * has it started.
  *
  * @author Denis Bogdanas
  * Created on 24-Jul-18.
@@ -11,34 +17,28 @@ package org.kframework.backend.java.util;
 public class CounterStopwatch implements Comparable<CounterStopwatch> {
 
     private final String name;
-    private long duration;
-    private long lastStartNano;
+    private final AtomicLong duration = new AtomicLong();
+    private volatile long lastStartNano;
 
-    private int level = 0;
-    private int count;
+    private final AtomicInteger level = new AtomicInteger();
+    private final AtomicInteger count = new AtomicInteger();
 
     public CounterStopwatch(String name) {
         this.name = name;
     }
 
     public void start() {
-        if (level == 0) {
+        if (level.getAndIncrement() == 0) {
             lastStartNano = System.nanoTime();
-            count++;
+            count.incrementAndGet();
         }
-        level++;
     }
 
     /**
      * Should be called in a finally block to avoid exceptions leaving the level incremented.
      */
     public void stop() {
-        level--;
-        if (level == 0) {
-            duration += (System.nanoTime() - lastStartNano);
-        } else if (level < 0) {
-            throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
-        }
+        stopAndGetDuration();
     }
 
     /**
@@ -47,38 +47,39 @@ public class CounterStopwatch implements Comparable<CounterStopwatch> {
      * Should be called in a finally block to avoid exceptions leaving the level incremented.
      */
     public long stopAndGetDuration() {
-        level--;
-        if (level == 0) {
+        int newLevel = level.decrementAndGet();
+        if (newLevel == 0) {
             long lastDuration = System.nanoTime() - lastStartNano;
-            this.duration += lastDuration;
+            duration.addAndGet(lastDuration);
             return lastDuration;
-        } else if (level < 0) {
+        } else if (newLevel < 0) {
+            level.incrementAndGet();
             throw new AssertionError("Unable to stop timer: " + name + "\nTimer already stopped.");
         }
         return 0;
     }
 
     public void reset() {
-        level = 0;
-        duration = 0;
+        level.set(0);
+        duration.set(0);
     }
 
     @Override
     public String toString() {
-        return String.format("%8.3f s", (double) duration / 1000000000);
+        return String.format("%8.3f s", (double) duration.get() / 1000000000);
     }
 
     @Override
     public int compareTo(CounterStopwatch o) {
-        return Long.compare(duration, o.duration);
+        return Long.compare(duration.get(), o.duration.get());
     }
 
     public int getCount() {
-        return count;
+        return count.get();
     }
 
     public int getLevel() {
-        return level;
+        return level.get();
     }
 
     public String getName() {
@@ -4,9 +4,9 @@ package org.kframework.backend.java.util;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.symbolic.ConjunctiveFormula;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Denis Bogdanas
@@ -45,7 +45,7 @@ public class FormulaSimplificationCache {
         }
     }
 
-    private Map<Entry, ConjunctiveFormula> evaluationCache = new HashMap<>();
+    private Map<Entry, ConjunctiveFormula> evaluationCache = new ConcurrentHashMap<>();
 
     public ConjunctiveFormula cacheGet(ConjunctiveFormula formula, boolean patternFolding,
                                        boolean partialSimplification, TermContext context) {
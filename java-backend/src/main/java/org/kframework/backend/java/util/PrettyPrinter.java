@@ -28,7 +28,7 @@ public class PrettyPrinter {
     }
 
     public void prettyPrint(K target, OutputStream out) {
-        kprint.prettyPrint(def, module, output -> kprint.outputFile(output, out), target);
+        kprint.prettyPrintToOutput(def, module, target, out);
     }
 
     public byte[] prettyPrintBytes(K target) {
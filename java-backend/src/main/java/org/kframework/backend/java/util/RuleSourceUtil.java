@@ -1,14 +1,13 @@
 // Copyright (c) 2015-2019 K Team. All Rights Reserved.
 package org.kframework.backend.java.util;
 
+import com.google.common.collect.MapMaker;
 import org.kframework.attributes.Location;
 import org.kframework.backend.java.kil.Rule;
 import org.kframework.utils.file.FileUtil;
 
 import java.io.File;
-import java.util.Collections;
 import java.util.Formatter;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -16,7 +15,8 @@ import java.util.Map;
  * Created on 27-Aug-18.
  */
 public class RuleSourceUtil {
-    private static final Map<Rule, String> cache = Collections.synchronizedMap(new HashMap<>());
+    /* the sources of the rules, held only as long as the rules are */
+    private static final Map<Rule, String> cache = new MapMaker().weakKeys().makeMap();
 
     private static boolean sourceShortEnough(Rule rule) {
         Location location = rule.getLocation();
@@ -24,12 +24,10 @@ public class RuleSourceUtil {
     }
 
     private static String loadSource(Rule rule) {
-        if (!cache.containsKey(rule)) {
-            if (rule.getSource() != null && rule.getLocation() != null) {
-                cache.putIfAbsent(rule, FileUtil.loadFragment(new File(rule.getSource().source()), rule.getLocation()));
-            }
+        if (rule.getSource() == null || rule.getLocation() == null) {
+            return null;
         }
-        return cache.get(rule);
+        return cache.computeIfAbsent(rule, r -> FileUtil.loadFragment(new File(r.getSource().source()), r.getLocation()));
     }
 
     public static void printRuleAndSource(Rule rule) {
@@ -95,20 +95,29 @@ public class StateLog {
         OPEN, REACHINIT, REACHTARGET, REACHPROVED, EXECINIT, SEARCHINIT, NODE, RULE, SRULE, RULEATTEMPT, IMPLICATION, Z3QUERY, Z3RESULT, CLOSE
     }
 
-    public void log(String logItem) {
+    public synchronized void log(String logItem) {
         if (! this.loggingOn) return;
         this.sessionLog.println((System.currentTimeMillis() - this.startTime) + " " + logItem);
         this.sessionLog.flush();
     }
 
+    /**
+     * Returns whether events of the given kind are logged, so that callers can skip building expensive log terms.
+     */
+    public boolean isLogging(LogEvent logCode) {
+        return this.loggingOn && this.logEvents.contains(logCode);
+    }
+
     public void log(LogEvent logCode, K... terms) {
-        if (! (this.loggingOn && this.logEvents.contains(logCode))) return;
-        ArrayList<String> nodeIds = new ArrayList<String>();
-        for (K term: terms) {
-            nodeIds.add(writeNode(term));
+        if (! isLogging(logCode)) return;
+        synchronized (this) {
+            ArrayList<String> nodeIds = new ArrayList<String>();
+            for (K term: terms) {
+                nodeIds.add(writeNode(term));
+            }
+            String nodeId = String.join("_", nodeIds);
+            this.log(logCode.toString() + " " + nodeId);
         }
-        String nodeId = String.join("_", nodeIds);
-        this.log(logCode.toString() + " " + nodeId);
     }
 
     public void close() {
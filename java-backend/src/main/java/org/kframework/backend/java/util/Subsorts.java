@@ -2,6 +2,7 @@
 package org.kframework.backend.java.util;
 
 import com.google.common.collect.ArrayTable;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import org.kframework.Collections;
@@ -17,7 +18,8 @@ import java.util.stream.Collectors;
 
 
 /**
- * Subsort relation.
+ * Subsort relation. It is computed once for the whole definition and never modified afterwards, so it can be
+ * shared by several rewriter threads.
  *
  * TODO(YilongL): delegates this to KORE/Context
  *
@@ -25,7 +27,7 @@ import java.util.stream.Collectors;
  */
 public class Subsorts implements Serializable {
 
-    private final Set<Sort> sorts;
+    private final ImmutableSet<Sort> sorts;
 
     /**
      * {@code subsort[sort1][sort2] = true} iff {@code sort1} is bigger than
@@ -36,7 +38,7 @@ public class Subsorts implements Serializable {
     public Subsorts(Module module) {
         sorts = JavaConversions.asJavaCollection(module.definedSorts()).stream()
                 .map(Sort::of)
-                .collect(Collectors.toSet());
+                .collect(Collectors.collectingAndThen(Collectors.toSet(), ImmutableSet::copyOf));
 
         this.subsort = ArrayTable.create(sorts, sorts);
         for (org.kframework.kore.Sort sort1 : Collections.iterable(module.definedSorts())) {
@@ -3,15 +3,15 @@ package org.kframework.backend.java.util;
 
 import org.kframework.backend.java.kil.KItem;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Denis Bogdanas
  * Created on 31-Jan-19.
  */
 public class ToStringCache {
-    private Map<KItem, String> toStringCache = new HashMap<>();
+    private Map<KItem, String> toStringCache = new ConcurrentHashMap<>();
 
     public String get(KItem kItem) {
         return toStringCache.get(kItem);
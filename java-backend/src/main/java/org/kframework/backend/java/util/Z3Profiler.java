@@ -11,11 +11,13 @@ import java.util.Map;
 public class Z3Profiler {
     private CounterStopwatch sw;
     private int requestCount;
+    private int cacheHitCount;
     private int queryCount;
     private int queryBuildFailureCount;
     private int totalTimeouts;
     private int nonTimeouts;
-    private boolean lastRunTimeout;
+    private final ThreadLocal<Boolean> lastRunTimeout = ThreadLocal.withInitial(() -> false);
+    private final ThreadLocal<Long> runStartNano = new ThreadLocal<>();
     private Map<String, Integer> queryResultCounts = new HashMap<>();
 
     Z3Profiler(String name) {
@@ -24,19 +26,25 @@ public class Z3Profiler {
 
     public void startRun() {
         sw.start();
+        runStartNano.set(System.nanoTime());
     }
 
-    public void endRun(int timeout) {
-        long durationNano = sw.stopAndGetDuration();
-        lastRunTimeout = (durationNano / 1000000.d) >= timeout;
-        if (lastRunTimeout) {
+    /**
+     * Runs may overlap when queries are sent from several threads, so the duration of each run is measured
+     * separately from the total time, in the thread that started it.
+     */
+    public synchronized void endRun(int timeout) {
+        long durationNano = System.nanoTime() - runStartNano.get();
+        sw.stop();
+        lastRunTimeout.set((durationNano / 1000000.d) >= timeout);
+        if (lastRunTimeout.get()) {
             totalTimeouts++;
         } else {
             nonTimeouts++;
         }
     }
 
-    public void queryResult(String result) {
+    public synchronized void queryResult(String result) {
         Integer cnt = queryResultCounts.get(result);
         cnt = cnt != null ? cnt : 0;
         queryResultCounts.put(result, cnt + 1);
@@ -45,27 +53,37 @@ public class Z3Profiler {
     /**
      * Not all requests result in actual SMT query. Some might have the results already cached.
      */
-    public void newRequest() {
+    public synchronized void newRequest() {
         requestCount++;
     }
 
-    public void newQueryBuildFailure() {
+    /**
+     * A request whose result was found in a cache.
+     */
+    public synchronized void cacheHit() {
+        cacheHitCount++;
+    }
+
+    public synchronized void newQueryBuildFailure() {
         queryBuildFailureCount++;
     }
 
-    public void startQuery() {
+    public synchronized void startQuery() {
         queryCount++;
     }
 
+    /**
+     * Returns whether the last run ended by the current thread timed out.
+     */
     public boolean isLastRunTimeout() {
-        return lastRunTimeout;
+        return lastRunTimeout.get();
     }
 
-    public int getQueryCount() {
+    public synchronized int getQueryCount() {
         return queryCount;
     }
 
-    public void print() {
+    public synchronized void print() {
         int cachedQueries = requestCount - queryCount - queryBuildFailureCount;
         int unrecoveredTimeouts = queryCount - nonTimeouts;
         int recoveredTimeouts = totalTimeouts - unrecoveredTimeouts;
@@ -82,6 +100,9 @@ public class Z3Profiler {
         if (cachedQueries > 0) {
             System.err.format("    cached queries:       %d\n", cachedQueries);
         }
+        if (cacheHitCount > 0) {
+            System.err.format("    cache hit rate:       %.1f%%\n", 100.0 * cacheHitCount / requestCount);
+        }
         if (queryBuildFailureCount > 0) {
             System.err.format("    query build failures: %d\n", queryBuildFailureCount);
         }
@@ -0,0 +1,63 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+
+/**
+ * A Z3 process that is kept running between queries. Commands sent to it accumulate in the solver's context,
+ * so callers manage what is asserted with {@code (push)} and {@code (pop)}.
+ *
+ * @see Z3Wrapper#startSession(int)
+ */
+public class Z3Session implements AutoCloseable {
+
+    private final Process process;
+    private final PrintWriter input;
+    private final BufferedReader output;
+
+    Z3Session(Process process) {
+        this.process = process;
+        this.input = new PrintWriter(process.getOutputStream());
+        this.output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    }
+
+    void send(CharSequence commands) {
+        input.append(commands);
+    }
+
+    /**
+     * Sends the given check command and waits for its result.
+     *
+     * @return the result reported by Z3, or the last error it reported if it did not report a result.
+     * @throws IOException if the process exited without answering.
+     */
+    String check(String checkSat) throws IOException {
+        input.println(checkSat);
+        input.flush();
+        if (input.checkError()) {
+            throw new IOException("Z3 process exited");
+        }
+        String result = null;
+        String line = output.readLine();
+        while (line != null && line.startsWith("(error")) {
+            System.err.println("\nZ3 error: " + line);
+            result = line;
+            line = output.readLine();
+        }
+        if (line != null) {
+            result = line;
+        } else if (result == null) {
+            throw new IOException("Z3 process exited");
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        input.close();
+        process.destroy();
+    }
+}
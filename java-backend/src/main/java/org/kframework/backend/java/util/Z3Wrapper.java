@@ -14,10 +14,11 @@ import org.kframework.utils.options.SMTOptions;
 
 import static org.kframework.kore.KORE.KToken;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -36,6 +37,13 @@ public class Z3Wrapper {
     private final FileUtil files;
     private final StateLog stateLog;
 
+    /**
+     * Idle Z3 processes with {@link #sessionDeclarations} loaded, by timeout, used with {@code --z3-incremental}.
+     * Each query takes a process of its own, so that queries from several threads run concurrently.
+     */
+    private final Map<Integer, Deque<Z3Session>> idleSessions = new HashMap<>();
+    private String sessionDeclarations;
+
     public Z3Wrapper(
             SMTOptions options,
             KExceptionManager kem,
@@ -55,15 +63,77 @@ public class Z3Wrapper {
         CHECK_SAT = options.z3Tactic == null ? "(check-sat)" : "(check-sat-using " + options.z3Tactic + ")";
     }
 
-    public synchronized boolean isUnsat(CharSequence query, int timeout, Z3Profiler timer) {
-        stateLog.log(StateLog.LogEvent.Z3QUERY, KToken(SMT_PRELUDE + "\n" + query + "\n" + CHECK_SAT + "\n", Sorts.Z3Query()));
+    /**
+     * Checks {@code query} against the definition level {@code declarations}. By default each query is checked by a
+     * Z3 process of its own. With {@code --z3-incremental}, the declarations are loaded once into a Z3 process that
+     * is kept running, and each query is checked in a scope of its own on top of them.
+     *
+     * @return true if query result is unsat, false otherwise.
+     */
+    public boolean isUnsat(String declarations, CharSequence query, int timeout, Z3Profiler profiler) {
+        if (stateLog.isLogging(StateLog.LogEvent.Z3QUERY)) {
+            stateLog.log(StateLog.LogEvent.Z3QUERY,
+                    KToken(SMT_PRELUDE + "\n" + declarations + query + "\n" + CHECK_SAT + "\n", Sorts.Z3Query()));
+        }
         if (options.z3JNI) {
-            return checkQueryWithLibrary(query, timeout);
+            return checkQueryWithLibrary(declarations + query, timeout);
         } else {
-            return checkQueryWithExternalProcess(query, timeout, timer);
+            return checkQueryWithProcess(declarations, query, timeout, profiler);
         }
     }
 
+    /**
+     * Starts a Z3 process that is kept running for incremental queries, and loads the SMT prelude into it.
+     */
+    public Z3Session startSession(int timeout) {
+        ProcessBuilder pb = files.getProcessBuilder().command(
+                OS.current().getNativeExecutable("z3"),
+                "-in",
+                "-smt2",
+                "-t:" + timeout);
+        pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+        pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        try {
+            Z3Session session = new Z3Session(pb.start());
+            session.send(SMT_PRELUDE);
+            return session;
+        } catch (IOException e) {
+            throw KEMException.criticalError("Exception while invoking Z3", e);
+        }
+    }
+
+    /**
+     * Sends {@code commands} to a running session and checks whether everything asserted in it is unsatisfiable.
+     *
+     * @return true if query result is unsat, false otherwise.
+     * @throws IOException if the Z3 process exited. The session should not be used any more.
+     */
+    public boolean isUnsat(Z3Session session, CharSequence commands, int timeout, Z3Profiler profiler)
+            throws IOException {
+        stateLog.log(StateLog.LogEvent.Z3QUERY, KToken(commands + "\n" + CHECK_SAT + "\n", Sorts.Z3Query()));
+        profiler.startQuery();
+        profiler.startRun();
+        String result;
+        try {
+            session.send(commands);
+            result = session.check(CHECK_SAT);
+        } finally {
+            profiler.endRun(timeout);
+            if (javaExecutionOptions.debugZ3 && profiler.isLastRunTimeout()) {
+                System.err.println("\nZ3 likely timeout");
+            }
+        }
+        stateLog.log(StateLog.LogEvent.Z3RESULT, KToken(result, Sorts.Z3Result()));
+        if (!Z3_QUERY_RESULTS.contains(result)) {
+            throw KEMException.criticalError("Z3 crashed on input query:\n" + commands + "\nresult:\n" + result);
+        }
+        if (javaExecutionOptions.debugZ3) {
+            System.err.println("\nZ3 query result: " + result);
+        }
+        profiler.queryResult(result);
+        return "unsat".equals(result);
+    }
+
     private boolean checkQueryWithLibrary(CharSequence query, int timeout) {
         boolean result = false;
         try (Z3Context context = new Z3Context()) {
@@ -84,44 +154,36 @@ public class Z3Wrapper {
     }
 
     /**
+     * Checks {@code query} in a Z3 process started for it, or, with {@code --z3-incremental}, in an idle process
+     * that already has {@code declarations} loaded.
+     *
      * @return true if query result is unsat, false otherwise.
      */
-    private boolean checkQueryWithExternalProcess(CharSequence query, int timeout, Z3Profiler profiler) {
-        String result = "";
+    private boolean checkQueryWithProcess(String declarations, CharSequence query, int timeout, Z3Profiler profiler) {
+        boolean incremental = options.z3Incremental;
+        String result = null;
         profiler.startQuery();
         try {
-            for (int i = 0; i < Z3_RESTART_LIMIT; i++) {
-                ProcessBuilder pb = files.getProcessBuilder().command(
-                        OS.current().getNativeExecutable("z3"),
-                        "-in",
-                        "-smt2",
-                        "-t:" + timeout);
-                pb.redirectInput(ProcessBuilder.Redirect.PIPE);
-                pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+            for (int i = 0; i < Z3_RESTART_LIMIT && result == null; i++) {
+                Z3Session session = incremental ? acquireSession(declarations, timeout) : startSession(timeout);
                 profiler.startRun();
-                Process z3Process = pb.start();
-                PrintWriter input = new PrintWriter(z3Process.getOutputStream());
-                BufferedReader output = new BufferedReader(new InputStreamReader(z3Process.getInputStream()));
-                input.format("%s%s%s\n", SMT_PRELUDE, query, CHECK_SAT);
-                input.close();
-                result = null;
-                String line = output.readLine();
-                while (line != null && line.startsWith("(error")) {
-                    System.err.println("\nZ3 error: " + line);
-                    result = line;
-                    line = output.readLine();
-                }
-                if (line != null) {
-                    result = line;
-                }
-                z3Process.destroy();
-                profiler.endRun(timeout);
-                if (result != null) {
-                    break;
+                try {
+                    session.send(incremental ? "(push 1)\n" : declarations);
+                    session.send(query);
+                    result = session.check(CHECK_SAT);
+                    if (incremental) {
+                        session.send("(pop 1)\n");
+                        releaseSession(session, declarations, timeout);
+                    } else {
+                        session.close();
+                    }
+                } catch (IOException e) {
+                    // the process exited; the next attempt starts a new one
+                    session.close();
+                } finally {
+                    profiler.endRun(timeout);
                 }
             }
-        } catch (IOException e) {
-            throw KEMException.criticalError("Exception while invoking Z3", e);
         } finally {
             if (javaExecutionOptions.debugZ3 && profiler.isLastRunTimeout()) {
                 System.err.println("\nZ3 likely timeout");
@@ -137,5 +199,36 @@ public class Z3Wrapper {
         profiler.queryResult(result);
         return "unsat".equals(result);
     }
-}
 
+    /**
+     * Stops the idle Z3 processes kept for {@code --z3-incremental}. Later queries start new ones.
+     */
+    public synchronized void close() {
+        for (Deque<Z3Session> sessions : idleSessions.values()) {
+            sessions.forEach(Z3Session::close);
+        }
+        idleSessions.clear();
+    }
+
+    private synchronized Z3Session acquireSession(String declarations, int timeout) {
+        if (!declarations.equals(sessionDeclarations)) {
+            close();
+            sessionDeclarations = declarations;
+        }
+        Deque<Z3Session> sessions = idleSessions.get(timeout);
+        if (sessions != null && !sessions.isEmpty()) {
+            return sessions.pop();
+        }
+        Z3Session session = startSession(timeout);
+        session.send(declarations);
+        return session;
+    }
+
+    private synchronized void releaseSession(Z3Session session, String declarations, int timeout) {
+        if (declarations.equals(sessionDeclarations)) {
+            idleSessions.computeIfAbsent(timeout, t -> new ArrayDeque<>()).push(session);
+        } else {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.kframework.backend.java.kil.TermContext;
+import org.mockito.Mock;
+
+import java.math.BigInteger;
+
+public class BuiltinIntOperationsTest {
+
+    @Mock
+    TermContext context;
+
+    private static final long[] VALUES = {
+            0, 1, -1, 2, -2, 7, -7, 1023, 1024, -128, -129, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            1L << 31, 1L << 32, -(1L << 32), Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1};
+
+    private static BigInteger big(long value) {
+        return BigInteger.valueOf(value);
+    }
+
+    @Test
+    public void testRepresentationsAgree() {
+        for (long value : VALUES) {
+            IntToken small = IntToken.of(value);
+            IntToken fromBig = IntToken.of(big(value));
+            assertEquals(small, fromBig);
+            assertEquals(big(value).hashCode(), IntToken.bigIntegerHashCode(value));
+            assertEquals(fromBig.hashCode(), small.hashCode());
+            assertEquals(big(value).toString(), small.javaBackendValue());
+            assertEquals(big(value), small.bigIntegerValue());
+        }
+        BigInteger huge = big(Long.MAX_VALUE).add(BigInteger.ONE);
+        assertEquals(IntToken.of(huge), IntToken.of(huge.toString()));
+        assertNotEquals(IntToken.of(huge), IntToken.of(Long.MIN_VALUE));
+        assertEquals(IntToken.of(huge).hashCode(), IntToken.of(huge.toString()).hashCode());
+        assertSame(IntToken.of(7), IntToken.of(big(7)));
+    }
+
+    @Test
+    public void testOverflowFallsBackToBigInteger() {
+        for (long a : VALUES) {
+            for (long b : VALUES) {
+                IntToken x = IntToken.of(a), y = IntToken.of(b);
+                assertEquals(IntToken.of(big(a).add(big(b))), BuiltinIntOperations.add(x, y, context));
+                assertEquals(IntToken.of(big(a).subtract(big(b))), BuiltinIntOperations.sub(x, y, context));
+                assertEquals(IntToken.of(big(a).multiply(big(b))), BuiltinIntOperations.mul(x, y, context));
+                assertEquals(Long.compare(a, b) < 0, BuiltinIntOperations.lt(x, y, context).booleanValue());
+                if (b != 0) {
+                    assertEquals(IntToken.of(big(a).divide(big(b))), BuiltinIntOperations.div(x, y, context));
+                    assertEquals(IntToken.of(big(a).remainder(big(b))), BuiltinIntOperations.rem(x, y, context));
+                }
+                if (b > 0) {
+                    assertEquals(IntToken.of(big(a).mod(big(b))), BuiltinIntOperations.mod(x, y, context));
+                }
+            }
+            for (int n = 0; n < 70; n += 7) {
+                assertEquals(IntToken.of(big(a).shiftLeft(n)), BuiltinIntOperations.shl(IntToken.of(a), IntToken.of(n), context));
+                assertEquals(IntToken.of(big(a).shiftRight(n)), BuiltinIntOperations.shr(IntToken.of(a), IntToken.of(n), context));
+            }
+            assertEquals(IntToken.of(big(a).abs()), BuiltinIntOperations.abs(IntToken.of(a), context));
+        }
+        assertNull(BuiltinIntOperations.div(IntToken.of(1), IntToken.of(0), context));
+    }
+}
@@ -0,0 +1,112 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.kframework.backend.java.builtins.primitives.Longs;
+import org.kframework.backend.java.builtins.primitives.OverflowArithmeticResult;
+
+import java.math.BigInteger;
+
+public class LongBitVectorTest {
+
+    private static final int[] BITWIDTHS = {1, 8, 31, 33, 63, 64};
+
+    private static final long[] VALUES = {
+            0, 1, -1, 2, 3, 127, 128, -128, 255, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            1L << 32, (1L << 62) + 5, Long.MAX_VALUE, Long.MIN_VALUE};
+
+    private static BigInteger signed(BigInteger value, int bitwidth) {
+        return BigIntegerBitVector.of(value, bitwidth).signedValue();
+    }
+
+    private static BigInteger unsigned(BigInteger value, int bitwidth) {
+        return BigIntegerBitVector.of(value, bitwidth).unsignedValue();
+    }
+
+    private static boolean signedOverflow(BigInteger result, int bitwidth) {
+        return !signed(result, bitwidth).equals(result);
+    }
+
+    private static boolean unsignedOverflow(BigInteger result, int bitwidth) {
+        return !unsigned(result, bitwidth).equals(result);
+    }
+
+    private static void assertResult(BigInteger expected, boolean overflow, OverflowArithmeticResult<Long> actual,
+                                     int bitwidth) {
+        assertEquals(signed(expected, bitwidth), BigInteger.valueOf(actual.value));
+        assertEquals(overflow, actual.overflow);
+    }
+
+    @Test
+    public void testMatchesBigIntegerBitVector() {
+        for (int bitwidth : BITWIDTHS) {
+            for (long a : VALUES) {
+                BitVector x = BitVector.of(a, bitwidth);
+                BitVector bigX = BigIntegerBitVector.of(x.signedValue(), bitwidth);
+                assertTrue(x instanceof LongBitVector);
+                assertEquals(bigX.signedValue(), x.signedValue());
+                assertEquals(bigX.unsignedValue(), x.unsignedValue());
+                assertEquals(x, BitVector.of(bigX.unsignedValue(), bitwidth));
+                for (int distance = 0; distance <= 65; distance += 13) {
+                    IntToken n = IntToken.of(distance);
+                    assertEquals(bigX.shl(n).unsignedValue(), x.shl(n).unsignedValue());
+                    assertEquals(bigX.ashr(n).unsignedValue(), x.ashr(n).unsignedValue());
+                    assertEquals(bigX.lshr(n).unsignedValue(), x.lshr(n).unsignedValue());
+                }
+                for (long b : VALUES) {
+                    BitVector y = BitVector.of(b, bitwidth);
+                    BitVector bigY = BigIntegerBitVector.of(y.signedValue(), bitwidth);
+                    assertEquals(bigX.add(bigY).unsignedValue(), x.add(y).unsignedValue());
+                    assertEquals(bigX.sub(bigY).unsignedValue(), x.sub(y).unsignedValue());
+                    assertEquals(bigX.mul(bigY).unsignedValue(), x.mul(y).unsignedValue());
+                    assertEquals(bigX.and(bigY).unsignedValue(), x.and(y).unsignedValue());
+                    assertEquals(bigX.xor(bigY).unsignedValue(), x.xor(y).unsignedValue());
+                    assertEquals(bigX.ult(bigY), x.ult(y));
+                    assertEquals(bigX.slt(bigY), x.slt(y));
+                    assertEquals(bigX.eq(bigY), x.eq(y));
+                    if (!y.isZero()) {
+                        assertEquals(bigX.udiv(bigY).unsignedValue(), x.udiv(y).unsignedValue());
+                        assertEquals(bigX.urem(bigY).unsignedValue(), x.urem(y).unsignedValue());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOverflow() {
+        for (int bitwidth : BITWIDTHS) {
+            for (long a : VALUES) {
+                long x = Longs.signExtend(a, bitwidth);
+                BigInteger sx = BigInteger.valueOf(x);
+                BigInteger ux = unsigned(sx, bitwidth);
+                for (long b : VALUES) {
+                    long y = Longs.signExtend(b, bitwidth);
+                    BigInteger sy = BigInteger.valueOf(y);
+                    BigInteger uy = unsigned(sy, bitwidth);
+
+                    BigInteger result = sx.add(sy);
+                    assertResult(result, signedOverflow(result, bitwidth), Longs.checkedAdd(x, y, bitwidth), bitwidth);
+                    result = ux.add(uy);
+                    assertResult(result, unsignedOverflow(result, bitwidth), Longs.checkedUnsignedAdd(x, y, bitwidth), bitwidth);
+                    result = sx.subtract(sy);
+                    assertResult(result, signedOverflow(result, bitwidth), Longs.checkedSub(x, y, bitwidth), bitwidth);
+                    result = ux.subtract(uy);
+                    assertResult(result, unsignedOverflow(result, bitwidth), Longs.checkedUnsignedSub(x, y, bitwidth), bitwidth);
+                    result = sx.multiply(sy);
+                    assertResult(result, signedOverflow(result, bitwidth), Longs.checkedMul(x, y, bitwidth), bitwidth);
+                    result = ux.multiply(uy);
+                    assertResult(result, unsignedOverflow(result, bitwidth), Longs.checkedUnsignedMul(x, y, bitwidth), bitwidth);
+                    if (y != 0) {
+                        result = sx.divide(sy);
+                        boolean overflow = signedOverflow(result, bitwidth);
+                        assertResult(result, overflow, Longs.checkedDiv(x, y, bitwidth), bitwidth);
+                        assertResult(sx.remainder(sy), overflow, Longs.checkedRem(x, y, bitwidth), bitwidth);
+                    }
+                }
+            }
+        }
+    }
+}
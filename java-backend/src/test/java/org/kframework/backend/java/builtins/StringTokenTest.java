@@ -0,0 +1,128 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StringTokenTest {
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testConcatenateAndSubstring() {
+        String expected = "";
+        StringToken token = StringToken.of("");
+        for (int i = 0; i < 1000; i++) {
+            String piece = Integer.toString(i % 10);
+            expected += piece;
+            token = StringToken.concatenate(token, StringToken.of(piece));
+            assertEquals(expected.length(), token.codePointCount());
+        }
+        StringToken flat = StringToken.of(expected);
+        assertEquals(flat, token);
+        assertEquals(token, flat);
+        assertEquals(flat.hashCode(), token.hashCode());
+        assertEquals(expected, token.stringValue());
+
+        StringToken rest = token;
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.substring(i, i + 1), rest.substring(0, 1).stringValue());
+            rest = rest.substring(1, rest.codePointCount());
+            assertEquals(expected.substring(i + 1), rest.stringValue());
+        }
+        assertSame(StringToken.of(""), rest);
+    }
+
+    @Test
+    public void testCodePoints() {
+        String clef = new String(Character.toChars(0x1D11E));
+        String text = repeat("a" + clef, 100);
+        StringToken token = StringToken.of(text);
+        assertEquals(200, token.codePointCount());
+        assertEquals(text.offsetByCodePoints(0, 51), token.offsetByCodePoints(51));
+        assertEquals(text.codePointCount(0, 99), token.codePointCount(99));
+
+        StringToken slice = token.substring(token.offsetByCodePoints(1), token.offsetByCodePoints(199));
+        assertEquals(198, slice.codePointCount());
+        assertEquals(text.substring(1, text.length() - 2), slice.stringValue());
+
+        StringToken concatenation = StringToken.concatenate(token, StringToken.of(repeat("b", 100)));
+        assertEquals(300, concatenation.codePointCount());
+        assertEquals(text.length() + 50, concatenation.offsetByCodePoints(250));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOffsetOutOfRange() {
+        StringToken.concatenate(StringToken.of(repeat("a", 50)), StringToken.of(repeat("b", 50))).offsetByCodePoints(101);
+    }
+
+    @Test
+    public void testSmallSlicesOfLargeStrings() {
+        String text = repeat("abcdefghij", 1000);
+        StringToken token = StringToken.concatenate(StringToken.of(text), StringToken.of("!"));
+        StringToken small = token.substring(100, 300);
+        assertEquals(text.substring(100, 300), small.stringValue());
+        assertEquals(200, small.codePointCount());
+        StringToken large = token.substring(100, 9000);
+        assertEquals(text.substring(100, 9000), large.stringValue());
+        assertEquals(text.substring(200, 400), large.substring(100, 300).stringValue());
+    }
+
+    @Test
+    public void testConcurrentFlattening() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            StringBuilder expected = new StringBuilder();
+            StringToken token = StringToken.of("");
+            for (int i = 0; i < 500; i++) {
+                String piece = repeat(Integer.toString(i % 10), 10);
+                expected.append(piece);
+                token = StringToken.concatenate(token, StringToken.of(piece));
+            }
+            StringToken shared = token;
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    int begin = i;
+                    results.add(executor.submit(() -> shared.substring(begin, shared.codePointCount()).stringValue()));
+                    results.add(executor.submit(shared::stringValue));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    assertEquals(expected.substring(i % 2 == 0 ? i / 2 : 0), results.get(i).get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testCacheHoldsTokensWeakly() {
+        StringToken token = StringToken.of(repeat("weak", 4));
+        assertSame(token, StringToken.of(repeat("weak", 4)));
+        WeakReference<StringToken> reference = new WeakReference<>(token);
+        // System.gc() is only a hint; an object nothing else refers to tells whether a collection happened
+        WeakReference<Object> sentinel = new WeakReference<>(new Object());
+        token = null;
+        for (int i = 0; i < 100 && (reference.get() != null || sentinel.get() != null); i++) {
+            System.gc();
+        }
+        assumeTrue(sentinel.get() == null);
+        assertNull(reference.get());
+    }
+}
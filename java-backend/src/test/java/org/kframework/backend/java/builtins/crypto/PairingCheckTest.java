@@ -0,0 +1,66 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins.crypto;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.kframework.backend.java.builtins.crypto.Params.P;
+import static org.kframework.backend.java.builtins.crypto.Params.R;
+
+public class PairingCheckTest {
+
+    private static final BN128G2 G2 = BN128G2.create(
+            new BigInteger("10857046999023057135944570762232829481370756359578518086990519993285655852781"),
+            new BigInteger("11559732032986387107991004021392285783925812861821192530917403151452391805634"),
+            new BigInteger("8495653923123431417604973247489272438418190587263600148770280649306958101930"),
+            new BigInteger("4082367875863433681332203403145435568316851327593401208105741076214120093531"));
+
+    private static BN128G1 g1(BigInteger scalar) {
+        BN128<Fp> p = BN128Fp.create(BigInteger.ONE, BigInteger.valueOf(2)).mul(scalar).toEthNotation();
+        return BN128G1.create(p.x().v(), p.y().v());
+    }
+
+    private static int check(BigInteger... scalars) {
+        PairingCheck check = PairingCheck.create();
+        for (BigInteger scalar : scalars) {
+            check.addPair(g1(scalar), G2);
+        }
+        check.run();
+        return check.result();
+    }
+
+    @Test
+    public void testFieldArithmetic() {
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            BigInteger a = new BigInteger(254, random).mod(P);
+            BigInteger b = i == 0 ? P.subtract(BigInteger.ONE) : new BigInteger(254, random).mod(P);
+            Fp x = Fp.create(a), y = Fp.create(b);
+            assertEquals(a, x.v());
+            assertEquals(a.add(b).mod(P), x.add(y).v());
+            assertEquals(a.subtract(b).mod(P), x.sub(y).v());
+            assertEquals(a.multiply(b).mod(P), x.mul(y).v());
+            assertEquals(a.negate().mod(P), x.negate().v());
+            assertEquals(a.modInverse(P), x.inverse().v());
+        }
+        assertFalse(Fp.create(P).isValid());
+        assertTrue(Fp.create(P.subtract(BigInteger.ONE)).isValid());
+    }
+
+    @Test
+    public void testPairingCheck() {
+        assertNotNull(G2);
+        BigInteger a = BigInteger.valueOf(123456789);
+        BigInteger b = new BigInteger("987654321987654321");
+        BigInteger c = R.subtract(a.add(b));
+        assertEquals(1, check(a, b, c));
+        assertEquals(0, check(a, b, c.add(BigInteger.ONE)));
+        assertEquals(0, check(a));
+        assertEquals(1, check(BigInteger.ZERO, a, R.subtract(a)));
+        assertEquals(1, check());
+    }
+}
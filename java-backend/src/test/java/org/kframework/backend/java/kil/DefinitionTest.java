@@ -0,0 +1,45 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Test;
+import org.kframework.attributes.Source;
+import org.kframework.kore.KORE;
+import org.kframework.main.GlobalOptions;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.errorsystem.KExceptionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DefinitionTest {
+
+    @Test
+    public void testSerializeWithSortCache() throws Exception {
+        Definition definition = new Definition(ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Exp ::= \"foo\" [klabel(foo)]\n" +
+                "endmodule\n", Source.apply("generated by DefinitionTest"), "TEST"),
+                new KExceptionManager(new GlobalOptions()));
+        KLabelConstant foo = KLabelConstant.of(KORE.KLabel("foo"), definition);
+        Sort exp = Sort.of(KORE.Sort("Exp"));
+        KItem.CacheTableColKey key = new KItem.CacheTableColKey(foo, KList.EMPTY);
+        definition.putSortCacheValue(key, new KItem.CacheTableValue(exp, true, Collections.singleton(exp)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(definition);
+        }
+        Definition loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (Definition) in.readObject();
+        }
+        // the sort cache is not serialized, and is filled again after loading
+        assertNull(loaded.getSortCacheValue(key));
+        loaded.putSortCacheValue(key, definition.getSortCacheValue(key));
+        assertSame(definition.getSortCacheValue(key), loaded.getSortCacheValue(key));
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class FunctionCacheTest {
+
+    @Test
+    public void testClearedEntriesAreNotServed() {
+        FunctionCache cache = new FunctionCache();
+        Term term = IntToken.of(1000);
+        ConjunctiveFormula constraint = ConjunctiveFormula.of((GlobalContext) null)
+                .add(IntToken.of(0), IntToken.of(1));
+
+        term.cachePut(null, IntToken.of(1), cache);
+        term.cachePut(constraint, IntToken.of(2), cache);
+        assertEquals(IntToken.of(1), term.cacheGet(null, cache));
+        assertEquals(IntToken.of(2), term.cacheGet(constraint, cache));
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertNull(term.cacheGet(null, cache));
+        assertNull(term.cacheGet(constraint, cache));
+        assertEquals(0, cache.size());
+
+        term.cachePut(constraint, IntToken.of(3), cache);
+        assertEquals(IntToken.of(3), term.cacheGet(constraint, cache));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCachesAreNotConfused() {
+        FunctionCache first = new FunctionCache();
+        FunctionCache second = new FunctionCache();
+        Term term = IntToken.of(1001);
+        term.cachePut(null, IntToken.of(1), first);
+        assertNull(term.cacheGet(null, second));
+        assertEquals(IntToken.of(1), term.cacheGet(null, first));
+    }
+
+    @Test
+    public void testTermSharedBetweenThreads() throws Exception {
+        FunctionCache cache = new FunctionCache();
+        Term term = IntToken.of(1002);
+        int threads = 4;
+        int constraints = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    for (int i = thread; i < constraints; i += threads) {
+                        ConjunctiveFormula constraint = ConjunctiveFormula.of((GlobalContext) null)
+                                .add(IntToken.of(i), IntToken.of(-1));
+                        term.cachePut(constraint, IntToken.of(i), cache);
+                        term.cachePut(null, IntToken.of(0), cache);
+                        assertEquals(IntToken.of(i), term.cacheGet(constraint, cache));
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // whichever thread saved last, every result is found
+        for (int i = 0; i < constraints; i++) {
+            ConjunctiveFormula constraint = ConjunctiveFormula.of((GlobalContext) null)
+                    .add(IntToken.of(i), IntToken.of(-1));
+            assertEquals(IntToken.of(i), term.cacheGet(constraint, cache));
+        }
+        assertEquals(IntToken.of(0), term.cacheGet(null, cache));
+        assertEquals(constraints + 1, cache.size());
+    }
+}
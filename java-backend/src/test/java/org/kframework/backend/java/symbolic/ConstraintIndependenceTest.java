@@ -0,0 +1,131 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.builtins.StringToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.definition.Module;
+import org.kframework.kore.KORE;
+import org.kframework.main.GlobalOptions;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.errorsystem.KExceptionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ConstraintIndependenceTest {
+
+    private GlobalContext global;
+    private KLabelConstant f, g, h, k;
+    private final Variable x = new Variable("X", Sort.INT);
+    private final Variable y = new Variable("Y", Sort.INT);
+    private final Variable z = new Variable("Z", Sort.INT);
+
+    @Before
+    public void setUp() {
+        Module module = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Int ::= \"f\" \"(\" Int \")\" [function, smtlib(f), klabel(f)]\n" +
+                "               | \"g\" \"(\" Int \")\" [function, smtlib(g), klabel(g)]\n" +
+                "               | \"h\" \"(\" Int \")\" [function, smtlib(h), klabel(h)]\n" +
+                "               | \"k\" \"(\" Int \")\" [function, klabel(k)]\n" +
+                "endmodule\n", Source.apply("generated by ConstraintIndependenceTest"), "TEST");
+        Definition definition = new Definition(module, new KExceptionManager(new GlobalOptions()));
+        f = KLabelConstant.of(KORE.KLabel("f"), definition);
+        g = KLabelConstant.of(KORE.KLabel("g"), definition);
+        h = KLabelConstant.of(KORE.KLabel("h"), definition);
+        k = KLabelConstant.of(KORE.KLabel("k"), definition);
+        global = mock(GlobalContext.class);
+    }
+
+    private Term apply(KLabelConstant label, Term argument) {
+        return new KItem(label, KList.singleton(argument), global, Sort.INT, true);
+    }
+
+    private Equality equality(Term left, Term right) {
+        return new Equality(left, right, global);
+    }
+
+    @Test
+    public void testSharedVariables() {
+        Equality a = equality(x, IntToken.of(0));
+        Equality b = equality(y, IntToken.of(1));
+        Equality c = equality(z, x);
+        assertEquals(Arrays.asList(Arrays.asList(a, c), Collections.singletonList(b)),
+                new ConstraintIndependence().components(Arrays.asList(a, b, c)));
+    }
+
+    @Test
+    public void testSharedUninterpretedSymbols() {
+        Equality a = equality(apply(f, x), IntToken.of(0));
+        Equality b = equality(apply(f, y), IntToken.of(1));
+        Equality c = equality(apply(g, z), IntToken.of(2));
+        assertEquals(Arrays.asList(Arrays.asList(a, b), Collections.singletonList(c)),
+                new ConstraintIndependence().components(Arrays.asList(a, b, c)));
+    }
+
+    @Test
+    public void testAbstractedTerms() {
+        // terms without an SMTLib translation become fresh variables, which may be shared
+        Equality a = equality(apply(k, x), IntToken.of(0));
+        Equality b = equality(new Variable("S", Sort.STRING), StringToken.of("s"));
+        Equality c = equality(y, IntToken.of(1));
+        assertEquals(Arrays.asList(Arrays.asList(a, b), Collections.singletonList(c)),
+                new ConstraintIndependence().components(Arrays.asList(a, b, c)));
+    }
+
+    @Test
+    public void testSymbolsOfAnAxiom() {
+        Equality a = equality(apply(f, x), IntToken.of(0));
+        Equality b = equality(apply(g, y), IntToken.of(1));
+        Equality c = equality(apply(h, z), IntToken.of(2));
+        List<Equality> equalities = Arrays.asList(a, b, c);
+        ConstraintIndependence independence = new ConstraintIndependence();
+        assertEquals(3, independence.components(equalities).size());
+
+        // f(X) = 0 and g(Y) = 1 are each sat, but not together with this axiom
+        independence.relateAxiomSymbols(Arrays.asList(f, g, h, k),
+                "(set-option :auto-config false) ; h is only declared\n(declare-fun h (Int) Int)\n",
+                "(assert (forall ((|x| Int)) (= (f |x|) (+ (g |x|) 5))))\n");
+        assertEquals(Arrays.asList(Arrays.asList(a, b), Collections.singletonList(c)),
+                independence.components(equalities));
+    }
+
+    @Test
+    public void testSymbolsOfAFunctionDefinition() {
+        Equality a = equality(apply(f, x), IntToken.of(0));
+        Equality b = equality(apply(h, y), IntToken.of(1));
+        ConstraintIndependence independence = new ConstraintIndependence();
+        independence.relateAxiomSymbols(Arrays.asList(f, g, h, k),
+                "(define-fun f ((x Int)) Int (h \"(g x)\"))\n");
+        assertEquals(Collections.singletonList(Arrays.asList(a, b)),
+                independence.components(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void testSlice() {
+        Equality a = equality(x, IntToken.of(0));
+        Equality b = equality(y, IntToken.of(1));
+        Equality c = equality(z, x);
+        assertEquals(Arrays.asList(Arrays.asList(a, c), Collections.singletonList(b)),
+                new ConstraintIndependence().slice(Arrays.asList(a, b, c), z));
+        assertEquals(Arrays.asList(Collections.emptyList(), Arrays.asList(a, c), Collections.singletonList(b)),
+                new ConstraintIndependence().slice(Arrays.asList(a, b, c), IntToken.of(0)));
+        assertEquals(ImmutableList.of(Arrays.asList(b)),
+                new ConstraintIndependence().slice(Collections.singletonList(b), y));
+    }
+}
@@ -0,0 +1,58 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Test;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.definition.Module;
+import org.kframework.kore.KORE;
+import org.kframework.main.GlobalOptions;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class DefinitionCacheTest {
+
+    @Test
+    public void testSaveThenLoad() throws Exception {
+        Module module = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Exp ::= \"foo\" [klabel(foo)]\n" +
+                "               | \"bar\" \"(\" Exp \")\" [klabel(bar)]\n" +
+                "endmodule\n", Source.apply("generated by DefinitionCacheTest"), "TEST");
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        Definition definition = new Definition(module, kem);
+        KLabelConstant foo = KLabelConstant.of(KORE.KLabel("foo"), definition);
+        KLabelConstant bar = KLabelConstant.of(KORE.KLabel("bar"), definition);
+        definition.addKLabel(foo);
+        definition.addKLabel(bar);
+        definition.reverseRuleTable.put(0, 1);
+        definition.reverseRuleTable.put(1, 0);
+        Sort exp = Sort.of(KORE.Sort("Exp"));
+
+        File directory = Files.createTempDirectory("definition-cache").toFile();
+        directory.deleteOnExit();
+        File file = new File(directory, "test.bin");
+        file.deleteOnExit();
+        DefinitionCache cache = new DefinitionCache(FileUtil.testFileUtil(), kem);
+        cache.save(file, definition);
+        assertTrue(file.isFile());
+
+        Definition loaded = cache.load(file, null);
+        assertNotNull(loaded);
+        assertNotSame(definition, loaded);
+        // sorts and KLabels resolve to the instances of this process, which compare by identity
+        assertEquals(definition.kLabels(), loaded.kLabels());
+        assertTrue(loaded.allSorts().contains(exp));
+        assertSame(exp, Sort.of(KORE.Sort("Exp")));
+        assertEquals(definition.reverseRuleTable, loaded.reverseRuleTable);
+        assertEquals(definition.ruleTable, loaded.ruleTable);
+        assertNull(loaded.automaton);
+    }
+}
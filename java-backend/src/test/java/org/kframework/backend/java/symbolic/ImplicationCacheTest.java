@@ -0,0 +1,106 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ImplicationCacheTest {
+
+    private final ImplicationCache cache = new ImplicationCache();
+
+    private static Variable intVariable(String name) {
+        return new Variable(name, Sort.INT);
+    }
+
+    private static Equality equality(Term left, Term right) {
+        return new Equality(left, right, null);
+    }
+
+    private static ConjunctiveFormula formula(Equality... equalities) {
+        return formula(Collections.emptyMap(), equalities);
+    }
+
+    private static ConjunctiveFormula formula(Map<Variable, Term> substitution, Equality... equalities) {
+        return ConjunctiveFormula.of(ImmutableMapSubstitution.from(substitution),
+                PersistentUniqueList.from(Arrays.asList(equalities)), PersistentUniqueList.empty(),
+                (GlobalContext) null);
+    }
+
+    private Object key(ConjunctiveFormula left, ConjunctiveFormula right, Variable... existentialQuantVars) {
+        Set<Variable> quantified = ImmutableSet.copyOf(existentialQuantVars);
+        return cache.key(left, right, quantified);
+    }
+
+    @Test
+    public void testAlphaEquivalentImplications() {
+        Variable x = intVariable("X"), y = intVariable("Y"), a = intVariable("A"), b = intVariable("B");
+        assertEquals(
+                key(formula(equality(x, IntToken.of(0)), equality(y, x)), formula(equality(y, IntToken.of(0))), y),
+                key(formula(equality(a, IntToken.of(0)), equality(b, a)), formula(equality(b, IntToken.of(0))), b));
+    }
+
+    @Test
+    public void testReorderedEqualities() {
+        Variable x = intVariable("X"), y = intVariable("Y"), a = intVariable("A"), b = intVariable("B");
+        assertEquals(
+                key(formula(equality(x, IntToken.of(0)), equality(y, IntToken.of(1))), formula()),
+                key(formula(equality(y, IntToken.of(1)), equality(x, IntToken.of(0))), formula()));
+        assertEquals(
+                key(formula(equality(x, IntToken.of(0)), equality(y, IntToken.of(1))), formula()),
+                key(formula(equality(b, IntToken.of(1)), equality(a, IntToken.of(0))), formula()));
+    }
+
+    @Test
+    public void testReorderedSubstitution() {
+        Variable a = intVariable("A"), b = intVariable("B");
+        // the same substitution up to a renaming, whose entries are iterated in another order
+        assertEquals(
+                key(formula(ImmutableMap.<Variable, Term>of(a, IntToken.of(0), b, IntToken.of(1))), formula()),
+                key(formula(ImmutableMap.<Variable, Term>of(b, IntToken.of(0), a, IntToken.of(1))), formula()));
+    }
+
+    @Test
+    public void testUnusedQuantifiedVariable() {
+        Variable x = intVariable("X"), z = intVariable("Z");
+        assertEquals(
+                key(formula(equality(x, IntToken.of(0))), formula()),
+                key(formula(equality(x, IntToken.of(0))), formula(), z));
+    }
+
+    @Test
+    public void testDifferentImplications() {
+        Variable x = intVariable("X"), y = intVariable("Y");
+        Object key = key(formula(equality(x, IntToken.of(0))), formula(equality(y, x)), y);
+        // another constant
+        assertNotEquals(key, key(formula(equality(x, IntToken.of(1))), formula(equality(y, x)), y));
+        // another variable
+        assertNotEquals(key, key(formula(equality(x, IntToken.of(0))), formula(equality(x, x)), y));
+        // another quantification
+        assertNotEquals(key, key(formula(equality(x, IntToken.of(0))), formula(equality(y, x))));
+        // another side
+        assertNotEquals(key, key(formula(equality(x, IntToken.of(0)), equality(y, x)), formula(), y));
+        // another sort
+        Variable b = new Variable("B", Sort.BOOL);
+        assertNotEquals(
+                key(formula(equality(x, IntToken.of(0))), formula()),
+                key(formula(equality(b, BoolToken.TRUE)), formula()));
+        // the same shape, but not the same variables
+        assertNotEquals(
+                key(formula(equality(x, y), equality(y, IntToken.of(0))), formula()),
+                key(formula(equality(x, y), equality(x, IntToken.of(0))), formula()));
+    }
+}
@@ -0,0 +1,182 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.FormulaContext;
+import org.kframework.backend.java.util.Profiler2;
+import org.kframework.backend.java.util.Z3Session;
+import org.kframework.backend.java.util.Z3Wrapper;
+import org.kframework.definition.Module;
+import org.kframework.kprove.KProveOptions;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.main.StartTimeHolder;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.unparser.KPrint;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import scala.Option;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class IncrementalConstraintSolverTest {
+
+    private GlobalContext global;
+    private KILtoSMTLib.DefinitionDeclarations declarations;
+    private Z3Wrapper z3;
+    private final List<Z3Session> sessions = new ArrayList<>();
+    private final List<String> commands = new ArrayList<>();
+    private final FormulaContext formulaContext = mock(FormulaContext.class);
+
+    private Equality a, b, c, d;
+
+    @Before
+    public void setUp() throws IOException {
+        Module module = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Int ::= \"f\" \"(\" Int \")\" [function, smtlib(f), klabel(f)]\n" +
+                "endmodule\n", Source.apply("generated by IncrementalConstraintSolverTest"), "TEST");
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        JavaExecutionOptions javaExecutionOptions = new JavaExecutionOptions();
+        org.kframework.definition.Definition coreDefinition = mock(org.kframework.definition.Definition.class);
+        when(coreDefinition.getModule("LANGUAGE-PARSING")).thenReturn(Option.apply(module));
+        global = new GlobalContext(null, new GlobalOptions(), new KRunOptions(), new KProveOptions(),
+                javaExecutionOptions, kem, new SMTOptions(), Collections.emptyMap(), FileUtil.testFileUtil(),
+                Stage.REWRITING, new Profiler2(javaExecutionOptions, new StartTimeHolder()), new KPrint(),
+                coreDefinition);
+        global.setDefinition(new Definition(module, kem));
+        declarations = KILtoSMTLib.declareDefinition(global);
+
+        z3 = mock(Z3Wrapper.class);
+        when(z3.startSession(anyInt())).thenAnswer(invocation -> {
+            Z3Session session = mock(Z3Session.class);
+            sessions.add(session);
+            return session;
+        });
+        when(z3.isUnsat(any(Z3Session.class), any(CharSequence.class), anyInt(), any())).thenAnswer(invocation -> {
+            commands.add(invocation.getArgument(1).toString());
+            return false;
+        });
+
+        a = equality("X", 0);
+        b = equality("Y", 1);
+        c = equality("Z", 2);
+        d = equality("W", 3);
+    }
+
+    private Equality equality(String variable, int value) {
+        return new Equality(new Variable(variable, Sort.INT), IntToken.of(value), global);
+    }
+
+    private ConjunctiveFormula constraint(Equality... equalities) {
+        return ConjunctiveFormula.of(ImmutableMapSubstitution.empty(),
+                PersistentUniqueList.from(Arrays.asList(equalities)), PersistentUniqueList.empty(), global);
+    }
+
+    private static int count(String text, String command) {
+        int count = 0;
+        for (int i = text.indexOf(command); i >= 0; i = text.indexOf(command, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks that {@code text} pops {@code pops} scopes, then pushes and asserts {@code pushes} equalities that
+     * declare one variable each.
+     */
+    private static void assertCommands(String text, int pops, int pushes) {
+        assertEquals(pops == 0 ? 0 : 1, count(text, "(pop "));
+        if (pops > 0) {
+            assertTrue(text.startsWith("(pop " + pops + ")\n"));
+        }
+        assertEquals(pushes, count(text, "(push 1)"));
+        assertEquals(pushes, count(text, "(assert "));
+        assertEquals(pushes, count(text, "(declare-fun "));
+    }
+
+    @Test
+    public void testPrefixReuse() {
+        IncrementalConstraintSolver solver = new IncrementalConstraintSolver(z3, 50);
+        assertFalse(solver.checkUnsat(constraint(a), declarations, formulaContext));
+        assertFalse(solver.checkUnsat(constraint(a, b), declarations, formulaContext));
+        assertFalse(solver.checkUnsat(constraint(a, b, c), declarations, formulaContext));
+
+        assertEquals(1, sessions.size());
+        assertEquals(3, commands.size());
+        assertTrue(commands.get(0).startsWith(declarations.text()));
+        assertCommands(commands.get(0).substring(declarations.text().length()), 0, 1);
+        // only the new equality is sent
+        assertCommands(commands.get(1), 0, 1);
+        assertCommands(commands.get(2), 0, 1);
+    }
+
+    @Test
+    public void testBranching() {
+        IncrementalConstraintSolver solver = new IncrementalConstraintSolver(z3, 50);
+        solver.checkUnsat(constraint(a, b), declarations, formulaContext);
+        // another branch from the point after a
+        solver.checkUnsat(constraint(a, c), declarations, formulaContext);
+        // another path altogether
+        solver.checkUnsat(constraint(d, c), declarations, formulaContext);
+        // a prefix of the previous query
+        solver.checkUnsat(constraint(d), declarations, formulaContext);
+
+        assertEquals(1, sessions.size());
+        assertCommands(commands.get(1), 1, 1);
+        assertCommands(commands.get(2), 2, 2);
+        assertCommands(commands.get(3), 1, 0);
+        // the variables of the popped scopes are declared again when they are used again
+        solver.checkUnsat(constraint(d, b), declarations, formulaContext);
+        assertCommands(commands.get(4), 0, 1);
+    }
+
+    @Test
+    public void testReplayAfterIOException() throws IOException {
+        IncrementalConstraintSolver solver = new IncrementalConstraintSolver(z3, 50);
+        solver.checkUnsat(constraint(a), declarations, formulaContext);
+        doThrow(new IOException("z3 exited"))
+                .doAnswer(invocation -> {
+                    commands.add(invocation.getArgument(1).toString());
+                    return true;
+                })
+                .when(z3).isUnsat(any(Z3Session.class), any(CharSequence.class), anyInt(), any());
+
+        assertTrue(solver.checkUnsat(constraint(a, b), declarations, formulaContext));
+
+        // the whole path condition is replayed in a new process
+        assertEquals(2, sessions.size());
+        verify(sessions.get(0)).close();
+        verify(sessions.get(1), never()).close();
+        assertEquals(2, commands.size());
+        assertTrue(commands.get(1).startsWith(declarations.text()));
+        assertCommands(commands.get(1).substring(declarations.text().length()), 0, 2);
+    }
+
+    @Test
+    public void testClose() {
+        IncrementalConstraintSolver solver = new IncrementalConstraintSolver(z3, 50);
+        solver.checkUnsat(constraint(a, b), declarations, formulaContext);
+        solver.close();
+        verify(sessions.get(0)).close();
+
+        solver.checkUnsat(constraint(a, b), declarations, formulaContext);
+        assertEquals(2, sessions.size());
+        assertTrue(commands.get(1).startsWith(declarations.text()));
+        assertCommands(commands.get(1).substring(declarations.text().length()), 0, 2);
+    }
+}
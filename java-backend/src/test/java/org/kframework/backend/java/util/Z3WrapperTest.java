@@ -0,0 +1,61 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Test;
+import org.kframework.backend.java.symbolic.JavaExecutionOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class Z3WrapperTest {
+
+    private static final String DECLARATIONS = "(declare-fun x () Int)\n(declare-fun y () Int)\n";
+
+    private static final String[] QUERIES = {
+            "(assert (> x 0))",
+            "(assert (and (> x 0) (< x 0)))",
+            "(assert (and (= (+ x y) 10) (= (- x y) 2)))",
+            "(assert (= (* 2 x) (+ (* 2 y) 1)))",
+    };
+
+    private static boolean z3Installed() {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (new File(dir, "z3").canExecute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean[] check(boolean incremental) {
+        SMTOptions options = new SMTOptions();
+        options.z3Incremental = incremental;
+        Z3Wrapper z3 = new Z3Wrapper(options, new KExceptionManager(new GlobalOptions()), new JavaExecutionOptions(),
+                FileUtil.testFileUtil(), new StateLog());
+        Z3Profiler profiler = new Z3Profiler("test");
+        boolean[] results = new boolean[2 * QUERIES.length];
+        // every query twice, so that the incremental path reuses its process
+        for (int i = 0; i < results.length; i++) {
+            results[i] = z3.isUnsat(DECLARATIONS, QUERIES[i % QUERIES.length], 5000, profiler);
+        }
+        return results;
+    }
+
+    @Test
+    public void testIncrementalAgreesWithOneShot() {
+        assumeTrue(z3Installed());
+        boolean[] oneShot = check(false);
+        assertArrayEquals(new boolean[] {false, true, false, true, false, true, false, true}, oneShot);
+        assertArrayEquals(oneShot, check(true));
+    }
+}
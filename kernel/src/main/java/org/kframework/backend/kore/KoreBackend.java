@@ -34,6 +34,7 @@ import org.kframework.kompile.CompiledDefinition;
 import org.kframework.kompile.Kompile;
 import org.kframework.kompile.KompileOptions;
 import org.kframework.kore.KLabel;
+import org.kframework.utils.BinaryLoader;
 import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
@@ -41,11 +42,14 @@ import org.kframework.utils.file.FileUtil;
 import scala.Function1;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.function.Function;
@@ -86,14 +90,29 @@ public class KoreBackend implements Backend {
     }
 
     protected String getKompiledString(CompiledDefinition def) {
-        return getKompiledString(def.kompiledDefinition.mainModule(), def.topCellInitializer, files, heatCoolEquations);
+        BinaryLoader loader = new BinaryLoader(kem);
+        File cacheFile = files.resolveKompiled("kore-cache.bin");
+        Map<String, ModuleToKORE.ConvertedRule> ruleCache = new HashMap<>();
+        try {
+            ruleCache = loader.load(Map.class, cacheFile);
+        } catch (FileNotFoundException e) {
+        } catch (IOException | ClassNotFoundException e) {
+            kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
+        }
+        String kompiledString = getKompiledString(def.kompiledDefinition.mainModule(), def.topCellInitializer, files, heatCoolEquations, ruleCache);
+        loader.saveOrDie(cacheFile, ruleCache);
+        return kompiledString;
     }
 
     public static String getKompiledString(Module mainModule, KLabel topCellInitializer, FileUtil files, boolean heatCoolEquations) {
+        return getKompiledString(mainModule, topCellInitializer, files, heatCoolEquations, null);
+    }
+
+    private static String getKompiledString(Module mainModule, KLabel topCellInitializer, FileUtil files, boolean heatCoolEquations, Map<String, ModuleToKORE.ConvertedRule> ruleCache) {
         mainModule = new GenerateSortPredicateRules(true).gen(mainModule);
         mainModule = ModuleTransformer.fromKTransformer(new AddSortInjections(mainModule)::addInjections, "Add sort injections").apply(mainModule);
         mainModule = ModuleTransformer.fromSentenceTransformer(new MinimizeTermConstruction(mainModule)::resolve, "Minimize term construction").apply(mainModule);
-        ModuleToKORE moduleToKORE = new ModuleToKORE(mainModule, files, topCellInitializer);
+        ModuleToKORE moduleToKORE = new ModuleToKORE(mainModule, files, topCellInitializer, ruleCache);
         String kompiledString = moduleToKORE.convert(heatCoolEquations);
         Properties koreToKLabels = new Properties();
         koreToKLabels.putAll(moduleToKORE.getKToKoreLabelMap().inverse());
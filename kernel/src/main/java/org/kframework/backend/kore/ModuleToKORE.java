@@ -8,6 +8,7 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import org.apache.commons.codec.binary.Hex;
 import org.kframework.Collections;
 import org.kframework.attributes.Att;
 import org.kframework.builtin.BooleanUtils;
@@ -43,6 +44,10 @@ import org.kframework.utils.file.FileUtil;
 import scala.Option;
 import scala.Tuple2;
 
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -53,6 +58,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -65,14 +73,55 @@ public class ModuleToKORE {
     private final BiMap<String, String> kToKoreLabelMap = HashBiMap.create();
     private final FileUtil files;
     private final StringBuilder sb = new StringBuilder();
-    private final Set<String> impureFunctions = new HashSet<>();
-    private final Map<String, List<Set<Integer>>> polyKLabels = new HashMap<>();
+    private final Set<String> impureFunctions;
+    private final Map<String, List<Set<Integer>>> polyKLabels;
     private final KLabel topCellInitializer;
+    private final Map<String, ConvertedRule> ruleCache;
 
     public ModuleToKORE(Module module, FileUtil files, KLabel topCellInitializer) {
+        this(module, files, topCellInitializer, null);
+    }
+
+    /**
+     * @param ruleCache the KORE emitted for each rule by a previous conversion, keyed by {@link #ruleKey}.
+     *                  Entries are reused where the key still matches, and on return the map holds exactly the
+     *                  rules of this conversion. May be null, in which case every rule is converted afresh.
+     */
+    public ModuleToKORE(Module module, FileUtil files, KLabel topCellInitializer, Map<String, ConvertedRule> ruleCache) {
         this.module = module;
         this.files = files;
         this.topCellInitializer = topCellInitializer;
+        this.impureFunctions = new HashSet<>();
+        this.polyKLabels = new ConcurrentHashMap<>();
+        this.ruleCache = ruleCache;
+    }
+
+    /**
+     * Creates a converter for a single rule. It shares the definition-level tables of {@code parent}, which are
+     * only read once the rules are reached, but writes to its own buffer and label map so that rules can be
+     * converted concurrently.
+     */
+    private ModuleToKORE(ModuleToKORE parent) {
+        this.module = parent.module;
+        this.files = parent.files;
+        this.topCellInitializer = parent.topCellInitializer;
+        this.impureFunctions = parent.impureFunctions;
+        this.polyKLabels = parent.polyKLabels;
+        this.dependencies = parent.dependencies;
+        this.ruleCache = null;
+    }
+
+    /**
+     * The KORE text emitted for one rule, together with the label encodings that were introduced while emitting it.
+     */
+    public static class ConvertedRule implements Serializable {
+        private final String kore;
+        private final Map<String, String> labels;
+
+        ConvertedRule(String kore, Map<String, String> labels) {
+            this.kore = kore;
+            this.labels = labels;
+        }
     }
     private static final boolean METAVAR = false;
 
@@ -524,8 +573,20 @@ public class ModuleToKORE {
             }
         }
         sb.append("\n// rules\n");
-        for (Rule rule : iterable(module.rules())) {
-            convertRule(rule, heatCoolEq, topCell, attributes, functionRules, false);
+        String context = ruleCache == null ? null : ruleContext(heatCoolEq, topCell, attributes);
+        List<Rule> rules = stream(module.rules()).collect(Collectors.toList());
+        List<Tuple2<String, ConvertedRule>> converted = rules.parallelStream()
+                .map(rule -> convertRule(rule, heatCoolEq, topCell, attributes, functionRules, context))
+                .collect(Collectors.toList());
+        if (ruleCache != null) {
+            ruleCache.clear();
+        }
+        for (Tuple2<String, ConvertedRule> rule : converted) {
+            sb.append(rule._2().kore);
+            kToKoreLabelMap.putAll(rule._2().labels);
+            if (ruleCache != null) {
+                ruleCache.put(rule._1(), rule._2());
+            }
         }
         sb.append("endmodule ");
         convert(attributes, module.att());
@@ -557,6 +618,97 @@ public class ModuleToKORE {
         return sb.toString();
     }
 
+    private Tuple2<String, ConvertedRule> convertRule(Rule rule, boolean heatCoolEq, Sort topCellSort, Map<String, Boolean> consideredAttributes, SetMultimap<KLabel, Rule> functionRules, String context) {
+        String key = context == null ? null : ruleKey(context, rule, functionRules);
+        if (key != null) {
+            ConvertedRule cached = ruleCache.get(key);
+            if (cached != null) {
+                return Tuple2.apply(key, cached);
+            }
+        }
+        ModuleToKORE ruleConverter = new ModuleToKORE(this);
+        ruleConverter.convertRule(rule, heatCoolEq, topCellSort, consideredAttributes, functionRules, false);
+        return Tuple2.apply(key, new ConvertedRule(ruleConverter.sb.toString(), new HashMap<>(ruleConverter.kToKoreLabelMap)));
+    }
+
+    /**
+     * Fingerprints everything besides the rule itself that its KORE output depends on: the options, the
+     * attributes considered, and the sorts and productions of the module.
+     */
+    private String ruleContext(boolean heatCoolEq, Sort topCell, Map<String, Boolean> attributes) {
+        StringBuilder context = new StringBuilder();
+        context.append(heatCoolEq).append('\n').append(topCell).append('\n').append(topCellInitializer).append('\n');
+        context.append(new TreeMap<>(attributes)).append('\n');
+        context.append(new TreeSet<>(impureFunctions)).append('\n');
+        stream(module.sortDeclarations()).map(s -> s.toString() + attText(s.att())).sorted().forEach(s -> context.append(s).append('\n'));
+        stream(module.productions()).map(p -> p.toString() + attText(p.att())).sorted().forEach(s -> context.append(s).append('\n'));
+        return digest(context.toString());
+    }
+
+    /**
+     * Hashes a rule in its context. An owise rule is emitted together with the other rules for its function,
+     * so those are part of its key as well.
+     */
+    static String ruleKey(String context, Rule rule, SetMultimap<KLabel, Rule> functionRules) {
+        List<String> parts = new ArrayList<>();
+        parts.add(context);
+        parts.add(ruleText(rule));
+        K left = RewriteToTop.toLeft(rule.body());
+        if (rule.att().contains("owise") && left instanceof KApply) {
+            String name = ((KApply) left).klabel().name();
+            functionRules.entries().stream()
+                    .filter(e -> e.getKey().name().equals(name))
+                    .map(e -> ruleText(e.getValue()))
+                    .sorted()
+                    .forEach(parts::add);
+        }
+        return digest(parts.toArray(new String[parts.size()]));
+    }
+
+    /**
+     * Writes a rule as text that only depends on its contents, so that its key is the same in every run. The
+     * serialized form of a rule is not: attribute maps are keyed by classes, whose hash codes vary between runs,
+     * so their entries are written in a different order each time. Here the attributes of the rule and of each of
+     * its subterms, in the order in which they are visited, are written with their entries sorted.
+     */
+    private static String ruleText(Rule rule) {
+        StringBuilder text = new StringBuilder(rule.toString());
+        text.append('\n').append(attText(rule.att()));
+        VisitK atts = new VisitK() {
+            @Override
+            public void apply(K k) {
+                text.append('\n').append(attText(k.att()));
+                super.apply(k);
+            }
+        };
+        atts.apply(rule.body());
+        atts.apply(rule.requires());
+        atts.apply(rule.ensures());
+        return text.toString();
+    }
+
+    private static String attText(Att att) {
+        return stream(att.att())
+                .map(a -> a._1()._1() + "@" + a._1()._2().getName() + "=" + a._2())
+                .sorted()
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String digest(String... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                md.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) ':');
+                md.update(bytes);
+            }
+            return Hex.encodeHexString(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw KEMException.internalError("Could not compute the cache key of a rule.", e);
+        }
+    }
+
     private void convertRule(Rule rule, boolean heatCoolEq, Sort topCellSort, Map<String, Boolean> consideredAttributes, SetMultimap<KLabel, Rule> functionRules, boolean rulesAsClaims) {
         ConstructorChecks constructorChecks = new ConstructorChecks(module);
         boolean equation = false;
@@ -591,9 +743,6 @@ public class ModuleToKORE {
         sb.append("\n");
         if (equation) {
             if (!constructorBased) {
-                if (!consideredAttributes.containsKey(Attribute.SIMPLIFICATION_KEY)) {
-                    consideredAttributes.put(Attribute.SIMPLIFICATION_KEY, false);
-                }
                 if (!rule.att().contains(Attribute.SIMPLIFICATION_KEY)) {
                     rule = rule.withAtt(rule.att().add(Attribute.SIMPLIFICATION_KEY));
                 }
@@ -82,6 +82,23 @@ public class ExpandMacros {
         }
     }
 
+    private ExpandMacros(ExpandMacros other) {
+        this.mod = other.mod;
+        this.reverse = other.reverse;
+        this.cover = other.cover;
+        this.macros = other.macros;
+        this.channel = other.channel;
+        this.coverage = other.coverage;
+    }
+
+    /**
+     * Returns an ExpandMacros with the macros of this one but none of the variables it has generated, so that
+     * expanding a term with it does not depend on the terms expanded before. The macros are shared, not recomputed.
+     */
+    public ExpandMacros fresh() {
+        return new ExpandMacros(this);
+    }
+
     private K getLeft(Rule r, boolean reverse) {
         if (reverse) {
             return RewriteToTop.toRight(r.body());
@@ -0,0 +1,121 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+import org.kframework.kore.K;
+import org.kframework.kore.KApply;
+import org.kframework.kore.KCollection;
+import org.kframework.kore.KSequence;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+
+import static org.kframework.kore.KORE.*;
+
+/**
+ * Keeps the checkpoints of a debugger state small.
+ * <p>
+ * A checkpoint shares every subterm that did not change with the previous checkpoint, so that it only costs the
+ * memory of what changed since then. The number of checkpoints of a state is bounded: when there are too many,
+ * the newest {@link #RECENT_CHECKPOINTS} are kept and every other older one is dropped. Older checkpoints are
+ * thinned each time, so recent history stays dense and older history grows sparser. A configuration between
+ * two checkpoints is recomputed on demand by executing from the earlier one.
+ */
+final class Checkpoints {
+
+    /** The number of checkpoints a debugger state keeps. */
+    static final int MAXIMUM_CHECKPOINTS = 1024;
+    /** The number of newest checkpoints that are never dropped. */
+    static final int RECENT_CHECKPOINTS = MAXIMUM_CHECKPOINTS / 2;
+
+    private Checkpoints() {}
+
+    /**
+     * Adds the configuration {@code k} reached at step {@code stepNum} to {@code checkpointMap}, sharing its
+     * subterms with the previous checkpoint, and drops checkpoints if there are too many.
+     */
+    static void add(NavigableMap<Integer, K> checkpointMap, int stepNum, K k) {
+        java.util.Map.Entry<Integer, K> previous = checkpointMap.lowerEntry(stepNum);
+        checkpointMap.put(stepNum, previous == null ? k : share(k, previous.getValue()));
+        if (checkpointMap.size() > MAXIMUM_CHECKPOINTS) {
+            thin(checkpointMap);
+        }
+    }
+
+    /**
+     * Removes every other checkpoint from {@code checkpointMap} except the newest {@link #RECENT_CHECKPOINTS},
+     * keeping the first one.
+     */
+    static void thin(NavigableMap<Integer, K> checkpointMap) {
+        int older = checkpointMap.size() - RECENT_CHECKPOINTS;
+        Iterator<Integer> it = checkpointMap.navigableKeySet().iterator();
+        it.next();
+        boolean remove = true;
+        for (int i = 1; i < older; i++) {
+            it.next();
+            if (remove) {
+                it.remove();
+            }
+            remove = !remove;
+        }
+    }
+
+    /**
+     * Returns a term equal to {@code next} which reuses the subterms of {@code previous} it has in common with it.
+     * Terms are compared position by position; the items of a {@link KSequence} are aligned at the end, since
+     * execution consumes the sequence from the front.
+     */
+    static K share(K next, K previous) {
+        if (next == previous) {
+            return next;
+        }
+        if (next instanceof KApply && previous instanceof KApply) {
+            KApply n = (KApply) next;
+            KApply p = (KApply) previous;
+            if (!n.klabel().equals(p.klabel()) || n.items().size() != p.items().size()) {
+                return next;
+            }
+            List<K> items = new ArrayList<>(n.items().size());
+            if (shareItems(n.items(), p.items(), items) && n.att().equals(p.att())) {
+                return previous;
+            }
+            return KApply(n.klabel(), KList(items), n.att());
+        }
+        if (next instanceof KSequence && previous instanceof KSequence) {
+            KSequence n = (KSequence) next;
+            KSequence p = (KSequence) previous;
+            List<K> items = new ArrayList<>(n.items().size());
+            if (shareItems(n.items(), p.items(), items) && n.items().size() == p.items().size() && n.att().equals(p.att())) {
+                return previous;
+            }
+            return KSequence(items, n.att());
+        }
+        if (!(next instanceof KCollection) && next.equals(previous)) {
+            return previous;
+        }
+        return next;
+    }
+
+    /**
+     * Shares the items of {@code next} with those of {@code previous}, aligned at the end, into {@code result}.
+     *
+     * @return true if every item of {@code next} is the corresponding item of {@code previous}.
+     */
+    private static boolean shareItems(List<K> next, List<K> previous, List<K> result) {
+        int offset = previous.size() - next.size();
+        boolean same = true;
+        for (int i = 0; i < next.size(); i++) {
+            K item = next.get(i);
+            if (i + offset >= 0) {
+                K previousItem = previous.get(i + offset);
+                item = share(item, previousItem);
+                same &= item == previousItem;
+            } else {
+                same = false;
+            }
+            result.add(item);
+        }
+        return same;
+    }
+}
@@ -39,6 +39,21 @@ public class DebuggerState {
         this.stepNum = stepNum;
     }
 
+    private DebuggerState(NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList, K currentK, int stepNum) {
+        this.checkpointMap = checkpointMap;
+        this.watchList = new ArrayList<>(watchList);
+        this.currentK = currentK;
+        this.stepNum = stepNum;
+    }
+
+    /**
+     * Returns a state which shares {@code checkpointMap} rather than copying it. The map must not be modified
+     * afterwards, so that states reached from one another without adding checkpoints can share it.
+     */
+    static DebuggerState sharingCheckpoints(K currentK, int stepNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
+        return new DebuggerState(checkpointMap, watchList, currentK, stepNum);
+    }
+
     public DebuggerState(DebuggerState copyState) {
         this.checkpointMap = new TreeMap<>(copyState.getCheckpointMap());
         this.watchList = new ArrayList<>(copyState.getWatchList());
@@ -71,4 +86,11 @@ public class DebuggerState {
     public NavigableMap<Integer, K> getCheckpointMap() {
         return Maps.unmodifiableNavigableMap(checkpointMap);
     }
+
+    /**
+     * @return the checkpoint map of this state itself, which must not be modified.
+     */
+    NavigableMap<Integer, K> sharedCheckpointMap() {
+        return checkpointMap;
+    }
 }
@@ -76,7 +76,9 @@ public class KoreKDebug implements KDebug {
         K currentK = currentState.getCurrentK();
         int activeStateCheckpoint = currentState.getStepNum();
         RewriterResult result;
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>(currentState.getCheckpointMap());
+        // shared with the current state until a checkpoint is added
+        NavigableMap<Integer, K> checkpointMap = currentState.sharedCheckpointMap();
+        boolean checkpointMapCopied = false;
         List<DebuggerMatchResult> origWatchList = currentState.getWatchList();
         while (steps >= checkpointInterval) {
             result = rewriter.execute(currentK, Optional.of(checkpointInterval));
@@ -90,7 +92,11 @@ public class KoreKDebug implements KDebug {
             }
             steps -= checkpointInterval;
             activeStateCheckpoint += checkpointInterval;
-            checkpointMap.put(activeStateCheckpoint, result.k());
+            if (!checkpointMapCopied) {
+                checkpointMap = new TreeMap<>(checkpointMap);
+                checkpointMapCopied = true;
+            }
+            Checkpoints.add(checkpointMap, activeStateCheckpoint, result.k());
             currentK = result.k();
         }
         result = rewriter.execute(currentK, Optional.of(steps));
@@ -116,7 +122,7 @@ public class KoreKDebug implements KDebug {
     private DebuggerState processStateData(K finalK, int stepNum, int stateNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
         List<DebuggerMatchResult> updatedWatchList = updateWatchList(watchList, finalK);
         stateList.remove(stateNum);
-        DebuggerState nextState = new DebuggerState(
+        DebuggerState nextState = DebuggerState.sharingCheckpoints(
                 finalK,
                 stepNum,
                 checkpointMap,
@@ -152,7 +158,9 @@ public class KoreKDebug implements KDebug {
         DebuggerState currentState = stateList.get(initialStateNum);
         int currentCheckpoint = currentState.getStepNum();
         int target = currentCheckpoint - steps;
-        NavigableMap<Integer, K> currMap = new TreeMap<>(currentState.getCheckpointMap());
+        NavigableMap<Integer, K> currMap = currentState.getCheckpointMap();
+        /* Checkpoints may have been dropped to save memory, in which case the configuration is recomputed
+           from an earlier one */
         Map.Entry<Integer, K> relevantEntry = currMap.floorEntry(target);
         if (relevantEntry == null) {
             /* Invalid Operation, no need to change the state */
@@ -163,7 +171,7 @@ public class KoreKDebug implements KDebug {
         processStateData(relevantEntry.getValue(),
                 floorKey,
                 initialStateNum,
-                currMap.headMap(floorKey, true),
+                new TreeMap<>(currMap.headMap(floorKey, true)),
                 updateWatchList(currentState.getWatchList(), relevantEntry.getValue()));
         return step(initialStateNum, target - floorKey);
     }
@@ -171,8 +179,7 @@ public class KoreKDebug implements KDebug {
     @Override
     public DebuggerState jumpTo(int initialStateNum, int configurationNum) {
         DebuggerState currentState = stateList.get(initialStateNum);
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>(currentState.getCheckpointMap());
-        int firstKey = checkpointMap.firstKey();
+        int firstKey = currentState.getCheckpointMap().firstKey();
         if (configurationNum < firstKey) {
             return null;
         }
@@ -254,10 +261,10 @@ public class KoreKDebug implements KDebug {
         DebuggerState activeState = stateList.remove(activeStateIndex);
         List<DebuggerMatchResult> watchList = new ArrayList<>(activeState.getWatchList());
         watchList.add(matchResult);
-        DebuggerState nextState = new DebuggerState(
+        DebuggerState nextState = DebuggerState.sharingCheckpoints(
                 activeState.getCurrentK(),
                 activeState.getStepNum(),
-                new TreeMap<>(activeState.getCheckpointMap()),
+                activeState.sharedCheckpointMap(),
                 watchList);
         stateList.add(activeStateIndex, nextState);
     }
@@ -273,10 +280,10 @@ public class KoreKDebug implements KDebug {
         List<DebuggerMatchResult> updatedList = new ArrayList<>(watchList);
         updatedList.remove(watchNum);
         stateList.add(activeStateIndex,
-                new DebuggerState(
+                DebuggerState.sharingCheckpoints(
                         currActiveState.getCurrentK(),
                         currActiveState.getStepNum(),
-                        new TreeMap<>(currActiveState.getCheckpointMap()),
+                        currActiveState.sharedCheckpointMap(),
                         updatedList)
 
         );
@@ -354,6 +354,7 @@ public class DefinitionParsing {
     }
 
     private boolean equalsSyntax(Module _this, Module that) {
+        if (!_this.syntaxFingerprint().equals(that.syntaxFingerprint())) return false;
         if (!_this.productions().equals(that.productions())) return false;
         if (!_this.priorities().equals(that.priorities())) return false;
         if (!_this.leftAssoc().equals(that.leftAssoc())) return false;
@@ -5,6 +5,7 @@ import com.google.inject.Inject;
 import com.google.inject.Module;
 import com.google.inject.Provider;
 import org.kframework.compile.Backend;
+import org.kframework.kore.KORE;
 import org.kframework.main.FrontEnd;
 import org.kframework.utils.BinaryLoader;
 import org.kframework.utils.Stopwatch;
@@ -65,14 +66,21 @@ public class KompileFrontEnd extends FrontEnd {
                     options.outerParsing.mainDefinitionFile(files).getAbsolutePath());
         }
 
-        Kompile kompile = new Kompile(options, files, kem, sw);
-        Backend backend = koreBackend.get();
-        CompiledDefinition def = kompile.run(options.outerParsing.mainDefinitionFile(files), options.mainModule(files), options.syntaxModule(files), backend.steps(), backend.excludedModuleTags());
-        sw.printIntermediate("Kompile to kore");
-        loader.saveOrDie(files.resolveKompiled("compiled.bin"), def);
-        sw.printIntermediate("Save to disk");
-        backend.accept(def);
-        sw.printIntermediate("Backend");
+        // the flag is global, so restore it for whatever runs next in this JVM, such as a later kserver request
+        boolean interning = KORE.isInterning();
+        KORE.setInterning(options.experimental.internTerms);
+        try {
+            Kompile kompile = new Kompile(options, files, kem, sw);
+            Backend backend = koreBackend.get();
+            CompiledDefinition def = kompile.run(options.outerParsing.mainDefinitionFile(files), options.mainModule(files), options.syntaxModule(files), backend.steps(), backend.excludedModuleTags());
+            sw.printIntermediate("Kompile to kore");
+            loader.saveOrDie(files.resolveKompiled("compiled.bin"), def);
+            sw.printIntermediate("Save to disk");
+            backend.accept(def);
+            sw.printIntermediate("Backend");
+        } finally {
+            KORE.setInterning(interning);
+        }
         loader.saveOrDie(files.resolveKompiled("timestamp"), "");
         sw.printTotal("Total");
         return 0;
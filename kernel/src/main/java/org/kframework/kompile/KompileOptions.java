@@ -106,5 +106,8 @@ public class KompileOptions implements Serializable {
 
         @Parameter(names="--cache-file", description="Location of parse cache file. Default is $KOMPILED_DIR/cache.bin.")
         public String cacheFile;
+
+        @Parameter(names="--intern-terms", description="Share structurally equal terms built during compilation. Reduces memory use on large definitions.")
+        public boolean internTerms = false;
     }
 }
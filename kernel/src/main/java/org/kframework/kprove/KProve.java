@@ -67,7 +67,7 @@ public class KProve {
         } else {
             exit = 1;
         }
-        kprint.prettyPrint(compiled._1(), compiled._1().getModule("LANGUAGE-PARSING").get(), s -> kprint.outputFile(s), results);
+        kprint.prettyPrintToOutput(compiled._1(), compiled._1().getModule("LANGUAGE-PARSING").get(), results, System.out);
         return exit;
     }
 
@@ -62,4 +62,8 @@ public class KProveOptions {
             "Otherwise it fails on the present path. If option is not specified, full target term implication is checked " +
             "on every step. In most specifications boundary is marked by \"k\".")
     public List<String> boundaryCells = Collections.emptyList();
+
+    @Parameter(names = "--parallel-claims", description = "The number of claims to prove concurrently. " +
+            "Results are reported in the order of the claims in the specification regardless of this option.")
+    public int parallelClaims = 1;
 }
@@ -89,7 +89,7 @@ public class KRun {
 
 
         if (result != null) {
-            kprint.prettyPrint(compiledDef.getParsedDefinition(), compiledDef.languageParsingModule(), s -> kprint.outputFile(s), result._1());
+            kprint.prettyPrintToOutput(compiledDef.getParsedDefinition(), compiledDef.languageParsingModule(), result._1(), System.out);
             return result._2();
         }
         return 0;
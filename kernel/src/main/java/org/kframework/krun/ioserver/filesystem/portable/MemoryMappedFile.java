@@ -0,0 +1,71 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.krun.ioserver.filesystem.portable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file opened read-only whose contents are mapped into memory when it is opened. Reads are served from the
+ * mapping without any system calls. Changes made to the length of the file after it was opened are not seen.
+ */
+public class MemoryMappedFile extends File {
+
+    protected RandomAccessFile raf;
+    private final MappedByteBuffer contents;
+    private long position = 0;
+
+    public MemoryMappedFile(RandomAccessFile raf) throws IOException {
+        this.raf = raf;
+        this.contents = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    }
+
+    public long tell() throws IOException {
+        return position;
+    }
+
+    public void seek(long pos) throws IOException {
+        if (pos < 0) {
+            throw new IOException("EINVAL");
+        }
+        position = pos;
+    }
+
+    public void putc(byte b) throws IOException {
+        throw new IOException("EBADF");
+    }
+
+    public byte getc() throws IOException {
+        if (position >= contents.limit()) {
+            throw new IOException("EOF");
+        }
+        return contents.get((int) position++);
+    }
+
+    public byte[] read(int n) throws IOException {
+        if (n == 0) {
+            return new byte[0];
+        }
+        if (position >= contents.limit()) {
+            throw new IOException("EOF");
+        }
+        byte[] bytes = new byte[(int) Math.min(n, contents.limit() - position)];
+        contents.position((int) position);
+        contents.get(bytes);
+        position += bytes.length;
+        return bytes;
+    }
+
+    public void write(byte[] b) throws IOException {
+        throw new IOException("EBADF");
+    }
+
+    void close() throws IOException {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+    }
+}
@@ -68,7 +68,7 @@ public class PortableFileSystem implements FileSystem {
             } else {
                 RandomAccessFile f = new RandomAccessFile(fileUtil.resolveWorkingDirectory(path), mode);
                 fileFD = f.getFD();
-                file = new RandomAccessFileFile(f);
+                file = openRandomAccess(f, mode);
             }
             long fd = fdCounter++;
             descriptors.put(fd, fileFD);
@@ -92,6 +92,25 @@ public class PortableFileSystem implements FileSystem {
         }
     }
 
+    /**
+     * Files opened read-only that are too large to buffer cheaply are mapped into memory instead.
+     */
+    static final long MAP_THRESHOLD = 1 << 20;
+
+    private static File openRandomAccess(RandomAccessFile f, String mode) {
+        if (mode.equals("r")) {
+            try {
+                long length = f.length();
+                if (length >= MAP_THRESHOLD && length <= Integer.MAX_VALUE) {
+                    return new MemoryMappedFile(f);
+                }
+            } catch (IOException e) {
+                // not every file can be mapped; those are read through a buffer instead
+            }
+        }
+        return new RandomAccessFileFile(f, !mode.equals("r"));
+    }
+
     public void close(long fd) throws IOException {
         File f = get(fd);
         assert f instanceof org.kframework.krun.ioserver.filesystem.portable.File;
@@ -5,77 +5,208 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.Arrays;
 
+/**
+ * A file opened for random access. Reads and writes go through a single buffer holding a window of the file,
+ * so that programs reading or writing a byte at a time do not make a system call per byte. Pending writes are
+ * flushed whenever the window moves and when the file is closed.
+ */
 public class RandomAccessFileFile extends File {
 
+    static final int BUFFER_SIZE = 8192;
+
     protected RandomAccessFile raf;
+    private final boolean writable;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    /** The offset in the file of the first byte of the buffer. */
+    private long bufferStart = 0;
+    /** The current position, relative to {@link #bufferStart}. Never greater than {@link #bufferLimit}. */
+    private int bufferPos = 0;
+    /** The number of bytes of the buffer that hold the contents of the file. */
+    private int bufferLimit = 0;
+    /** The range of the buffer that has been written to but not yet flushed, empty if dirtyFrom == dirtyTo. */
+    private int dirtyFrom = 0;
+    private int dirtyTo = 0;
 
-    public RandomAccessFileFile(RandomAccessFile raf) {
+    public RandomAccessFileFile(RandomAccessFile raf, boolean writable) {
         this.raf = raf;
+        this.writable = writable;
     }
 
     public long tell() throws IOException {
-        try {
-            return raf.getFilePointer();
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
-            throw e; //unreachable
-        }
+        return bufferStart + bufferPos;
     }
 
     public void seek(long pos) throws IOException {
+        if (pos >= bufferStart && pos <= bufferStart + bufferLimit) {
+            bufferPos = (int) (pos - bufferStart);
+            return;
+        }
         try {
+            flush();
             raf.seek(pos);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         }
+        resetBuffer(pos);
     }
 
     public void putc(byte b) throws IOException {
-        try {
-            raf.writeByte(b);
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
+        checkWritable();
+        if (bufferPos == buffer.length) {
+            moveBuffer();
         }
+        buffer[bufferPos] = b;
+        markDirty(bufferPos, bufferPos + 1);
     }
 
     public byte getc() throws IOException {
-        try {
-            return raf.readByte();
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
-            throw e; //unreachable
+        if (bufferPos == bufferLimit && !fillBuffer()) {
+            throw new IOException("EOF");
         }
+        return buffer[bufferPos++];
     }
 
     public byte[] read(int n) throws IOException {
+        if (bufferPos == bufferLimit && n > 0 && n < buffer.length && !fillBuffer()) {
+            throw new IOException("EOF");
+        }
+        int buffered = Math.min(n, bufferLimit - bufferPos);
+        if (buffered == n) {
+            byte[] bytes = Arrays.copyOfRange(buffer, bufferPos, bufferPos + n);
+            bufferPos += n;
+            return bytes;
+        }
+        // the request is larger than what is buffered, so read the remainder directly into the result
+        byte[] bytes = new byte[n];
+        System.arraycopy(buffer, bufferPos, bytes, 0, buffered);
+        long position = bufferStart + bufferPos + buffered;
         int read;
-        byte[] bytes;
         try {
-            bytes = new byte[n];
-            read = raf.read(bytes);
+            flush();
+            raf.seek(position);
+            read = raf.read(bytes, buffered, n - buffered);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
             throw e; //unreachable
         }
         if (read == -1) {
-            throw new IOException("EOF");
+            if (buffered == 0) {
+                resetBuffer(position);
+                throw new IOException("EOF");
+            }
+            read = 0;
         }
-        return Arrays.copyOfRange(bytes, 0, read);
+        resetBuffer(position + read);
+        return Arrays.copyOfRange(bytes, 0, buffered + read);
     }
 
     public void write(byte[] b) throws IOException {
+        checkWritable();
+        if (b.length < buffer.length) {
+            int written = 0;
+            while (written < b.length) {
+                if (bufferPos == buffer.length) {
+                    moveBuffer();
+                }
+                int chunk = Math.min(b.length - written, buffer.length - bufferPos);
+                System.arraycopy(b, written, buffer, bufferPos, chunk);
+                markDirty(bufferPos, bufferPos + chunk);
+                written += chunk;
+            }
+            return;
+        }
+        long position = tell();
         try {
+            flush();
+            raf.seek(position);
             raf.write(b);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         }
+        resetBuffer(position + b.length);
     }
 
     void close() throws IOException {
         try {
-            raf.close();
+            try {
+                flush();
+            } finally {
+                raf.close();
+            }
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         }
     }
+
+    private void checkWritable() throws IOException {
+        // writing to a file opened read-only fails straight away rather than when the buffer is flushed
+        if (!writable) {
+            throw new IOException("EBADF");
+        }
+    }
+
+    private void markDirty(int from, int to) {
+        if (dirtyFrom == dirtyTo) {
+            dirtyFrom = from;
+            dirtyTo = to;
+        } else {
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        }
+        bufferPos = to;
+        bufferLimit = Math.max(bufferLimit, to);
+    }
+
+    /**
+     * Writes out the dirty range of the buffer. Leaves the file pointer of the underlying file unspecified.
+     */
+    private void flush() throws IOException {
+        if (dirtyFrom != dirtyTo) {
+            raf.seek(bufferStart + dirtyFrom);
+            raf.write(buffer, dirtyFrom, dirtyTo - dirtyFrom);
+            dirtyFrom = dirtyTo = 0;
+        }
+    }
+
+    private void resetBuffer(long position) {
+        bufferStart = position;
+        bufferPos = 0;
+        bufferLimit = 0;
+    }
+
+    /**
+     * Starts an empty buffer at the current position.
+     */
+    private void moveBuffer() throws IOException {
+        long position = tell();
+        try {
+            flush();
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+        resetBuffer(position);
+    }
+
+    /**
+     * Moves the buffer to the current position and fills it from the file.
+     *
+     * @return false if the current position is at or past the end of the file.
+     */
+    private boolean fillBuffer() throws IOException {
+        moveBuffer();
+        int read;
+        try {
+            raf.seek(bufferStart);
+            read = raf.read(buffer);
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+            throw e; //unreachable
+        }
+        if (read <= 0) {
+            return false;
+        }
+        bufferLimit = read;
+        return true;
+    }
 }
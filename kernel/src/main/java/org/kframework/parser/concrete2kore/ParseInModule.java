@@ -6,6 +6,8 @@ import org.kframework.attributes.Source;
 import org.kframework.definition.Module;
 import org.kframework.kore.K;
 import org.kframework.kore.Sort;
+import org.kframework.parser.Ambiguity;
+import org.kframework.parser.HasChildren;
 import org.kframework.parser.Term;
 import org.kframework.parser.TreeNodesToKORE;
 import org.kframework.parser.concrete2kore.disambiguation.*;
@@ -47,6 +49,8 @@ public class ParseInModule implements Serializable {
      */
     private final Module parsingModule;
     private volatile Grammar grammar = null;
+    private transient volatile Scanner scanner = null;
+    private transient volatile SortBounds sortBounds = null;
     private final boolean strict;
     public ParseInModule(Module seedModule) {
         this(seedModule, seedModule, seedModule, seedModule, true);
@@ -98,9 +102,7 @@ public class ParseInModule implements Serializable {
      */
     public Tuple2<Either<Set<ParseFailedException>, K>, Set<ParseFailedException>>
             parseString(String input, Sort startSymbol, Source source) {
-        try (Scanner scanner = getScanner()) {
-            return parseString(input, startSymbol, scanner, source, 1, 1, true);
-        }
+        return parseString(input, startSymbol, getScanner(), source, 1, 1, true);
     }
 
     private Scanner getGrammar(Scanner scanner) {
@@ -112,8 +114,30 @@ public class ParseInModule implements Serializable {
         return scanner;
     }
 
+    /**
+     * Returns the scanner for this module. Scanners are immutable, so a single instance is built lazily and shared
+     * by every parse done with this object.
+     */
     public Scanner getScanner() {
-        return new Scanner(this);
+        Scanner s = scanner;
+        if (s == null) {
+            s = new Scanner(this);
+            scanner = s;
+        }
+        return s;
+    }
+
+    /**
+     * Returns the lower bounds of the sorts of the disambiguation module. They are memoized, so a single instance
+     * is built lazily and shared by every parse done with this object.
+     */
+    private SortBounds getSortBounds() {
+        SortBounds b = sortBounds;
+        if (b == null) {
+            b = new SortBounds(disambModule.subsorts(), disambModule.definedSorts());
+            sortBounds = b;
+        }
+        return b;
     }
 
     public Tuple2<Either<Set<ParseFailedException>, K>, Set<ParseFailedException>>
@@ -178,11 +202,14 @@ public class ParseInModule implements Serializable {
         rez = new PriorityVisitor(disambModule.priorities(), disambModule.leftAssoc(), disambModule.rightAssoc()).apply(rez.right().get());
         if (rez.isLeft())
             return new Tuple2<>(rez, warn);
-        Term rez3 = new PushTopAmbiguityUp().apply(rez.right().get());
+        // the passes that only act on ambiguities are skipped when the forest has none left
+        Term rez3 = rez.right().get();
+        if (hasAmbiguity(rez3))
+            rez3 = new PushTopAmbiguityUp().apply(rez3);
         rez = new ApplyTypeCheckVisitor(disambModule.subsorts()).apply(rez3);
         if (rez.isLeft())
             return new Tuple2<>(rez, warn);
-        Tuple2<Either<Set<ParseFailedException>, Term>, Set<ParseFailedException>> rez2 = new VariableTypeInferenceFilter(disambModule.subsorts(), disambModule.definedSorts(), disambModule.productionsFor(), strict && inferSortChecks, true).apply(rez.right().get());
+        Tuple2<Either<Set<ParseFailedException>, Term>, Set<ParseFailedException>> rez2 = new VariableTypeInferenceFilter(disambModule.subsorts(), getSortBounds(), disambModule.productionsFor(), strict && inferSortChecks, true).apply(rez.right().get());
         if (rez2._1().isLeft())
             return rez2;
         warn = rez2._2();
@@ -190,9 +217,14 @@ public class ParseInModule implements Serializable {
         rez = new ResolveOverloadedTerminators(disambModule.overloads()).apply(rez2._1().right().get());
         if (rez.isLeft())
             return new Tuple2<>(rez, warn);
-        rez3 = new PushAmbiguitiesDownAndPreferAvoid(disambModule.overloads()).apply(rez.right().get());
-        rez2 = new AmbFilter(strict && inferSortChecks).apply(rez3);
-        warn = Sets.union(rez2._2(), warn);
+        rez3 = rez.right().get();
+        if (hasAmbiguity(rez3)) {
+            rez3 = new PushAmbiguitiesDownAndPreferAvoid(disambModule.overloads()).apply(rez3);
+            rez2 = new AmbFilter(strict && inferSortChecks).apply(rez3);
+            warn = Sets.union(rez2._2(), warn);
+        } else {
+            rez2 = new Tuple2<>(Right.apply(rez3), warn);
+        }
         rez2 = new AddEmptyLists(disambModule).apply(rez2._1().right().get());
         warn = Sets.union(rez2._2(), warn);
         if (rez2._1().isLeft())
@@ -202,6 +234,20 @@ public class ParseInModule implements Serializable {
         return new Tuple2<>(Right.apply(rez3), warn);
     }
 
+    private static boolean hasAmbiguity(Term t) {
+        if (t instanceof Ambiguity) {
+            return true;
+        }
+        if (t instanceof HasChildren) {
+            for (Term child : ((HasChildren) t).items()) {
+                if (hasAmbiguity(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public static Term disambiguateForUnparse(Module mod, Term ambiguity) {
         Term rez3 = new PushTopAmbiguityUp().apply(ambiguity);
         Either<Set<ParseFailedException>, Term> rez = new ApplyTypeCheckVisitor(mod.subsorts()).apply(rez3);
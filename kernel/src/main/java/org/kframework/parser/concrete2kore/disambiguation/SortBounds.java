@@ -0,0 +1,109 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore.disambiguation;
+
+import com.google.common.collect.ImmutableSet;
+import org.kframework.POSet;
+import org.kframework.builtin.Sorts;
+import org.kframework.kore.Sort;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.kframework.Collections.*;
+
+/**
+ * Answers the lower bound queries of variable sort inference for one module.
+ * <p>
+ * The sorts a variable can be inferred to have are numbered once, and the sorts below each bound are kept as a
+ * {@link BitSet} over these numbers, so that the lower bounds of several sorts are the intersection of their bit
+ * sets. Results are memoized, since the same bounds come up for many variables and in every parse done with the
+ * module. Instances are safe to share between threads.
+ */
+public class SortBounds {
+
+    private final POSet<Sort> subsorts;
+    /** The declared sorts a variable can be inferred to have, by number. */
+    private final Sort[] candidates;
+
+    private final Map<Sort, BitSet> below = new ConcurrentHashMap<>();
+    private final Map<Set<Sort>, Set<Sort>> maximalLowerBounds = new ConcurrentHashMap<>();
+
+    public SortBounds(POSet<Sort> subsorts, scala.collection.Set<Sort> sortSet) {
+        this.subsorts = subsorts;
+        List<Sort> candidates = new ArrayList<>();
+        for (Sort sort : iterable(sortSet)) { // for every declared sort
+            // Sorts at or below KBott, or above K, are assumed to be
+            // sorts from kast.k representing meta-syntax that is not a real sort.
+            // This is done to prevent variables from being inferred as KBott or
+            // as KList.
+            if (subsorts.lessThanEq(sort, Sorts.KBott()))
+                continue;
+            if (subsorts.greaterThan(sort, Sorts.K()))
+                continue;
+            candidates.add(sort);
+        }
+        this.candidates = candidates.toArray(new Sort[candidates.size()]);
+    }
+
+    /**
+     * Return the set of all known sorts which are a lower bound on
+     * all sorts in {@code bounds}, leaving out internal sorts below "KBott" or above "K".
+     */
+    public Set<Sort> lowerBounds(Collection<Sort> bounds) {
+        return toSorts(lowerBoundsBits(bounds));
+    }
+
+    /**
+     * Return the maximal elements of {@link #lowerBounds(Collection)}. The set is empty if the bounds have no
+     * common lower bound.
+     */
+    public Set<Sort> maximalLowerBounds(Collection<Sort> bounds) {
+        Set<Sort> key = ImmutableSet.copyOf(bounds);
+        Set<Sort> result = maximalLowerBounds.get(key);
+        if (result == null) {
+            result = ImmutableSet.copyOf(subsorts.maximal(lowerBounds(key)));
+            maximalLowerBounds.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    private BitSet lowerBoundsBits(Collection<Sort> bounds) {
+        BitSet result = new BitSet(candidates.length);
+        result.set(0, candidates.length);
+        for (Sort bound : bounds) {
+            result.and(below(bound));
+            if (result.isEmpty())
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * @return the numbers of the candidate sorts at or below {@code bound}. The result must not be modified.
+     */
+    private BitSet below(Sort bound) {
+        BitSet result = below.get(bound);
+        if (result == null) {
+            result = new BitSet(candidates.length);
+            for (int i = 0; i < candidates.length; i++) {
+                if (subsorts.greaterThanEq(bound, candidates[i]))
+                    result.set(i);
+            }
+            below.putIfAbsent(bound, result);
+        }
+        return result;
+    }
+
+    private Set<Sort> toSorts(BitSet bits) {
+        ImmutableSet.Builder<Sort> result = ImmutableSet.builder();
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(candidates[i]);
+        }
+        return result.build();
+    }
+}
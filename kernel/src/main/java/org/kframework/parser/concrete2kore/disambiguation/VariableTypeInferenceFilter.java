@@ -48,71 +48,75 @@ public class VariableTypeInferenceFilter extends SetsGeneralTransformer<ParseFai
 
     public enum VarType { CONTEXT, USER }
     private final POSet<Sort> subsorts;
-    private final scala.collection.Set<Sort> sortSet;
+    private final SortBounds sortBounds;
     private final scala.collection.Map<KLabel, scala.collection.Set<Production>> productions;
     private final boolean inferSortChecks;
     private final boolean inferCasts;
     private Set<ParseFailedException> warnings = Sets.newHashSet();
     public VariableTypeInferenceFilter(POSet<Sort> subsorts, scala.collection.Set<Sort> sortSet, scala.collection.Map<
             KLabel, scala.collection.Set<Production>> productions, boolean inferSortChecks, boolean inferCasts) {
+        this(subsorts, new SortBounds(subsorts, sortSet), productions, inferSortChecks, inferCasts);
+    }
+
+    /**
+     * @param sortBounds the lower bounds of the sorts of the module, which can be shared by every parse in it.
+     */
+    public VariableTypeInferenceFilter(POSet<Sort> subsorts, SortBounds sortBounds, scala.collection.Map<
+            KLabel, scala.collection.Set<Production>> productions, boolean inferSortChecks, boolean inferCasts) {
         this.subsorts = subsorts;
-        this.sortSet = sortSet;
+        this.sortBounds = sortBounds;
         this.productions = productions;
         this.inferSortChecks = inferSortChecks;
         this.inferCasts = inferCasts;
     }
 
-    /** Return the set of all known sorts which are a lower bound on
-     * all sorts in {@code bounds}, leaving out internal sorts below "KBott" or above "K".
-     */
-    private Set<Sort> lowerBounds(Collection<Sort> bounds) {
-        Set<Sort> mins = new HashSet<>();
-        nextsort:
-        for (Sort sort : iterable(sortSet)) { // for every declared sort
-            // Sorts at or below KBott, or above K, are assumed to be
-            // sorts from kast.k representing meta-syntax that is not a real sort.
-            // This is done to prevent variables from being inferred as KBott or
-            // as KList.
-            if (subsorts.lessThanEq(sort, Sorts.KBott()))
-                continue;
-            if (subsorts.greaterThan(sort, Sorts.K()))
-                continue;
-            for (Sort bound : bounds)
-                if (!subsorts.greaterThanEq(bound, sort))
-                    continue nextsort;
-            mins.add(sort);
-        }
-        return mins;
-    }
-
     // When passed a mutable List {@code sets} of nonempty subsets of {@code universe},
     // returns a set containing at least one item in common with each of the sets.
     // Empties {@code sets}.
-    private <T> Set<T> hittingSet(Set<T> universe, List<Set<T>> sets) {
+    static <T> Set<T> hittingSet(Set<T> universe, List<Set<T>> sets) {
         assert sets.stream().allMatch(s -> !s.isEmpty());
+        // number the items of the universe in iteration order, so that ties go to the first item as before
+        List<T> items = new ArrayList<>(universe);
+        Map<T, Integer> indexes = new HashMap<>();
+        for (T item : items) {
+            indexes.put(item, indexes.size());
+        }
+        List<BitSet> remaining = new ArrayList<>(sets.size());
+        for (Set<T> s : sets) {
+            BitSet bits = new BitSet(items.size());
+            for (T item : s) {
+                Integer i = indexes.get(item);
+                if (i != null)
+                    bits.set(i);
+            }
+            remaining.add(bits);
+        }
+        sets.clear();
+
         Set<T> hittingSet = new HashSet<>();
-        while (!sets.isEmpty()) {
-            T maxItem = null;
-            int maxCount = 0;
-            for (T item : universe) {
-                int count = 0;
-                for (Set<T> s : sets) {
-                    if (s.contains(item)) {
-                        ++count;
-                    }
-                }
-                if (count > maxCount) {
-                    maxItem = item;
-                    maxCount = count;
+        int[] counts = new int[items.size()];
+        while (!remaining.isEmpty()) {
+            Arrays.fill(counts, 0);
+            for (BitSet s : remaining) {
+                for (int i = s.nextSetBit(0); i >= 0; i = s.nextSetBit(i + 1)) {
+                    ++counts[i];
                 }
             }
-            hittingSet.add(maxItem);
-            ListIterator<Set<T>> li = sets.listIterator();
-            while (li.hasNext()) {
-                if (li.next().contains(maxItem)) {
-                    li.remove();
+            int maxItem = -1;
+            int maxCount = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > maxCount) {
+                    maxItem = i;
+                    maxCount = counts[i];
                 }
             }
+            if (maxItem < 0) {
+                // the remaining sets have no item in the universe
+                break;
+            }
+            hittingSet.add(items.get(maxItem));
+            final int hit = maxItem;
+            remaining.removeIf(s -> s.get(hit));
         }
         return hittingSet;
     }
@@ -203,13 +207,13 @@ public class VariableTypeInferenceFilter extends SetsGeneralTransformer<ParseFai
                 Multimap<VarKey, Sort> solution = HashMultimap.create();
                 for (VarKey key : variant.keySet()) {
                     Collection<Sort> values = variant.get(key);
-                    Set<Sort> mins = lowerBounds(values);
-                    if (mins.size() == 0) {
+                    Set<Sort> maxMins = sortBounds.maximalLowerBounds(values);
+                    if (maxMins.size() == 0) {
                         fails = key;
                         solution.clear();
                         break;
                     } else {
-                        solution.putAll(key, subsorts.maximal(mins));
+                        solution.putAll(key, maxMins);
                     }
                 }
                 // I found a solution that fits everywhere, then store it for disambiguation
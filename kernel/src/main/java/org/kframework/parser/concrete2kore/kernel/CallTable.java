@@ -0,0 +1,109 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore.kernel;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open-addressing hash table keyed by a pair of a long and an int. The parser uses it to look up
+ * its call and return records by their primitive coordinates instead of allocating a key object for
+ * every lookup. Tables are cleared and reused from one parse to the next.
+ */
+final class CallTable<V> {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    /** Tables that grew beyond this capacity are released on {@link #clear()} rather than reused. */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 18;
+
+    private long[] keys1;
+    private int[] keys2;
+    private Object[] values;
+    private int size;
+
+    CallTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys1 = new long[capacity];
+        keys2 = new int[capacity];
+        values = new Object[capacity];
+        size = 0;
+    }
+
+    private static int hash(long k1, int k2) {
+        long h = k1 * 0x9E3779B97F4A7C15L + k2;
+        h ^= h >>> 32;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long k1, int k2) {
+        int mask = values.length - 1;
+        for (int i = hash(k1, k2) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys1[i] == k1 && keys2[i] == k2) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates a value with a key that is not yet in the table.
+     */
+    void put(long k1, int k2, V value) {
+        assert value != null;
+        if ((size + 1) * 2 > values.length) {
+            grow();
+        }
+        insert(k1, k2, value);
+        size++;
+    }
+
+    private void insert(long k1, int k2, Object value) {
+        int mask = values.length - 1;
+        int i = hash(k1, k2) & mask;
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys1[i] = k1;
+        keys2[i] = k2;
+        values[i] = value;
+    }
+
+    private void grow() {
+        long[] oldKeys1 = keys1;
+        int[] oldKeys2 = keys2;
+        Object[] oldValues = values;
+        int oldSize = size;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys1[i], oldKeys2[i], oldValues[i]);
+            }
+        }
+        size = oldSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (values.length > MAX_RETAINED_CAPACITY) {
+            allocate(INITIAL_CAPACITY);
+        } else if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+}
@@ -168,6 +168,14 @@ public class Grammar implements Serializable {
             }
         }
 
+        // freeze the successor relation into arrays for the parser
+        for (State s : allStates) {
+            if (s instanceof NextableState) {
+                NextableState ns = (NextableState) s;
+                ns.successors = ns.next.toArray(new State[ns.next.size()]);
+            }
+        }
+
         // compute first set of nonterminals
         for (NonTerminal nt : startNonTerminals.values()) {
             nt.nullable = nullability.isNullable(nt);
@@ -360,6 +368,8 @@ public class Grammar implements Serializable {
                 return super.add(s);
             }
         };
+        /** The contents of {@link #next} as an array. Filled in by {@link Grammar#compile(Scanner)}. */
+        State[] successors = null;
         NextableState(String name, NonTerminal nt, boolean intermediary) {
             super(name, nt);
             if (intermediary) { nt.intermediaryStates.add(this); }
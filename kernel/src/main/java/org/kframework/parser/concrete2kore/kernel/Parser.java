@@ -25,9 +25,7 @@ import org.kframework.utils.errorsystem.KException.KExceptionGroup;
 import org.kframework.utils.errorsystem.ParseFailedException;
 import org.pcollections.ConsPStack;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -40,11 +38,11 @@ import java.util.TreeSet;
  *
  * The parser operates by maintaining tables of {@link NonTerminalCall},
  * {@link StateCall} and {@link StateReturn} records. These tables are stored
- * in ParseState and are keyed by {@link NonTerminalCall.Key},
- * {@link StateCall.Key} and {@link StateReturn.Key}. For any given Key, there is
- * a single value that can be looked up in an {@link AutoVivifyingBiMap}.
- * If no value exists for a given Key, then the {@link AutoVivifyingBiMap}
- * will create one.
+ * in a {@link ParseArena} and are keyed by the primitive coordinates of each record:
+ * (nt, ntBegin), (ntCall, stateBegin, state) and (stateCall, stateEnd) respectively.
+ * For any given key, there is a single record, which the arena creates on first lookup.
+ * Arenas are pooled per thread and reset after each parse, while the {@link Grammar}
+ * itself is immutable once compiled and shared by all parses.
  *
  * In addition to these tables, a work queue of {@link StateReturn}s
  * to be processed is kept in {@link StateReturnWorkList}.
@@ -87,84 +85,48 @@ public class Parser {
 
     /**
      * A StateCall represents the fact that the parser started parsing
-     * a particular {@link State} (i.e., key.state) at a particular position
-     * (i.e., key.stateBegin) while parsing a particular {@link NonTerminalCall}
-     * (i.e., key.ntCall).
+     * a particular {@link State} (i.e., state) at a particular position
+     * (i.e., stateBegin) while parsing a particular {@link NonTerminalCall}
+     * (i.e., ntCall).
      *
      * For each StateCall, we keep track of the AST produced up to that point.
      * Since the AST produced may depend on the context in which the
      * {@link NonTerminalCall} associated with this StateCall
-     * (i.e., key.ntCall.context), we do not simply store an AST
+     * (i.e., ntCall.context), we do not simply store an AST
      * but rather a function from individual contexts.
      * This is stored in the 'function' field.
      * (See the {@link Function} class for how that is implemented).
+     *
+     * There is exactly one StateCall per (ntCall, stateBegin, state) in a parse,
+     * so StateCalls are compared by identity.
      */
     public static class StateCall {
         /** The {@link Function} storing the AST parsed so far */
         final Function function = Function.empty();
-
-        public static class Key {
-            /** The {@link NonTerminalCall} containing this StateCall */
-            final NonTerminalCall ntCall;
-            /** The start position of this StateCall */
-            final int stateBegin;
-            /** The {@link State} that this StateCall is for */
-            public final State state;
-
-            private final int hashCode;
-
-            //***************************** Start Boilerplate *****************************
-            public Key(NonTerminalCall ntCall, int stateBegin, State state) {
-                assert ntCall != null; assert state != null;
-                this.ntCall = ntCall; this.stateBegin = stateBegin; this.state = state;
-                this.hashCode = computeHash();
-            }
-
-            public StateCall create() { return new StateCall(this); }
-
-            @Override
-            public boolean equals(Object o) {
-                if (this == o) return true;
-                if (o == null || getClass() != o.getClass()) return false;
-
-                Key key = (Key) o;
-
-                if (stateBegin != key.stateBegin) return false;
-                if (!ntCall.equals(key.ntCall)) return false;
-                if (!state.equals(key.state)) return false;
-
-                return true;
-            }
-
-            @Override
-            public int hashCode() {
-                return hashCode;
-            }
-            public int computeHash() {
-                int result = ntCall.key.hashCode();
-                result = 31 * result + stateBegin;
-                result = 31 * result + state.hashCode();
-                return result;
-            }
-
-            @Override
-            public String toString() {
-                return ntCall.key.nt.name + "." + state.name + " @ "+ stateBegin;
-            }
+        /** The {@link NonTerminalCall} containing this StateCall */
+        final NonTerminalCall ntCall;
+        /** The start position of this StateCall */
+        final int stateBegin;
+        /** The {@link State} that this StateCall is for */
+        public final State state;
+        /** A number identifying this StateCall within the current parse */
+        final int id;
+
+        StateCall(NonTerminalCall ntCall, int stateBegin, State state, int id) {
+            assert ntCall != null; assert state != null;
+            this.ntCall = ntCall; this.stateBegin = stateBegin; this.state = state; this.id = id;
         }
-        public final Key key;
-        StateCall(Key key) { assert key != null; this.key = key; }
 
-        public int hashCode() {
-            return this.key.hashCode();
+        @Override
+        public String toString() {
+            return ntCall.nt.name + "." + state.name + " @ "+ stateBegin;
         }
-        //***************************** End Boilerplate *****************************
     }
 
     /**
      * A StateReturn represents the fact that the parser finished parsing
      * something that was started by a particular {@link StateCall}
-     * (i.e., key.stateCall) at a particular position (i.e. key.stateEnd).
+     * (i.e., stateCall) at a particular position (i.e. stateEnd).
      *
      * Just was with {@link StateCall}, a StateReturn stores the AST produced up to that
      * point as the 'function' field.
@@ -172,6 +134,12 @@ public class Parser {
     public static class StateReturn implements Comparable<StateReturn> {
         /** The {@link Function} storing the AST parsed so far */
         final Function function = Function.empty();
+        /** The {@link StateCall} that this StateReturn finishes */
+        public final StateCall stateCall;
+        /** The end position of the parse */
+        public final int stateEnd;
+        /** Whether this StateReturn is currently in the {@link StateReturnWorkList} */
+        private boolean queued = false;
 
         private final int[] orderingInfo = new int[5];
 
@@ -206,93 +174,31 @@ public class Parser {
             return 0;
         }
 
-        public static class Key {
-            /** The {@link StateCall} that this StateReturn finishes */
-            public final StateCall stateCall;
-            /** The end position of the parse */
-            public final int stateEnd;
-            private final int hashCode;
-            public Key(StateCall stateCall, int stateEnd) {
-                assert stateCall != null;
-                //***************************** Start Boilerplate *****************************
-                this.stateCall = stateCall; this.stateEnd = stateEnd;
-                this.hashCode = computeHash();
-            }
-
-            public StateReturn create() { return new StateReturn(this); }
-
-            @Override
-            public boolean equals(Object o) {
-                if (this == o) return true;
-                if (o == null || getClass() != o.getClass()) return false;
-
-                Key key = (Key) o;
-
-                if (stateEnd != key.stateEnd) return false;
-                if (!stateCall.equals(key.stateCall)) return false;
-
-                return true;
-            }
-
-            @Override
-            public int hashCode() {
-                return hashCode;
-            }
-
-            public int computeHash() {
-                int result = stateCall.key.hashCode();
-                result = 31 * result + stateEnd;
-                return result;
-            }
-
-            @Override
-            public String toString() {
-                return stateCall.key.toString() + "-" + stateEnd;
-            }
-        }
-
-        public final Key key;
-        StateReturn(Key key) {
-            this.key = key;
-            this.orderingInfo[0] = this.key.stateCall.key.ntCall.key.ntBegin;
-            this.orderingInfo[1] = this.key.stateEnd;
-            this.orderingInfo[2] = this.key.stateCall.key.state.orderingInfo.key;
-            this.orderingInfo[3] = this.key.stateCall.key.stateBegin;
-            this.orderingInfo[4] = this.key.stateCall.key.state.unique;
-            //// NON-BOILERPLATE CODE: ////
+        StateReturn(StateCall stateCall, int stateEnd) {
+            assert stateCall != null;
+            this.stateCall = stateCall;
+            this.stateEnd = stateEnd;
+            this.orderingInfo[0] = stateCall.ntCall.ntBegin;
+            this.orderingInfo[1] = stateEnd;
+            this.orderingInfo[2] = stateCall.state.orderingInfo.key;
+            this.orderingInfo[3] = stateCall.stateBegin;
+            this.orderingInfo[4] = stateCall.state.unique;
             // update the NonTerminalCalls set of ExitStateReturns
-            if (this.key.stateCall.key.state instanceof ExitState) {
-                this.key.stateCall.key.ntCall.exitStateReturns.add(this);
+            if (stateCall.state instanceof ExitState) {
+                stateCall.ntCall.exitStateReturns.add(this);
             }
         }
+
         @Override
-        public int hashCode() {
-            return key.hashCode;
-        }
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            StateReturn other = (StateReturn) obj;
-            if (key == null) {
-                if (other.key != null)
-                    return false;
-            } else if (!key.equals(other.key))
-                return false;
-            return true;
+        public String toString() {
+            return stateCall.toString() + "-" + stateEnd;
         }
-
-        //***************************** End Boilerplate *****************************
     }
 
     /**
      * A NonTerminalCall represents the fact that the parser needs to try parsing
-     * a particular {@link NonTerminal} (i.e., key.nt) starting at a particular position
-     * (i.e., key.ntBegin).
+     * a particular {@link NonTerminal} (i.e., nt) starting at a particular position
+     * (i.e., ntBegin).
      *
      * For each NonTerminalCall, we keep track of all {@link StateCall}
      * that triggered this NonTerminalCall (i.e., callers) so that when
@@ -302,91 +208,107 @@ public class Parser {
      * so that when a new StateCall activates this NonTerminalCall, we can notify
      * the StateCall of successful parses of this NonTerminalCall that are
      * already computed.
-     *
-     * We also keep track of all {@link StateReturn}s in this NonTerminalCall that
-     * should be added back on the work queue if we discover that this NonTerminalCall
-     * is called from a new context (i.e., reactivations).  This is used
-     * to handle context sensitivity.
      */
     private static class NonTerminalCall {
         /** The {@link StateCall}s that call this NonTerminalCall */
         final Set<StateCall> callers = new HashSet<>();
         /** The {@link StateReturn}s for the {@link ExitState} in this NonTerminalCall */
         final Set<StateReturn> exitStateReturns = new HashSet<>();
-        private static class Key {
-            /** The {@link NonTerminal} being called */
-            public final NonTerminal nt;
-            /** The start position for parsing the {@link NonTerminal} */
-            public final int ntBegin;
-            private final int hashCode;
-            //***************************** Start Boilerplate *****************************
-            public Key(NonTerminal nt, int ntBegin) {
-                assert nt != null;
-                // assert ntBegin == c.stateBegin for c in callers
-                this.nt = nt; this.ntBegin = ntBegin;
-                this.hashCode = computeHash();
-            }
-
-            public NonTerminalCall create() { return new NonTerminalCall(this); }
-
-            @Override
-            public boolean equals(Object o) {
-                if (this == o) return true;
-                if (o == null || getClass() != o.getClass()) return false;
-
-                Key key = (Key) o;
-
-                if (ntBegin != key.ntBegin) return false;
-                if (!nt.equals(key.nt)) return false;
-
-                return true;
-            }
-
-            @Override
-            public int hashCode() {
-                return hashCode;
-            }
-
-            public int computeHash() {
-                int result = nt.hashCode();
-                result = 31 * result + ntBegin;
-                return result;
-            }
-
-            @Override
-            public String toString() {
-                return nt.name + " @ " + ntBegin;
-            }
+        /** The {@link NonTerminal} being called */
+        final NonTerminal nt;
+        /** The start position for parsing the {@link NonTerminal} */
+        final int ntBegin;
+        /** A number identifying this NonTerminalCall within the current parse */
+        final int id;
+
+        NonTerminalCall(NonTerminal nt, int ntBegin, int id) {
+            assert nt != null;
+            this.nt = nt; this.ntBegin = ntBegin; this.id = id;
         }
-        final Key key;
-        NonTerminalCall(Key key) { assert key != null; this.key = key; }
 
-        public int hashCode() {
-            return this.key.hashCode();
+        @Override
+        public String toString() {
+            return nt.name + " @ " + ntBegin;
         }
-        //***************************** End Boilerplate *****************************
     }
 
     ////////////////
 
     private static class StateReturnWorkList {
-        private final HashSet<StateReturn> contains = new HashSet<>();
         private final TreeSet<StateReturn> ordering = new TreeSet<>();
         public void enqueue(StateReturn stateReturn) {
-            if (!contains.add(stateReturn)) return;
+            if (stateReturn.queued) return;
+            stateReturn.queued = true;
             ordering.add(stateReturn);
         }
-        public void addAll(Set<? extends StateReturn> c) {
-            if (!contains.addAll(c)) return;
-            ordering.addAll(c);
-        }
         public StateReturn dequeue() {
             StateReturn next = ordering.pollFirst();
-            contains.remove(next);
+            if (next != null) {
+                next.queued = false;
+            }
             return next;
         }
     }
 
+    /**
+     * The tables of {@link NonTerminalCall}, {@link StateCall} and {@link StateReturn} records of a parse.
+     * They are looked up by the primitive coordinates of the record, and are reset and reused by the next
+     * parse on the same thread once a parse finishes.
+     */
+    private static class ParseArena {
+        final CallTable<NonTerminalCall> ntCalls = new CallTable<>();
+        final CallTable<StateCall> stateCalls = new CallTable<>();
+        final CallTable<StateReturn> stateReturns = new CallTable<>();
+        boolean inUse = false;
+
+        static ParseArena acquire() {
+            ParseArena arena = arenas.get();
+            if (arena.inUse) {
+                // a parse is already running on this thread, so it keeps the pooled arena
+                arena = new ParseArena();
+            }
+            arena.inUse = true;
+            return arena;
+        }
+
+        void release() {
+            ntCalls.clear();
+            stateCalls.clear();
+            stateReturns.clear();
+            inUse = false;
+        }
+
+        NonTerminalCall ntCall(NonTerminal nt, int ntBegin) {
+            NonTerminalCall ntCall = ntCalls.get(nt.unique, ntBegin);
+            if (ntCall == null) {
+                ntCall = new NonTerminalCall(nt, ntBegin, ntCalls.size());
+                ntCalls.put(nt.unique, ntBegin, ntCall);
+            }
+            return ntCall;
+        }
+
+        StateCall stateCall(NonTerminalCall ntCall, int stateBegin, State state) {
+            long key = ((long) ntCall.id << 32) | state.unique;
+            StateCall stateCall = stateCalls.get(key, stateBegin);
+            if (stateCall == null) {
+                stateCall = new StateCall(ntCall, stateBegin, state, stateCalls.size());
+                stateCalls.put(key, stateBegin, stateCall);
+            }
+            return stateCall;
+        }
+
+        StateReturn stateReturn(StateCall stateCall, int stateEnd) {
+            StateReturn stateReturn = stateReturns.get(stateCall.id, stateEnd);
+            if (stateReturn == null) {
+                stateReturn = new StateReturn(stateCall, stateEnd);
+                stateReturns.put(stateCall.id, stateEnd, stateReturn);
+            }
+            return stateReturn;
+        }
+    }
+
+    private static final ThreadLocal<ParseArena> arenas = ThreadLocal.withInitial(ParseArena::new);
+
     /**
      * The state used internally by the parser.
      */
@@ -403,9 +325,7 @@ public class Parser {
         final int[] columns;
         private int maxPosition = 0;
         private final Source source;
-        Map<NonTerminalCall.Key, NonTerminalCall> ntCalls = new HashMap<>();
-        Map<StateCall.Key, StateCall> stateCalls = new HashMap<>();
-        Map<StateReturn.Key, StateReturn> stateReturns = new HashMap<>();
+        ParseArena arena;
 
         public ParseState(String input, Scanner scanner, Source source, int startLine, int startColumn) {
             /**
@@ -568,8 +488,17 @@ public class Parser {
      */
     public Term parse(NonTerminal nt, int position) {
         assert nt != null : "Start symbol cannot be null.";
-        activateStateCall(s.stateCalls.computeIfAbsent(new StateCall.Key(s.ntCalls.computeIfAbsent(
-            new NonTerminalCall.Key(nt, position), NonTerminalCall.Key::create), position, nt.entryState), StateCall.Key::create),
+        s.arena = ParseArena.acquire();
+        try {
+            return parseWithArena(nt, position);
+        } finally {
+            s.arena.release();
+            s.arena = null;
+        }
+    }
+
+    private Term parseWithArena(NonTerminal nt, int position) {
+        activateStateCall(s.arena.stateCall(s.arena.ntCall(nt, position), position, nt.entryState),
             Function.IDENTITY);
 
         for (StateReturn stateReturn;
@@ -578,8 +507,8 @@ public class Parser {
         }
 
         Set<Term> resultSet = new HashSet<>();
-        for(StateReturn stateReturn : s.ntCalls.computeIfAbsent(new NonTerminalCall.Key(nt, position), NonTerminalCall.Key::create).exitStateReturns) {
-            if (stateReturn.key.stateEnd == s.input.length) {
+        for(StateReturn stateReturn : s.arena.ntCall(nt, position).exitStateReturns) {
+            if (stateReturn.stateEnd == s.input.length) {
                 resultSet.add(KList.apply(ConsPStack.singleton(Ambiguity.apply(stateReturn.function.values))));
             }
         }
@@ -603,24 +532,24 @@ public class Parser {
 
     /**
      * Looks through the list of possible parses and returns the ones that got the furthest
-     * into the text.
+     * into the text. Only valid while {@link #parse(NonTerminal, int)} is running.
      * @return a {@link ParseError} object containing all the possible parses that got to the
      * maximum point in the input string.
      */
-    public ParseError getErrors() {
-        int current = 0;
-        for (StateCall.Key key : s.stateCalls.keySet()) {
-            if (key.state instanceof PrimitiveState)
-                current = Math.max(current, key.stateBegin);
-        }
-        current = Math.max(current, s.maxPosition);
+    private ParseError getErrors() {
+        int[] furthest = { s.maxPosition };
+        s.arena.stateCalls.forEach(stateCall -> {
+            if (stateCall.state instanceof PrimitiveState)
+                furthest[0] = Math.max(furthest[0], stateCall.stateBegin);
+        });
+        int current = furthest[0];
         Set<Pair<Production, RegExState>> tokens = new HashSet<>();
-        for (StateCall.Key key : s.stateCalls.keySet()) {
-            if (key.state instanceof RegExState && key.stateBegin == s.maxPosition) {
+        s.arena.stateCalls.forEach(stateCall -> {
+            if (stateCall.state instanceof RegExState && stateCall.stateBegin == s.maxPosition) {
                 tokens.add(new ImmutablePair<>(
-                    null, ((RegExState) key.state)));
+                    null, ((RegExState) stateCall.state)));
             }
-        }
+        });
         if (s.input.length == 0) {
             return new ParseError(s.source, current, s.lines[0], s.columns[0],
                     s.lines[0], s.columns[0] + 1, tokens);
@@ -666,17 +595,15 @@ public class Parser {
     // finish the process of one state return from the work list
     private void workListStep(StateReturn stateReturn) {
         if (finishStateReturn(stateReturn)) {
-            State state = stateReturn.key.stateCall.key.state;
+            State state = stateReturn.stateCall.state;
             if (state instanceof ExitState) {
-                for (StateCall stateCall : stateReturn.key.stateCall.key.ntCall.callers) {
-                    s.stateReturnWorkList.enqueue(
-                        s.stateReturns.computeIfAbsent(
-                                new StateReturn.Key(stateCall, stateReturn.key.stateEnd), StateReturn.Key::create));
+                for (StateCall stateCall : stateReturn.stateCall.ntCall.callers) {
+                    s.stateReturnWorkList.enqueue(s.arena.stateReturn(stateCall, stateReturn.stateEnd));
                 }
             } else if (state instanceof NextableState) {
-                for (State nextState : ((NextableState) state).next) {
-                    activateStateCall(s.stateCalls.computeIfAbsent(new StateCall.Key(
-                        stateReturn.key.stateCall.key.ntCall, stateReturn.key.stateEnd, nextState), StateCall.Key::create),
+                for (State nextState : ((NextableState) state).successors) {
+                    activateStateCall(s.arena.stateCall(
+                        stateReturn.stateCall.ntCall, stateReturn.stateEnd, nextState),
                         stateReturn.function);
                 }
             } else { throw unknownStateType(); }
@@ -686,41 +613,41 @@ public class Parser {
     // compute the Function for a state return based on the Function for the state call associated
     // with the state return, and the type of the state
     private boolean finishStateReturn(StateReturn stateReturn) {
-        if (stateReturn.key.stateCall.key.state instanceof EntryState) {
-            return stateReturn.function.add(stateReturn.key.stateCall.function);
-        } else if (stateReturn.key.stateCall.key.state instanceof ExitState) {
-            return stateReturn.function.add(stateReturn.key.stateCall.function);
-        } else if (stateReturn.key.stateCall.key.state instanceof PrimitiveState) {
-            return stateReturn.function.add(stateReturn.key.stateCall.function);
-        } else if (stateReturn.key.stateCall.key.state instanceof RuleState) {
+        StateCall stateCall = stateReturn.stateCall;
+        if (stateCall.state instanceof EntryState) {
+            return stateReturn.function.add(stateCall.function);
+        } else if (stateCall.state instanceof ExitState) {
+            return stateReturn.function.add(stateCall.function);
+        } else if (stateCall.state instanceof PrimitiveState) {
+            return stateReturn.function.add(stateCall.function);
+        } else if (stateCall.state instanceof RuleState) {
             int startPosition, endPosition;
-            if (stateReturn.key.stateCall.key.ntCall.key.ntBegin == s.input.length) {
+            if (stateCall.ntCall.ntBegin == s.input.length) {
                 startPosition = s.input[s.input.length - 1].endLoc;
             } else {
-                startPosition = s.input[stateReturn.key.stateCall.key.ntCall.key.ntBegin].startLoc;
+                startPosition = s.input[stateCall.ntCall.ntBegin].startLoc;
             }
-            if (stateReturn.key.stateEnd == 0) {
+            if (stateReturn.stateEnd == 0) {
                 endPosition = s.input[0].startLoc;
             } else {
-                endPosition = s.input[stateReturn.key.stateEnd - 1].endLoc;
+                endPosition = s.input[stateReturn.stateEnd - 1].endLoc;
             }
-            return stateReturn.function.addRule(stateReturn.key.stateCall.function,
-                ((RuleState) stateReturn.key.stateCall.key.state).rule, stateReturn,
+            return stateReturn.function.addRule(stateCall.function,
+                ((RuleState) stateCall.state).rule, stateReturn,
                 new Rule.MetaData(s.source,
                     new Rule.MetaData.Location(startPosition, s.lines[startPosition], s.columns[startPosition]),
                     new Rule.MetaData.Location(endPosition, s.lines[endPosition], s.columns[endPosition]),
                     s.originalInput));
-        } else if (stateReturn.key.stateCall.key.state instanceof NonTerminalState) {
+        } else if (stateCall.state instanceof NonTerminalState) {
+            NonTerminal child = ((NonTerminalState) stateCall.state).child;
             return stateReturn.function.addNTCall(
-                stateReturn.key.stateCall.function,
-                s.stateReturns.computeIfAbsent(new StateReturn.Key(
-                    s.stateCalls.computeIfAbsent(new StateCall.Key(
-                        s.ntCalls.computeIfAbsent(new NonTerminalCall.Key(
-                                ((Grammar.NonTerminalState) stateReturn.key.stateCall.key.state).child,
-                                stateReturn.key.stateCall.key.stateBegin), NonTerminalCall.Key::create),
-                        stateReturn.key.stateEnd,
-                        ((Grammar.NonTerminalState) stateReturn.key.stateCall.key.state).child.exitState), StateCall.Key::create),
-                    stateReturn.key.stateEnd), StateReturn.Key::create).function);
+                stateCall.function,
+                s.arena.stateReturn(
+                    s.arena.stateCall(
+                        s.arena.ntCall(child, stateCall.stateBegin),
+                        stateReturn.stateEnd,
+                        child.exitState),
+                    stateReturn.stateEnd).function);
         } else { throw unknownStateType(); }
     }
 
@@ -728,41 +655,33 @@ public class Parser {
     // also put state return in the queue if need be
     private void activateStateCall(StateCall stateCall, Function function) {
         if (!stateCall.function.add(function)) { return; }
-        State nextState = stateCall.key.state;
+        State nextState = stateCall.state;
         // These types of states
         if (nextState instanceof EntryState ||
             nextState instanceof ExitState ||
             nextState instanceof RuleState) {
-            s.stateReturnWorkList.enqueue(
-                s.stateReturns.computeIfAbsent(
-                    new StateReturn.Key(stateCall, stateCall.key.stateBegin), StateReturn.Key::create));
+            s.stateReturnWorkList.enqueue(s.arena.stateReturn(stateCall, stateCall.stateBegin));
         } else if (nextState instanceof PrimitiveState) {
-            if (((PrimitiveState)nextState).matches(s.input, stateCall.key.stateBegin)) {
-                s.stateReturnWorkList.enqueue(
-                    s.stateReturns.computeIfAbsent(
-                            new StateReturn.Key(stateCall, stateCall.key.stateBegin + 1), StateReturn.Key::create));
+            if (((PrimitiveState)nextState).matches(s.input, stateCall.stateBegin)) {
+                s.stateReturnWorkList.enqueue(s.arena.stateReturn(stateCall, stateCall.stateBegin + 1));
             }
         // not instanceof SimpleState
         } else if (nextState instanceof NonTerminalState) {
             // add to the ntCall
             NonTerminal nt = ((NonTerminalState)nextState).child;
-            if (nt.nullable() || (stateCall.key.stateBegin < s.input.length && nt.lookahead(s.input[stateCall.key.stateBegin].kind))) {
-                NonTerminalCall ntCall = s.ntCalls.computeIfAbsent(new NonTerminalCall.Key(
-                        nt, stateCall.key.stateBegin), NonTerminalCall.Key::create);
+            if (nt.nullable() || (stateCall.stateBegin < s.input.length && nt.lookahead(s.input[stateCall.stateBegin].kind))) {
+                NonTerminalCall ntCall = s.arena.ntCall(nt, stateCall.stateBegin);
                 ntCall.callers.add(stateCall);
                 // activate the entry state call (almost like activateStateCall but we have no stateReturn)
-                StateCall entryStateCall = s.stateCalls.computeIfAbsent(new StateCall.Key(
-                        ntCall, stateCall.key.stateBegin, ntCall.key.nt.entryState), StateCall.Key::create);
+                StateCall entryStateCall = s.arena.stateCall(ntCall, stateCall.stateBegin, ntCall.nt.entryState);
                 activateStateCall(entryStateCall, Function.IDENTITY);
                 // process existStateReturns already done in the ntCall
                 for (StateReturn exitStateReturn : ntCall.exitStateReturns) {
-                    s.stateReturnWorkList.enqueue(
-                            s.stateReturns.computeIfAbsent(
-                                    new StateReturn.Key(stateCall, exitStateReturn.key.stateEnd), StateReturn.Key::create));
+                    s.stateReturnWorkList.enqueue(s.arena.stateReturn(stateCall, exitStateReturn.stateEnd));
                 }
             } else {
                 // we don't create an entry in the map for this statecall, so we need to track its location another way.
-                s.maxPosition = Math.max(s.maxPosition, stateCall.key.stateBegin);
+                s.maxPosition = Math.max(s.maxPosition, stateCall.stateBegin);
             }
         } else { throw unknownStateType(); }
     }
@@ -0,0 +1,660 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore.kernel;
+
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A deterministic finite automaton over UTF-8 bytes, compiled from an ordered list of flex-style
+ * regular expressions and literal strings. This replaces the generated flex scanner that used to
+ * run as an external process.
+ *
+ * Matching follows the flex rules: the longest match wins, and among matches of the same length the
+ * rule that was added first wins. The automaton is immutable once built and can be shared between
+ * any number of threads.
+ */
+final class ScannerAutomaton {
+
+    /** Maps each byte value to its equivalence class. */
+    private final int[] byteClass;
+    private final int numClasses;
+    /** Row-major transition table indexed by {@code state * numClasses + class}; -1 is the dead state. */
+    private final int[] transitions;
+    /** The rule accepted by each state, or -1 if the state is not accepting. */
+    private final int[] accept;
+
+    private ScannerAutomaton(int[] byteClass, int numClasses, int[] transitions, int[] accept) {
+        this.byteClass = byteClass;
+        this.numClasses = numClasses;
+        this.transitions = transitions;
+        this.accept = accept;
+    }
+
+    /**
+     * Finds the longest non-empty match starting at {@code start}.
+     *
+     * @return -1 if no rule matches; otherwise the end offset (exclusive) in the upper 32 bits and
+     * the matching rule in the lower 32 bits.
+     */
+    long longestMatch(byte[] input, int start) {
+        int state = 0;
+        int lastEnd = -1;
+        int lastRule = -1;
+        for (int pos = start; pos < input.length; pos++) {
+            state = transitions[state * numClasses + byteClass[input[pos] & 0xff]];
+            if (state < 0) {
+                break;
+            }
+            if (accept[state] >= 0) {
+                lastEnd = pos + 1;
+                lastRule = accept[state];
+            }
+        }
+        if (lastEnd < 0) {
+            return -1;
+        }
+        return ((long) lastEnd << 32) | lastRule;
+    }
+
+    int numStates() {
+        return accept.length;
+    }
+
+    static class Builder {
+        private final List<Node> rules = new ArrayList<>();
+
+        /**
+         * Adds a rule matching a flex regular expression.
+         *
+         * @return the index of the rule.
+         */
+        int addRegex(String regex) {
+            rules.add(new RegexParser(regex).parse());
+            return rules.size() - 1;
+        }
+
+        /**
+         * Adds a rule matching the UTF-8 encoding of {@code value} literally.
+         *
+         * @return the index of the rule.
+         */
+        int addLiteral(String value) {
+            rules.add(literal(value.getBytes(StandardCharsets.UTF_8)));
+            return rules.size() - 1;
+        }
+
+        ScannerAutomaton build() {
+            NfaState start = new NfaState();
+            for (int i = 0; i < rules.size(); i++) {
+                NfaState[] frag = rules.get(i).compile();
+                NfaState end = new NfaState();
+                end.rule = i;
+                start.eps.add(frag[0]);
+                frag[1].eps.add(end);
+            }
+            List<NfaState> states = number(start);
+            int[] byteClass = new int[256];
+            int numClasses = computeByteClasses(states, byteClass);
+            int[] representative = new int[numClasses];
+            for (int b = 255; b >= 0; b--) {
+                representative[byteClass[b]] = b;
+            }
+
+            Map<BitSet, Integer> dfaStates = new HashMap<>();
+            List<BitSet> worklist = new ArrayList<>();
+            BitSet initial = closure(single(start), states);
+            dfaStates.put(initial, 0);
+            worklist.add(initial);
+            int[] transitions = new int[numClasses * 16];
+            List<Integer> accept = new ArrayList<>();
+            for (int current = 0; current < worklist.size(); current++) {
+                BitSet set = worklist.get(current);
+                accept.add(acceptingRule(set, states));
+                if (transitions.length < (current + 1) * numClasses) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                }
+                for (int c = 0; c < numClasses; c++) {
+                    BitSet next = move(set, representative[c], states);
+                    int target;
+                    if (next.isEmpty()) {
+                        target = -1;
+                    } else {
+                        next = closure(next, states);
+                        Integer existing = dfaStates.get(next);
+                        if (existing == null) {
+                            target = worklist.size();
+                            dfaStates.put(next, target);
+                            worklist.add(next);
+                        } else {
+                            target = existing;
+                        }
+                    }
+                    transitions[current * numClasses + c] = target;
+                }
+            }
+            return new ScannerAutomaton(byteClass, numClasses,
+                    Arrays.copyOf(transitions, worklist.size() * numClasses),
+                    accept.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static List<NfaState> number(NfaState start) {
+            List<NfaState> states = new ArrayList<>();
+            Deque<NfaState> stack = new ArrayDeque<>();
+            start.id = 0;
+            states.add(start);
+            stack.push(start);
+            while (!stack.isEmpty()) {
+                NfaState s = stack.pop();
+                List<NfaState> succ = new ArrayList<>(s.eps);
+                if (s.out != null) {
+                    succ.add(s.out);
+                }
+                for (NfaState t : succ) {
+                    if (t.id < 0) {
+                        t.id = states.size();
+                        states.add(t);
+                        stack.push(t);
+                    }
+                }
+            }
+            return states;
+        }
+
+        /**
+         * Partitions the byte values into classes that no character set in the automaton distinguishes.
+         */
+        private static int computeByteClasses(List<NfaState> states, int[] byteClass) {
+            Set<BitSet> sets = new LinkedHashSet<>();
+            for (NfaState s : states) {
+                if (s.chars != null) {
+                    sets.add(s.chars);
+                }
+            }
+            int numClasses = 1;
+            for (BitSet set : sets) {
+                Map<Integer, Integer> split = new HashMap<>();
+                int[] refined = new int[256];
+                int next = 0;
+                for (int b = 0; b < 256; b++) {
+                    int key = byteClass[b] * 2 + (set.get(b) ? 1 : 0);
+                    Integer cls = split.get(key);
+                    if (cls == null) {
+                        cls = next++;
+                        split.put(key, cls);
+                    }
+                    refined[b] = cls;
+                }
+                System.arraycopy(refined, 0, byteClass, 0, 256);
+                numClasses = next;
+            }
+            return numClasses;
+        }
+
+        private static BitSet single(NfaState s) {
+            BitSet set = new BitSet();
+            set.set(s.id);
+            return set;
+        }
+
+        private static BitSet closure(BitSet set, List<NfaState> states) {
+            BitSet result = (BitSet) set.clone();
+            Deque<NfaState> stack = new ArrayDeque<>();
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                stack.push(states.get(i));
+            }
+            while (!stack.isEmpty()) {
+                for (NfaState t : stack.pop().eps) {
+                    if (!result.get(t.id)) {
+                        result.set(t.id);
+                        stack.push(t);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private static BitSet move(BitSet set, int b, List<NfaState> states) {
+            BitSet result = new BitSet();
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                NfaState s = states.get(i);
+                if (s.chars != null && s.chars.get(b)) {
+                    result.set(s.out.id);
+                }
+            }
+            return result;
+        }
+
+        private static int acceptingRule(BitSet set, List<NfaState> states) {
+            int rule = -1;
+            for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+                int r = states.get(i).rule;
+                if (r >= 0 && (rule < 0 || r < rule)) {
+                    rule = r;
+                }
+            }
+            return rule;
+        }
+    }
+
+    private static class NfaState {
+        int id = -1;
+        int rule = -1;
+        BitSet chars;
+        NfaState out;
+        final List<NfaState> eps = new ArrayList<>(2);
+    }
+
+    /**
+     * A node in the abstract syntax of a regular expression. {@link #compile()} produces a fresh
+     * Thompson NFA fragment on every call, so nodes can be instantiated several times by bounded
+     * repetitions.
+     */
+    private static abstract class Node {
+        /** @return the start and end states of a new fragment. */
+        abstract NfaState[] compile();
+    }
+
+    private static class CharSetNode extends Node {
+        final BitSet chars;
+
+        CharSetNode(BitSet chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        NfaState[] compile() {
+            NfaState start = new NfaState();
+            NfaState end = new NfaState();
+            start.chars = chars;
+            start.out = end;
+            return new NfaState[] {start, end};
+        }
+    }
+
+    private static class SeqNode extends Node {
+        final List<Node> items;
+
+        SeqNode(List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        NfaState[] compile() {
+            NfaState start = new NfaState();
+            NfaState end = start;
+            for (Node item : items) {
+                NfaState[] frag = item.compile();
+                end.eps.add(frag[0]);
+                end = frag[1];
+            }
+            return new NfaState[] {start, end};
+        }
+    }
+
+    private static class AltNode extends Node {
+        final List<Node> alternatives;
+
+        AltNode(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        NfaState[] compile() {
+            NfaState start = new NfaState();
+            NfaState end = new NfaState();
+            for (Node alt : alternatives) {
+                NfaState[] frag = alt.compile();
+                start.eps.add(frag[0]);
+                frag[1].eps.add(end);
+            }
+            return new NfaState[] {start, end};
+        }
+    }
+
+    /** Matches between {@code min} and {@code max} repetitions of a node; a negative max is unbounded. */
+    private static class RepeatNode extends Node {
+        final Node item;
+        final int min;
+        final int max;
+
+        RepeatNode(Node item, int min, int max) {
+            this.item = item;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        NfaState[] compile() {
+            NfaState start = new NfaState();
+            NfaState end = start;
+            for (int i = 0; i < min; i++) {
+                NfaState[] frag = item.compile();
+                end.eps.add(frag[0]);
+                end = frag[1];
+            }
+            if (max < 0) {
+                NfaState[] frag = item.compile();
+                NfaState loopEnd = new NfaState();
+                end.eps.add(frag[0]);
+                end.eps.add(loopEnd);
+                frag[1].eps.add(frag[0]);
+                frag[1].eps.add(loopEnd);
+                end = loopEnd;
+            } else {
+                NfaState last = new NfaState();
+                for (int i = min; i < max; i++) {
+                    NfaState[] frag = item.compile();
+                    end.eps.add(frag[0]);
+                    end.eps.add(last);
+                    end = frag[1];
+                }
+                end.eps.add(last);
+                end = last;
+            }
+            return new NfaState[] {start, end};
+        }
+    }
+
+    private static Node literal(byte[] bytes) {
+        List<Node> items = new ArrayList<>();
+        for (byte b : bytes) {
+            items.add(new CharSetNode(singleton(b & 0xff)));
+        }
+        return new SeqNode(items);
+    }
+
+    private static BitSet singleton(int b) {
+        BitSet set = new BitSet(256);
+        set.set(b);
+        return set;
+    }
+
+    /**
+     * Parses the subset of the flex pattern syntax that K regular expression terminals use: literal
+     * characters and escapes, quoted strings, character classes (including POSIX classes and
+     * negation), {@code .}, grouping, alternation, and the {@code * + ?} and {@code {n,m}} operators.
+     * Like flex, the parser works on the bytes of the pattern, so multi-byte characters match their
+     * UTF-8 encoding. Trailing context, anchors and named definitions are rejected.
+     */
+    private static class RegexParser {
+        private final String regex;
+        private final byte[] pattern;
+        private int pos;
+
+        RegexParser(String regex) {
+            this.regex = regex;
+            this.pattern = regex.getBytes(StandardCharsets.UTF_8);
+        }
+
+        Node parse() {
+            if (pattern.length > 0 && pattern[0] == '^') {
+                throw unsupported("beginning-of-line anchors");
+            }
+            Node result = parseAlt();
+            if (pos < pattern.length) {
+                throw error("unbalanced ')'");
+            }
+            return result;
+        }
+
+        private Node parseAlt() {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseSeq());
+            while (pos < pattern.length && pattern[pos] == '|') {
+                pos++;
+                alternatives.add(parseSeq());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new AltNode(alternatives);
+        }
+
+        private Node parseSeq() {
+            List<Node> items = new ArrayList<>();
+            while (pos < pattern.length && pattern[pos] != '|' && pattern[pos] != ')') {
+                items.add(parsePostfix(parseAtom()));
+            }
+            return items.size() == 1 ? items.get(0) : new SeqNode(items);
+        }
+
+        private Node parsePostfix(Node atom) {
+            while (pos < pattern.length) {
+                switch (pattern[pos]) {
+                case '*':
+                    pos++;
+                    atom = new RepeatNode(atom, 0, -1);
+                    break;
+                case '+':
+                    pos++;
+                    atom = new RepeatNode(atom, 1, -1);
+                    break;
+                case '?':
+                    pos++;
+                    atom = new RepeatNode(atom, 0, 1);
+                    break;
+                case '{':
+                    if (pos + 1 >= pattern.length || !isDigit(pattern[pos + 1])) {
+                        throw unsupported("named definitions");
+                    }
+                    pos++;
+                    int min = parseNumber();
+                    int max = min;
+                    if (pattern[pos] == ',') {
+                        pos++;
+                        max = isDigit(peek()) ? parseNumber() : -1;
+                    }
+                    expect('}');
+                    if (max >= 0 && max < min) {
+                        throw error("bad repetition bounds");
+                    }
+                    atom = new RepeatNode(atom, min, max);
+                    break;
+                default:
+                    return atom;
+                }
+            }
+            return atom;
+        }
+
+        private Node parseAtom() {
+            int c = pattern[pos++] & 0xff;
+            switch (c) {
+            case '(':
+                Node inner = parseAlt();
+                expect(')');
+                return inner;
+            case '[':
+                return new CharSetNode(parseClass());
+            case '.':
+                BitSet dot = new BitSet(256);
+                dot.set(0, 256);
+                dot.clear('\n');
+                return new CharSetNode(dot);
+            case '"':
+                List<Node> items = new ArrayList<>();
+                while (peek() != '"') {
+                    if (pos >= pattern.length) {
+                        throw error("unterminated string");
+                    }
+                    items.add(new CharSetNode(singleton(parseChar())));
+                }
+                pos++;
+                return new SeqNode(items);
+            case '{':
+                if (Character.isLetter(peek())) {
+                    throw unsupported("named definitions");
+                }
+                return new CharSetNode(singleton(c));
+            case '/':
+                throw unsupported("trailing context");
+            case '$':
+                if (pos == pattern.length) {
+                    throw unsupported("end-of-line anchors");
+                }
+                return new CharSetNode(singleton(c));
+            case '\\':
+                pos--;
+                return new CharSetNode(singleton(parseChar()));
+            default:
+                return new CharSetNode(singleton(c));
+            }
+        }
+
+        private BitSet parseClass() {
+            BitSet set = new BitSet(256);
+            boolean negate = false;
+            if (peek() == '^') {
+                negate = true;
+                pos++;
+            }
+            boolean first = true;
+            while (first || peek() != ']') {
+                if (pos >= pattern.length) {
+                    throw error("unterminated character class");
+                }
+                first = false;
+                if (peek() == '[' && pos + 1 < pattern.length && pattern[pos + 1] == ':') {
+                    parsePosixClass(set);
+                    continue;
+                }
+                int lo = parseChar();
+                if (peek() == '-' && pos + 1 < pattern.length && pattern[pos + 1] != ']') {
+                    pos++;
+                    int hi = parseChar();
+                    if (hi < lo) {
+                        throw error("negative range in character class");
+                    }
+                    set.set(lo, hi + 1);
+                } else {
+                    set.set(lo);
+                }
+            }
+            pos++;
+            if (negate) {
+                set.flip(0, 256);
+            }
+            return set;
+        }
+
+        private void parsePosixClass(BitSet set) {
+            String rest = new String(pattern, pos, pattern.length - pos, StandardCharsets.UTF_8);
+            int close = rest.indexOf(":]");
+            if (close < 0) {
+                throw error("unterminated character class expression");
+            }
+            String name = rest.substring(2, close);
+            pos += close + 2;
+            for (int b = 0; b < 128; b++) {
+                char ch = (char) b;
+                boolean member;
+                switch (name) {
+                case "alnum": member = Character.isLetterOrDigit(ch); break;
+                case "alpha": member = Character.isLetter(ch); break;
+                case "blank": member = ch == ' ' || ch == '\t'; break;
+                case "cntrl": member = b < 32 || b == 127; break;
+                case "digit": member = Character.isDigit(ch); break;
+                case "graph": member = b > 32 && b < 127; break;
+                case "lower": member = Character.isLowerCase(ch); break;
+                case "print": member = b >= 32 && b < 127; break;
+                case "punct": member = b > 32 && b < 127 && !Character.isLetterOrDigit(ch); break;
+                case "space": member = ch == ' ' || (b >= 9 && b <= 13); break;
+                case "upper": member = Character.isUpperCase(ch); break;
+                case "xdigit": member = Character.digit(ch, 16) >= 0; break;
+                default: throw error("unknown character class expression [:" + name + ":]");
+                }
+                if (member) {
+                    set.set(b);
+                }
+            }
+        }
+
+        /** Parses a single, possibly escaped, byte with the same escapes flex accepts. */
+        private int parseChar() {
+            int c = pattern[pos++] & 0xff;
+            if (c != '\\') {
+                return c;
+            }
+            if (pos >= pattern.length) {
+                throw error("trailing backslash");
+            }
+            c = pattern[pos++] & 0xff;
+            switch (c) {
+            case 'a': return 7;
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'v': return 11;
+            case 'x': {
+                int value = 0;
+                int digits = 0;
+                while (digits < 2 && pos < pattern.length && Character.digit(pattern[pos], 16) >= 0) {
+                    value = value * 16 + Character.digit(pattern[pos++], 16);
+                    digits++;
+                }
+                if (digits == 0) {
+                    return 'x';
+                }
+                return value;
+            }
+            default:
+                if (c >= '0' && c <= '7') {
+                    int value = c - '0';
+                    int digits = 1;
+                    while (digits < 3 && pos < pattern.length && pattern[pos] >= '0' && pattern[pos] <= '7') {
+                        value = value * 8 + (pattern[pos++] - '0');
+                        digits++;
+                    }
+                    return value & 0xff;
+                }
+                return c;
+            }
+        }
+
+        private int parseNumber() {
+            int start = pos;
+            while (isDigit(peek())) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a number");
+            }
+            return Integer.parseInt(new String(pattern, start, pos - start, StandardCharsets.US_ASCII));
+        }
+
+        private int peek() {
+            return pos < pattern.length ? pattern[pos] & 0xff : -1;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private static boolean isDigit(int c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private KEMException error(String message) {
+            return KEMException.compilerError("Invalid regular expression in token declaration: " + message
+                    + " at offset " + pos + " in " + regex);
+        }
+
+        private KEMException unsupported(String feature) {
+            return KEMException.compilerError("Regular expressions in token declarations do not support "
+                    + feature + ": " + regex);
+        }
+    }
+}
@@ -13,6 +13,8 @@ import org.kframework.parser.TermCons;
 import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.ColorUtil;
 
+import java.io.Writer;
+
 import static org.kframework.Collections.*;
 import static org.fusesource.jansi.Ansi.*;
 
@@ -30,6 +32,15 @@ public class Formatter {
         return indenter.toString();
     }
 
+    /**
+     * Formats {@code term} to {@code out} as the text is produced.
+     */
+    public static void format(Term term, ColorSetting colorize, Writer out) {
+        Indenter indenter = new Indenter(2, out);
+        format(term, indenter, colorize);
+        indenter.flush();
+    }
+
     public static void format(Term term, Indenter indenter, ColorSetting colorize) {
         int indent = 0;
         if (term instanceof Constant) {
@@ -2,28 +2,73 @@
 
 package org.kframework.unparser;
 
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Collects indented text. The text is kept in memory, or written in chunks to a {@link Writer} as it is produced,
+ * so that large outputs are never held in memory as a whole.
+ */
 public class Indenter implements Appendable {
+    private static final int CHUNK_SIZE = 1 << 16;
+
     private final int indentSize;
     private int indentationLevel = 0;
     private boolean atNewLine = true;
     private final StringBuilder sb = new StringBuilder();
+    private final Writer out;
 
     public Indenter(int indentSize) {
+        this(indentSize, null);
+    }
+
+    /**
+     * @param out the writer the text is written to, or null to keep it in memory. Call {@link #flush()} once the
+     *            text is complete.
+     */
+    public Indenter(int indentSize, Writer out) {
         this.indentSize = indentSize;
+        this.out = out;
     }
 
     public Indenter append(CharSequence str) {
         printIndent();
         sb.append(str);
+        writeChunk();
         return this;
     }
 
     public Indenter append(CharSequence str, int start, int end) {
         printIndent();
         sb.append(str, start, end);
+        writeChunk();
         return this;
     }
 
+    private void writeChunk() {
+        if (out != null && sb.length() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the text appended so far to the writer of this indenter, if it has one.
+     */
+    public void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.append(sb);
+            out.flush();
+        } catch (IOException e) {
+            throw KEMException.internalError(e.getMessage(), e);
+        }
+        sb.setLength(0);
+    }
+
     private void printIndent() {
         if (atNewLine) {
             for (int i = 0; i < indentSize * indentationLevel; i++) {
@@ -57,6 +102,7 @@ public class Indenter implements Appendable {
     public Indenter append(char c) {
         printIndent();
         sb.append(c);
+        writeChunk();
         return this;
     }
 }
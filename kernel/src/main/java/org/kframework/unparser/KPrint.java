@@ -17,6 +17,7 @@ import org.kframework.kore.Sort;
 import org.kframework.kore.TransformK;
 import org.kframework.main.GlobalOptions;
 import org.kframework.parser.ProductionReference;
+import org.kframework.parser.Term;
 import org.kframework.parser.concrete2kore.generator.RuleGrammarGenerator;
 import org.kframework.parser.concrete2kore.ParseInModule;
 import org.kframework.utils.errorsystem.KEMException;
@@ -25,12 +26,17 @@ import org.kframework.utils.file.FileUtil;
 import org.kframework.utils.file.TTYInfo;
 import scala.Tuple2;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -52,6 +58,14 @@ public class KPrint {
 
     public final PrintOptions options;
 
+    /** The number of modules whose unparsing grammars are kept. The least recently used ones are dropped. */
+    private static final int MAXIMUM_CACHED_MODULES = 16;
+
+    // unparsing grammars are built once per module rather than once per printed term
+    private final Map<Module, Module> extensionModules = lruCache();
+    private final Map<Module, Tuple2<Definition, Module>> programsModules = lruCache();
+    private final Map<Module, Unparser> unparsers = lruCache();
+
     public KPrint() {
         this(new KExceptionManager(new GlobalOptions()), FileUtil.testFileUtil(), new TTYInfo(false, false, false), new PrintOptions(), new KompileOptions());
     }
@@ -107,34 +121,65 @@ public class KPrint {
     }
 
     public byte[] prettyPrint(Definition def, Module module, K orig, ColorSetting colorize, OutputModes outputMode) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        prettyPrint(def, module, orig, colorize, outputMode, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Pretty prints {@code result} to the output file if one was given, and to {@code out} otherwise.
+     * The output is written as it is produced rather than built in memory first.
+     */
+    public void prettyPrintToOutput(Definition def, Module module, K result, OutputStream out) {
+        ColorSetting colorize = options.color(tty.stdout, files.getEnv());
+        if (options.outputFile == null) {
+            prettyPrint(def, module, result, colorize, options.output, out);
+        } else {
+            files.saveToWorkingDirectory(options.outputFile,
+                    fileOut -> prettyPrint(def, module, result, colorize, options.output, fileOut));
+        }
+    }
+
+    public void prettyPrint(Definition def, Module module, K orig, ColorSetting colorize, OutputModes outputMode, OutputStream out) {
         switch (outputMode) {
             case KAST:
             case NONE:
             case BINARY:
             case JSON:
             case PRETTY:
-                return prettyPrint(module, orig, colorize, outputMode);
+                prettyPrint(module, orig, colorize, outputMode, out);
+                return;
             case PROGRAM: {
                 K result = abstractTerm(module, orig);
-                RuleGrammarGenerator gen = new RuleGrammarGenerator(def);
-                Module unparsingModule = RuleGrammarGenerator.getCombinedGrammar(gen.getProgramsGrammar(module), false).getParsingModule();
-                return (unparseTerm(result, unparsingModule, colorize) + "\n").getBytes();
+                unparser(programsModule(def, module)).unparse(result, out);
+                return;
             } default:
                 throw KEMException.criticalError("Unsupported output mode: " + outputMode);
         }
     }
 
     public byte[] prettyPrint(Module module, K orig, ColorSetting colorize, OutputModes outputMode) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        prettyPrint(module, orig, colorize, outputMode, out);
+        return out.toByteArray();
+    }
+
+    public void prettyPrint(Module module, K orig, ColorSetting colorize, OutputModes outputMode, OutputStream out) {
         K result = abstractTerm(module, orig);
         switch (outputMode) {
             case KAST:
             case NONE:
             case BINARY:
             case JSON:
-                return serialize(result, outputMode);
+                try {
+                    out.write(serialize(result, outputMode));
+                } catch (IOException e) {
+                    throw KEMException.internalError(e.getMessage(), e);
+                }
+                return;
             case PRETTY: {
-                Module unparsingModule = RuleGrammarGenerator.getCombinedGrammar(module, false).getExtensionModule();
-                return (unparseTerm(result, unparsingModule, colorize) + "\n").getBytes();
+                unparser(extensionModule(module)).unparse(result, out);
+                return;
             } default:
                 throw KEMException.criticalError("Unsupported output mode without a Definition: " + outputMode);
         }
@@ -164,13 +209,73 @@ public class KPrint {
     }
 
     public String unparseTerm(K input, Module test, ColorSetting colorize) {
-        return unparseInternal(test, input, colorize);
+        return unparser(test).unparse(input);
+    }
+
+    private static <A, B> Map<A, B> lruCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<A, B>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<A, B> eldest) {
+                return size() > MAXIMUM_CACHED_MODULES;
+            }
+        });
+    }
+
+    private Module extensionModule(Module mod) {
+        return extensionModules.computeIfAbsent(mod, m -> RuleGrammarGenerator.getCombinedGrammar(m, false).getExtensionModule());
     }
 
-    private String unparseInternal(Module mod, K input, ColorSetting colorize) {
-        ExpandMacros expandMacros = new ExpandMacros(mod, files, kompileOptions, true);
-        return Formatter.format(
-                new AddBrackets(mod).addBrackets((ProductionReference) ParseInModule.disambiguateForUnparse(mod, KOREToTreeNodes.apply(KOREToTreeNodes.up(mod, expandMacros.expand(input)), mod))), options.color(tty.stdout, files.getEnv()));
+    private Module programsModule(Definition def, Module mod) {
+        Tuple2<Definition, Module> cached = programsModules.get(mod);
+        if (cached == null || cached._1() != def) {
+            RuleGrammarGenerator gen = new RuleGrammarGenerator(def);
+            cached = Tuple2.apply(def, RuleGrammarGenerator.getCombinedGrammar(gen.getProgramsGrammar(mod), false).getParsingModule());
+            programsModules.put(mod, cached);
+        }
+        return cached._2();
+    }
+
+    private Unparser unparser(Module mod) {
+        return unparsers.computeIfAbsent(mod, Unparser::new);
+    }
+
+    /**
+     * Unparses terms with the grammar of one module. The macros and the bracket tables of the module are computed
+     * once and shared by every term unparsed with it. Each term gets its own {@link ExpandMacros}, since the names of
+     * the variables it generates depend on what it expanded before.
+     */
+    private class Unparser {
+        private final Module mod;
+        private final ExpandMacros expandMacros;
+        private final AddBrackets addBrackets;
+
+        Unparser(Module mod) {
+            this.mod = mod;
+            this.expandMacros = new ExpandMacros(mod, files, kompileOptions, true);
+            this.addBrackets = new AddBrackets(mod);
+        }
+
+        private Term format(K input) {
+            return addBrackets.addBrackets((ProductionReference) ParseInModule.disambiguateForUnparse(mod, KOREToTreeNodes.apply(KOREToTreeNodes.up(mod, expandMacros.fresh().expand(input)), mod)));
+        }
+
+        String unparse(K input) {
+            return Formatter.format(format(input), options.color(tty.stdout, files.getEnv()));
+        }
+
+        /**
+         * Writes the unparsed term to {@code out} as it is produced, followed by a newline.
+         */
+        void unparse(K input, OutputStream out) {
+            Writer writer = new OutputStreamWriter(out);
+            Formatter.format(format(input), options.color(tty.stdout, files.getEnv()), writer);
+            try {
+                writer.write("\n");
+                writer.flush();
+            } catch (IOException e) {
+                throw KEMException.internalError(e.getMessage(), e);
+            }
+        }
     }
 
     public K abstractTerm(Module mod, K term) {
@@ -184,19 +289,19 @@ public class KPrint {
     }
 
     private K sortCollections(Module mod, K input) {
-        Module unparsingModule = RuleGrammarGenerator.getCombinedGrammar(mod, false).getExtensionModule();
+        Unparser unparser = unparser(extensionModule(mod));
         return new TransformK() {
             @Override
             public K apply(KApply k) {
                 if (k.klabel() instanceof KVariable) {
                     return super.apply(k);
                 }
-                Att att = unparsingModule.attributesFor().apply(KLabel(k.klabel().name()));
+                Att att = unparser.mod.attributesFor().apply(KLabel(k.klabel().name()));
                 if (att.contains("comm") && att.contains("assoc") && att.contains("unit")) {
                     List<K> items = new ArrayList<>(Assoc.flatten(k.klabel(), k.klist().items(), KLabel(att.get("unit"))));
                     List<Tuple2<String, K>> printed = new ArrayList<>();
                     for (K item : items) {
-                        String s = unparseInternal(unparsingModule, apply(item), ColorSetting.OFF);
+                        String s = unparser.unparse(apply(item));
                         printed.add(Tuple2.apply(s, item));
                     }
                     printed.sort(Comparator.comparing(Tuple2::_1, new AlphanumComparator()));
@@ -258,7 +363,7 @@ public class KPrint {
     }
 
     private K tokenizeTerm(Module mod, KApply kapp) {
-        Module unparsingModule = RuleGrammarGenerator.getCombinedGrammar(mod, false).getExtensionModule();
+        Module unparsingModule = extensionModule(mod);
         String tokenizedTerm   = unparseTerm(kapp, unparsingModule, ColorSetting.OFF);
         Sort   finalSort       = Sorts.K();
         Option<Sort> termSort  = mod.sortFor().get(kapp.klabel());
@@ -35,6 +35,14 @@ public class Stopwatch {
         lastIntermediate = current;
     }
 
+    /**
+     * Prints the time taken by one part of the current step, without ending the step.
+     */
+    public void printTiming(String message, long miliseconds) {
+        if (options.verbose)
+            f.format("  %-58s = %s%n", message, milisecondsToTime(miliseconds));
+    }
+
     public void printTotal(String message) {
         printIntermediate("Cleanup");
         if (options.verbose)
@@ -15,14 +15,17 @@ import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 
 import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.Reader;
@@ -33,6 +36,7 @@ import java.util.Date;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -130,6 +134,13 @@ public class FileUtil {
         save(resolveWorkingDirectory(file), content);
     }
 
+    /**
+     * Saves to {@code file} what {@code content} writes to the stream it is given, without building it in memory.
+     */
+    public void saveToWorkingDirectory(String file, Consumer<OutputStream> content) {
+        save(resolveWorkingDirectory(file), content);
+    }
+
     public String loadFromKompiled(String file) {
         return load(resolveKompiled(file));
     }
@@ -238,6 +249,18 @@ public class FileUtil {
         }
     }
 
+    public static void save(File file, Consumer<OutputStream> content) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw KEMException.criticalError("Could not create directory " + dir);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            content.accept(out);
+        } catch (IOException e) {
+            throw KEMException.criticalError("Could not write to file " + file.getAbsolutePath(), e);
+        }
+    }
+
     public static String load(File file) {
         try {
             return FileUtils.readFileToString(file);
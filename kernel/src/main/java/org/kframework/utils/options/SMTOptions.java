@@ -53,4 +53,15 @@ public class SMTOptions implements Serializable {
 
     @Parameter(names="--z3-tactic", description="The solver tactic to use to check satisfiability in Z3.")
     public String z3Tactic;
+
+    @Parameter(names="--z3-incremental", description="Check queries in Z3 processes that are kept running, " +
+            "with the definition declarations loaded once, and check path conditions sending only the equalities " +
+            "added since the previous query. Z3 may then use its incremental solver, which can give different " +
+            "results on hard queries. Has no effect together with --z3-jni.")
+    public boolean z3Incremental = false;
+
+    @Parameter(names="--z3-slice-constraints", description="Split constraints into independent components, " +
+            "check each component separately and cache its result, so that only components changed by new " +
+            "conjuncts are sent to Z3.")
+    public boolean z3SliceConstraints = false;
 }
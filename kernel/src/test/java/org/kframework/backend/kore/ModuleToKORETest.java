@@ -0,0 +1,123 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.backend.kore;
+
+import com.google.common.collect.HashMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.attributes.Att;
+import org.kframework.attributes.Location;
+import org.kframework.attributes.Source;
+import org.kframework.builtin.BooleanUtils;
+import org.kframework.definition.Module;
+import org.kframework.definition.Rule;
+import org.kframework.definition.Sentence;
+import org.kframework.kore.K;
+import org.kframework.kore.KLabel;
+import org.kframework.kore.Sort;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.file.FileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.kframework.definition.Constructors.Module;
+import static org.kframework.definition.Constructors.Rule;
+import static org.kframework.kore.KORE.*;
+import static org.mockito.Mockito.*;
+
+public class ModuleToKORETest {
+
+    private static final KLabel TOP = KLabel("<generatedTop>");
+
+    private FileUtil files;
+
+    @Before
+    public void setUp() {
+        files = mock(FileUtil.class);
+        when(files.loadFromKBase(anyString())).thenReturn("");
+    }
+
+    /**
+     * Builds the module from scratch, so that no object is shared between two conversions.
+     */
+    private static Module module() {
+        Module test = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Exp ::= \"foo\" [klabel(foo)]\n" +
+                "               | \"bar\" \"(\" Exp \")\" [klabel(bar)]\n" +
+                "               | \"f\" \"(\" Exp \")\" [function, klabel(f)]\n" +
+                "  syntax GeneratedTopCell ::= \"<generatedTop>\" Exp \"</generatedTop>\" [cell, klabel(<generatedTop>)]\n" +
+                "endmodule\n", Source.apply("generated by ModuleToKORETest"), "TEST");
+        K x = KVariable("X", Att().add(Sort.class, Sort("Exp")));
+        Rule function = Rule(KRewrite(KApply(KLabel("f"), x), KApply(KLabel("bar"), x)),
+                BooleanUtils.TRUE, BooleanUtils.TRUE);
+        Rule rewrite = Rule(KRewrite(KApply(TOP, KApply(KLabel("foo"))), KApply(TOP, KApply(KLabel("bar"), KApply(KLabel("foo"))))),
+                BooleanUtils.TRUE, BooleanUtils.TRUE, Att().add(Location.class, new Location(1, 1, 1, 20)).add("label", "step"));
+        return Module(test.name(), test.imports(),
+                test.localSentences().$plus((Sentence) function).$plus((Sentence) rewrite), test.att());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ModuleToKORE.ConvertedRule> saveThenLoad(Map<String, ModuleToKORE.ConvertedRule> cache) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cache);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Map<String, ModuleToKORE.ConvertedRule>) in.readObject();
+        }
+    }
+
+    @Test
+    public void testSecondConversionIsServedFromCache() throws Exception {
+        Map<String, ModuleToKORE.ConvertedRule> cache = new HashMap<>();
+        String first = new ModuleToKORE(module(), files, KLabel("initGeneratedTopCell"), cache).convert(false);
+        assertEquals(2, cache.size());
+
+        // the next kompile reads the cache back from kore-cache.bin
+        Map<String, ModuleToKORE.ConvertedRule> loaded = saveThenLoad(cache);
+        Set<ModuleToKORE.ConvertedRule> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+        saved.addAll(loaded.values());
+        String second = new ModuleToKORE(module(), files, KLabel("initGeneratedTopCell"), loaded).convert(false);
+
+        assertEquals(first, second);
+        assertEquals(2, loaded.size());
+        for (ModuleToKORE.ConvertedRule rule : loaded.values()) {
+            assertTrue(saved.contains(rule));
+        }
+    }
+
+    private static Rule rule(Att ruleAtt, Att variableAtt) {
+        K x = KVariable("X", variableAtt);
+        return Rule(KRewrite(KApply(KLabel("f"), x), x), BooleanUtils.TRUE, BooleanUtils.TRUE, ruleAtt);
+    }
+
+    @Test
+    public void testKeyDoesNotDependOnAttributeOrder() {
+        Location location = new Location(1, 1, 1, 20);
+        // small attribute maps iterate in insertion order, like larger ones iterate in the order of their key hashes
+        Rule one = rule(Att().add(Location.class, location).add("label", "one"),
+                Att().add(Sort.class, Sort("Exp")).add(Location.class, location));
+        Rule other = rule(Att().add("label", "one").add(Location.class, location),
+                Att().add(Location.class, location).add(Sort.class, Sort("Exp")));
+        assertEquals(ModuleToKORE.ruleKey("context", one, HashMultimap.create()),
+                ModuleToKORE.ruleKey("context", other, HashMultimap.create()));
+    }
+
+    @Test
+    public void testKeyDependsOnRuleAndContext() {
+        Att variableAtt = Att().add(Sort.class, Sort("Exp"));
+        Rule one = rule(Att().add("label", "one"), variableAtt);
+        String key = ModuleToKORE.ruleKey("context", one, HashMultimap.create());
+        assertNotEquals(key, ModuleToKORE.ruleKey("context", rule(Att().add("label", "two"), variableAtt), HashMultimap.create()));
+        assertNotEquals(key, ModuleToKORE.ruleKey("context", rule(Att().add("label", "one"), Att().add(Sort.class, Sort("Int"))), HashMultimap.create()));
+        assertNotEquals(key, ModuleToKORE.ruleKey("other context", one, HashMultimap.create()));
+    }
+}
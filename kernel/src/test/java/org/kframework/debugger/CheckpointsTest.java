@@ -0,0 +1,81 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+import org.junit.Test;
+import org.kframework.kore.K;
+import org.kframework.kore.KApply;
+import org.kframework.kore.KSequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+import static org.kframework.kore.KORE.*;
+
+public class CheckpointsTest {
+
+    private K cell(String name, K... contents) {
+        return KApply(KLabel(name), contents);
+    }
+
+    private K token(String value) {
+        return KToken(value, Sort("Int"));
+    }
+
+    @Test
+    public void testShareUnchangedSubterms() {
+        K state = cell("<state>", token("1"), token("2"));
+        K previous = cell("<T>", cell("<k>", KSequence(token("a"), token("b"), token("c"))), state);
+        K next = cell("<T>", cell("<k>", KSequence(token("b"), token("c"))), cell("<state>", token("1"), token("2")));
+
+        K shared = Checkpoints.share(next, previous);
+        assertEquals(next, shared);
+        KApply sharedTop = (KApply) shared;
+        assertSame(state, sharedTop.items().get(1));
+        KSequence previousK = (KSequence) ((KApply) ((KApply) previous).items().get(0)).items().get(0);
+        KSequence sharedK = (KSequence) ((KApply) sharedTop.items().get(0)).items().get(0);
+        assertSame(previousK.items().get(1), sharedK.items().get(0));
+        assertSame(previousK.items().get(2), sharedK.items().get(1));
+
+        assertSame(previous, Checkpoints.share(cell("<T>", cell("<k>", KSequence(token("a"), token("b"), token("c"))), cell("<state>", token("1"), token("2"))), previous));
+    }
+
+    @Test
+    public void testCheckpointsAreBounded() {
+        NavigableMap<Integer, K> checkpointMap = new TreeMap<>();
+        checkpointMap.put(0, token("0"));
+        int last = 0;
+        for (int i = 1; i <= 10 * Checkpoints.MAXIMUM_CHECKPOINTS; i++) {
+            last = i * 10;
+            Checkpoints.add(checkpointMap, last, token(Integer.toString(i)));
+            assertTrue(checkpointMap.size() <= Checkpoints.MAXIMUM_CHECKPOINTS);
+        }
+        assertEquals(0, (int) checkpointMap.firstKey());
+        assertEquals(last, (int) checkpointMap.lastKey());
+
+        // the newest checkpoints are all kept, and the older ones grow sparser
+        List<Integer> steps = new ArrayList<>(checkpointMap.keySet());
+        int recent = steps.size() - Checkpoints.RECENT_CHECKPOINTS;
+        for (int i = recent; i < steps.size(); i++) {
+            assertEquals(last - (steps.size() - 1 - i) * 10, (int) steps.get(i));
+        }
+        assertTrue(steps.get(2) - steps.get(1) > steps.get(recent) - steps.get(recent - 1));
+        for (int i = 2; i < recent; i++) {
+            assertTrue(steps.get(i) - steps.get(i - 1) >= steps.get(i + 1) - steps.get(i));
+        }
+    }
+
+    @Test
+    public void testStatesShareCheckpoints() {
+        NavigableMap<Integer, K> checkpointMap = new TreeMap<>();
+        checkpointMap.put(0, token("0"));
+        DebuggerState copied = new DebuggerState(token("1"), 1, checkpointMap, Collections.emptyList());
+        assertNotSame(checkpointMap, copied.sharedCheckpointMap());
+        DebuggerState next = DebuggerState.sharingCheckpoints(token("2"), 2, copied.sharedCheckpointMap(), Collections.emptyList());
+        assertSame(copied.sharedCheckpointMap(), next.sharedCheckpointMap());
+        assertEquals(checkpointMap, next.getCheckpointMap());
+    }
+}
@@ -1,13 +1,17 @@
 // Copyright (c) 2014-2019 K Team. All Rights Reserved.
 package org.kframework.kompile;
 
+import com.beust.jcommander.JCommander;
 import com.google.inject.util.Providers;
 import org.junit.Test;
+import org.kframework.kore.KORE;
 import org.kframework.utils.IOTestCase;
+import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.file.FileUtil;
 import org.kframework.utils.file.JarInfo;
 import org.mockito.Mock;
 
+import java.io.File;
 import java.io.IOException;
 
 import static org.junit.Assert.*;
@@ -47,4 +51,17 @@ public class KompileFrontEndTest extends IOTestCase {
         new KompileFrontEnd(options, "", "foo", Providers.of(koreBackend), sw, kem, loader, jarInfo, files).main();
         verify(jarInfo).printVersionMessage();
     }
+
+    @Test
+    public void testInterningIsRestored() throws IOException {
+        File definition = File.createTempFile("test", ".k");
+        definition.deleteOnExit();
+        when(files.resolveWorkingDirectory(anyString())).thenReturn(definition);
+        new JCommander(options, definition.getPath(), "--intern-terms");
+        when(koreBackend.steps()).thenThrow(KEMException.criticalError("failed after interning was turned on"));
+
+        assertFalse(KORE.isInterning());
+        assertEquals(113, new KompileFrontEnd(options, "", "", Providers.of(koreBackend), sw, kem, loader, jarInfo, files).main());
+        assertFalse(KORE.isInterning());
+    }
 }
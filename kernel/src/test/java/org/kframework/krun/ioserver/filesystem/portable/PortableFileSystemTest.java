@@ -44,4 +44,46 @@ public class PortableFileSystemTest extends BaseTestCase {
         }
     }
 
+    @Test
+    public void testSeekAndWriteBuffered() throws Exception {
+        when(files.resolveWorkingDirectory(Matchers.anyString())).thenAnswer(new Answer<java.io.File>() {
+            @Override
+            public java.io.File answer(InvocationOnMock invocation)
+                    throws Throwable {
+                return new java.io.File((String)invocation.getArguments()[0]);
+            }
+        });
+        java.io.File tmp = java.io.File.createTempFile("fs-test", ".txt");
+        tmp.deleteOnExit();
+        PortableFileSystem fs = new PortableFileSystem(kem, files);
+        long fd = fs.open(tmp.getAbsolutePath(), "rw");
+        File f = fs.get(fd);
+        f.write("hello world".getBytes(Charset.forName("ASCII")));
+        Assert.assertEquals(11, f.tell());
+        f.seek(6);
+        Assert.assertEquals('w', f.getc());
+        f.putc((byte) 'W');
+        Assert.assertEquals(8, f.tell());
+        f.seek(0);
+        Assert.assertArrayEquals("hello wWrld".getBytes(Charset.forName("ASCII")), f.read(100));
+        try {
+            f.getc();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EOF", e.getMessage());
+        }
+        fs.close(fd);
+
+        fd = fs.open(tmp.getAbsolutePath(), "r");
+        f = fs.get(fd);
+        Assert.assertArrayEquals("hello wWrld".getBytes(Charset.forName("ASCII")), f.read(11));
+        try {
+            f.putc((byte) 'x');
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EBADF", e.getMessage());
+        }
+        fs.close(fd);
+    }
+
 }
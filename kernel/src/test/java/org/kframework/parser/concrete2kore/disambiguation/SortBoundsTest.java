@@ -0,0 +1,72 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+
+package org.kframework.parser.concrete2kore.disambiguation;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.kframework.POSet;
+import org.kframework.builtin.Sorts;
+import org.kframework.kore.Sort;
+import scala.Tuple2;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.kframework.Collections.*;
+import static org.kframework.kore.KORE.Sort;
+
+public class SortBoundsTest {
+
+    Sort exp = Sort("Exp");
+    Sort aExp = Sort("AExp");
+    Sort bExp = Sort("BExp");
+    Sort int_ = Sort("Int");
+    Sort bool = Sort("Bool");
+
+    POSet<Sort> subsorts = new POSet<>(Set(
+            new Tuple2<>(Sorts.KBott(), int_),
+            new Tuple2<>(Sorts.KBott(), bool),
+            new Tuple2<>(int_, aExp),
+            new Tuple2<>(int_, bExp),
+            new Tuple2<>(bool, bExp),
+            new Tuple2<>(aExp, exp),
+            new Tuple2<>(bExp, exp),
+            new Tuple2<>(exp, Sorts.K()),
+            new Tuple2<>(Sorts.K(), Sorts.KList())));
+
+    SortBounds bounds = new SortBounds(subsorts,
+            Set(Sorts.KBott(), int_, bool, aExp, bExp, exp, Sorts.K(), Sorts.KList()));
+
+    @Test
+    public void testLowerBounds() {
+        assertEquals(ImmutableSet.of(int_, aExp), bounds.lowerBounds(Arrays.asList(aExp)));
+        assertEquals(ImmutableSet.of(int_), bounds.lowerBounds(Arrays.asList(aExp, bExp)));
+        assertEquals(ImmutableSet.of(), bounds.lowerBounds(Arrays.asList(aExp, bool)));
+        assertEquals(ImmutableSet.of(int_, bool, aExp, bExp, exp, Sorts.K()), bounds.lowerBounds(Collections.emptyList()));
+    }
+
+    @Test
+    public void testMaximalLowerBounds() {
+        assertEquals(ImmutableSet.of(bExp), bounds.maximalLowerBounds(Arrays.asList(exp, bExp)));
+        assertEquals(ImmutableSet.of(int_), bounds.maximalLowerBounds(Arrays.asList(aExp, bExp)));
+        assertEquals(ImmutableSet.of(Sorts.K()), bounds.maximalLowerBounds(Arrays.asList(Sorts.KList())));
+        assertTrue(bounds.maximalLowerBounds(Arrays.asList(Sorts.KBott())).isEmpty());
+        assertSame(bounds.maximalLowerBounds(Arrays.asList(aExp, bExp)), bounds.maximalLowerBounds(Sets.newHashSet(bExp, aExp)));
+    }
+
+    @Test
+    public void testHittingSet() {
+        Set<String> universe = ImmutableSet.of("a", "b", "c", "d");
+        List<Set<String>> sets = Lists.newArrayList(
+                ImmutableSet.of("a", "b"),
+                ImmutableSet.of("b", "c"),
+                ImmutableSet.of("d"));
+        assertEquals(ImmutableSet.of("b", "d"), VariableTypeInferenceFilter.hittingSet(universe, sets));
+        assertTrue(sets.isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore.kernel;
+
+import org.junit.Test;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScannerAutomatonTest {
+
+    /**
+     * Returns the rule and the text of the longest match at the start of {@code input}, or "error".
+     */
+    private static String match(ScannerAutomaton automaton, String input) {
+        byte[] buf = input.getBytes(StandardCharsets.UTF_8);
+        long match = automaton.longestMatch(buf, 0);
+        if (match < 0) {
+            return "error";
+        }
+        int end = (int) (match >>> 32);
+        return (int) match + ":" + new String(buf, 0, end, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLongestMatchAndPriority() {
+        ScannerAutomaton.Builder builder = new ScannerAutomaton.Builder();
+        builder.addRegex("[\\ \\n]");
+        builder.addLiteral("+");
+        builder.addLiteral("++");
+        builder.addLiteral("if");
+        builder.addRegex("[\\+-]?[0-9]+");
+        builder.addRegex("[A-Za-z\\_][A-Za-z0-9\\_]*");
+        ScannerAutomaton automaton = builder.build();
+        assertEquals("3:if", match(automaton, "if ifx"));
+        assertEquals("5:ifx", match(automaton, "ifx ++"));
+        assertEquals("0: ", match(automaton, " \n"));
+        assertEquals("2:++", match(automaton, "++1"));
+        assertEquals("4:1", match(automaton, "1 +12"));
+        assertEquals("4:+12", match(automaton, "+12"));
+        assertEquals("error", match(automaton, "~a"));
+    }
+
+    @Test
+    public void testFlexSyntax() {
+        ScannerAutomaton.Builder builder = new ScannerAutomaton.Builder();
+        builder.addRegex("(\\/\\*([^\\*]|(\\*+([^\\*\\/])))*\\*+\\/)|(\"//\"[^\\n\\r]*)");
+        builder.addRegex("[\\\"](([^\\\"\\n\\r\\\\])|([\\\\][nrtf\\\"\\\\])|([\\\\][x][0-9a-fA-F]{2}))*[\\\"]");
+        builder.addRegex("[[:digit:]]{2,3}x");
+        builder.addLiteral("é");
+        ScannerAutomaton automaton = builder.build();
+        assertEquals("0:/* a ** b */", match(automaton, "/* a ** b */"));
+        assertEquals("0:// x", match(automaton, "// x"));
+        assertEquals("1:\"a\\\"b\\x41é\"", match(automaton, "\"a\\\"b\\x41é\""));
+        assertEquals("2:123x", match(automaton, "123xé"));
+        assertEquals("3:é", match(automaton, "é"));
+        assertEquals("error", match(automaton, "1x"));
+    }
+
+    @Test(expected = KEMException.class)
+    public void testTrailingContextRejected() {
+        new ScannerAutomaton.Builder().addRegex("a/b");
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore.kernel;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.attributes.Location;
+import org.kframework.attributes.Source;
+import org.kframework.definition.Module;
+import org.kframework.definition.Terminal;
+import org.kframework.parser.concrete2kore.ParseInModule;
+import org.kframework.parser.concrete2kore.ParserUtils;
+import org.kframework.utils.errorsystem.ParseFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ScannerTest {
+
+    private static final Source SOURCE = Source.apply("generated by ScannerTest");
+
+    private Scanner scanner;
+
+    @Before
+    public void setUp() {
+        Module module = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax #Layout ::= r\"[\\\\ \\\\n]+\"\n" +
+                "  syntax Exp ::= \"if\" Exp | Id | Exp \"+\" Exp | Exp \"++\"\n" +
+                "  syntax Id ::= r\"[a-z]+\" [token]\n" +
+                "endmodule\n", SOURCE, "TEST");
+        scanner = new Scanner(new ParseInModule(module));
+    }
+
+    /**
+     * Tokenizes {@code input}, which is on one line.
+     */
+    private Scanner.Token[] tokenize(String input) {
+        int length = input.getBytes(StandardCharsets.UTF_8).length;
+        int[] lines = new int[length + 1];
+        int[] columns = new int[length + 1];
+        for (int i = 0; i <= length; i++) {
+            lines[i] = 1;
+            columns[i] = i + 1;
+        }
+        return scanner.tokenize(input, SOURCE, lines, columns);
+    }
+
+    @Test
+    public void testTokenize() {
+        Scanner.Token[] tokens = tokenize("if ifx ++a+ b\n");
+        // layout is dropped, and the longest match wins, literals first
+        assertEquals(Arrays.asList("if", "ifx", "++", "a", "+", "b"),
+                Arrays.stream(tokens).map(token -> token.value).collect(Collectors.toList()));
+        assertEquals(scanner.resolve(Terminal.apply("if")), tokens[0].kind);
+        assertEquals(scanner.resolve(Terminal.apply("++")), tokens[2].kind);
+        assertEquals(scanner.resolve(Terminal.apply("+")), tokens[4].kind);
+        assertNotEquals(tokens[0].kind, tokens[1].kind);
+        assertEquals(tokens[1].kind, tokens[3].kind);
+        assertEquals(tokens[1].kind, tokens[5].kind);
+        assertEquals(3, tokens[1].startLoc);
+        assertEquals(6, tokens[1].endLoc);
+        assertEquals(12, tokens[5].startLoc);
+        assertEquals(13, tokens[5].endLoc);
+    }
+
+    @Test
+    public void testEmptyInput() {
+        assertEquals(0, tokenize("").length);
+        assertEquals(0, tokenize(" \n ").length);
+    }
+
+    @Test
+    public void testUnexpectedCharacter() {
+        try {
+            tokenize("a ~b");
+            fail();
+        } catch (ParseFailedException e) {
+            assertEquals(SOURCE, e.getKException().getSource());
+            assertEquals(new Location(1, 3, 1, 4), e.getKException().getLocation());
+        }
+    }
+}
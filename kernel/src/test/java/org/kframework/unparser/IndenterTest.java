@@ -0,0 +1,38 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+package org.kframework.unparser;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class IndenterTest {
+
+    private static void write(Indenter indenter, int lines) {
+        for (int i = 0; i < lines; i++) {
+            indenter.append("line ").append(Integer.toString(i));
+            if (i % 3 == 0) {
+                indenter.indent();
+            } else if (i % 3 == 2) {
+                indenter.dedent();
+            }
+            indenter.newline();
+        }
+    }
+
+    @Test
+    public void testStreamingMatchesInMemory() {
+        Indenter inMemory = new Indenter(2);
+        write(inMemory, 20000);
+
+        StringWriter out = new StringWriter();
+        Indenter streaming = new Indenter(2, out);
+        write(streaming, 20000);
+        assertTrue("output should be written before it is complete", out.getBuffer().length() > 0);
+        streaming.flush();
+
+        assertEquals(inMemory.toString(), out.toString());
+        assertEquals("", streaming.toString());
+    }
+}
@@ -5,6 +5,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import org.kframework.attributes.Source;
+import org.kframework.builtin.BooleanUtils;
+import org.kframework.definition.Module;
+import org.kframework.definition.Rule;
+import org.kframework.definition.Sentence;
 import org.kframework.kore.K;
 import org.kframework.kore.mini.InjectedKLabel;
 import org.kframework.kore.mini.KApply;
@@ -13,6 +17,7 @@ import org.kframework.kore.mini.KSequence;
 import org.kframework.kore.mini.KToken;
 import org.kframework.kore.mini.KVariable;
 import org.kframework.parser.binary.BinaryParser;
+import org.kframework.parser.concrete2kore.ParserUtils;
 import org.kframework.parser.json.JsonParser;
 import org.kframework.parser.kore.KoreParser;
 import org.kframework.unparser.KPrint;
@@ -26,6 +31,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
+import static org.kframework.definition.Constructors.Module;
+import static org.kframework.definition.Constructors.Rule;
 import static org.kframework.kore.KORE.*;
 
 public class KPrintTest {
@@ -87,4 +94,24 @@ public class KPrintTest {
             }
         }
     }
+
+    @Test
+    public void testUnparseDoesNotDependOnEarlierTerms() {
+        Module test = ParserUtils.parseMainModuleOuterSyntax("module TEST\n" +
+                "  syntax Exp ::= Id\n" +
+                "               | \"foo\" \"(\" Exp \",\" Exp \")\" [klabel(foo)]\n" +
+                "               | \"bar\" \"(\" Exp \")\" [klabel(bar)]\n" +
+                "  syntax Id ::= r\"(?<![A-Za-z0-9\\\\_])[A-Za-z\\\\_][A-Za-z0-9\\\\_]*\"     [notInRules, token, autoreject]\n" +
+                "endmodule\n", Source.apply("generated by KPrintTest"), "TEST");
+        // printing bar(X) as foo(X, Y) introduces a fresh variable for Y
+        Rule alias = Rule(KRewrite(KApply(KLabel("foo"), KVariable("X"), KVariable("Y")), KApply(KLabel("bar"), KVariable("X"))),
+                BooleanUtils.TRUE, BooleanUtils.TRUE, Att().add("alias"));
+        Module withAlias = Module(test.name(), test.imports(), test.localSentences().$plus((Sentence) alias), test.att());
+
+        K term = KApply(KLabel("bar"), KToken("x", Sort("Id")));
+        KPrint kprint = new KPrint();
+        String first = kprint.unparseTerm(term, withAlias);
+        assertTrue(first.startsWith("foo"));
+        assertEquals(first, kprint.unparseTerm(term, withAlias));
+    }
 }
@@ -9,6 +9,9 @@ case class CircularityException[T](cycle: Seq[T]) extends Exception(cycle.mkStri
 
 /**
  * A partially ordered set based on an initial set of direct relations.
+ *
+ * The elements in some relation are numbered densely, and the transitive closure is stored as one bit set per
+ * element, so that comparisons are a hash lookup per element and a bit test, without allocating.
  */
 class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
 
@@ -17,8 +20,80 @@ class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
 
   lazy val elements: Set[T] = directRelations.flatMap(a => Set(a._1, a._2))
 
+  /** The elements in some relation, by index. */
+  private val indexed: Array[Any] = directRelations.toSeq.flatMap(a => Seq(a._1, a._2)).distinct.toArray
+
+  private val indexes: util.HashMap[Any, Integer] = {
+    val indexes = new util.HashMap[Any, Integer](indexed.length * 2)
+    for (i <- indexed.indices) {
+      indexes.put(indexed(i), i)
+    }
+    indexes
+  }
+
+  /**
+   * above(i) contains j iff indexed(i) < indexed(j).
+   */
+  private val above: Array[util.BitSet] = closure()
+
+  /**
+   * below(j) contains i iff indexed(i) < indexed(j).
+   */
+  private val below: Array[util.BitSet] = {
+    val below = Array.fill(indexed.length)(new util.BitSet(indexed.length))
+    for (i <- indexed.indices) {
+      var j = above(i).nextSetBit(0)
+      while (j >= 0) {
+        below(j).set(i)
+        j = above(i).nextSetBit(j + 1)
+      }
+    }
+    below
+  }
+
+  private def index(x: Any): Int = {
+    val i = indexes.get(x)
+    if (i == null) -1 else i
+  }
+
   /**
-   * Internal private method. Computes the transitive closer of the initial relations.
+   * Computes the transitive closure of the direct relations over the element indexes, with a depth-first
+   * traversal that completes the successors of an element before the element itself.
+   */
+  private def closure(): Array[util.BitSet] = {
+    val n = indexed.length
+    val direct = Array.fill(n)(new util.BitSet(n))
+    directRelations foreach { case (x, y) => direct(index(x)).set(index(y)) }
+    val closure = Array.fill(n)(new util.BitSet(n))
+    // 0: not visited, 1: being visited, 2: done
+    val state = new Array[Byte](n)
+
+    def visit(i: Int): Unit = {
+      state(i) = 1
+      var j = direct(i).nextSetBit(0)
+      while (j >= 0) {
+        if (state(j) == 1) {
+          // report the cycle the same way as the relation-based closure always did
+          transitiveClosure(directRelationsMap)
+          throw new AssertionError("cycle not found by transitiveClosure")
+        }
+        if (state(j) == 0)
+          visit(j)
+        closure(i).set(j)
+        closure(i).or(closure(j))
+        j = direct(i).nextSetBit(j + 1)
+      }
+      state(i) = 2
+    }
+
+    for (i <- 0 until n if state(i) == 0)
+      visit(i)
+    closure
+  }
+
+  /**
+   * Internal private method. Computes the transitive closer of the initial relations. It is only used to report
+   * cycles.
    * It also checks for cycles during construction and throws an exception if it finds any.
    *
    * The implementation is simple. It links each element to the successors of its successors.
@@ -54,10 +129,37 @@ class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
   /**
    * All the relations of the POSet, including the transitive ones.
    */
-  val relations = transitiveClosure(directRelationsMap)
+  lazy val relations: Map[T, Set[T]] = indexed.indices.filter(i => !above(i).isEmpty).map(i =>
+    (indexed(i).asInstanceOf[T], elementsOf(above(i)))).toMap
+
+  private def elementsOf(bits: util.BitSet): Set[T] = {
+    val elements = Set.newBuilder[T]
+    var i = bits.nextSetBit(0)
+    while (i >= 0) {
+      elements += indexed(i).asInstanceOf[T]
+      i = bits.nextSetBit(i + 1)
+    }
+    elements.result()
+  }
+
+  private def indexesOf(xs: Iterable[T]): util.BitSet = {
+    val bits = new util.BitSet(indexed.length)
+    xs foreach { x =>
+      val i = index(x)
+      if (i >= 0)
+        bits.set(i)
+    }
+    bits
+  }
 
-  def <(x: T, y: T): Boolean = relations.get(x).exists(_.contains(y))
-  def >(x: T, y: T): Boolean = relations.get(y).exists(_.contains(x))
+  def <(x: T, y: T): Boolean = {
+    val i = index(x)
+    i >= 0 && {
+      val j = index(y)
+      j >= 0 && above(i).get(j)
+    }
+  }
+  def >(x: T, y: T): Boolean = <(y, x)
   def ~(x: T, y: T) = <(x, y) || <(y, x)
 
   /**
@@ -87,22 +189,46 @@ class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
   }
 
   lazy val lub: Option[T] = {
-    val candidates = relations.values reduce { (a, b) => a & b }
+    // the elements greater than every element that is less than some other element
+    val rows = above.filter(!_.isEmpty)
+    val candidates = new util.BitSet(indexed.length)
+    if (rows.nonEmpty) {
+      candidates.or(rows.head)
+      rows.tail foreach candidates.and
+    }
 
-    if (candidates.size == 0)
+    if (candidates.isEmpty || !isChain(candidates))
       None
-    else if (candidates.size == 1)
-      Some(candidates.head)
-    else {
-      val allPairs = for (a <- candidates; b <- candidates) yield { (a, b) }
-      if (allPairs exists { case (a, b) => ! ~(a, b) })
-        None
-      else
-        Some(
-          candidates.min(new Ordering[T]() {
-            def compare(x: T, y: T) = if (x < y) -1 else if (x > y) 1 else 0
-          }))
+    else
+      Some(indexed(least(candidates)).asInstanceOf[T])
+  }
+
+  /**
+   * The element of the chain `bits` that is below all the others.
+   */
+  private def least(bits: util.BitSet): Int = {
+    var i = bits.nextSetBit(0)
+    while (i >= 0) {
+      val others = bits.clone.asInstanceOf[util.BitSet]
+      others.andNot(above(i))
+      if (others.cardinality == 1)
+        return i
+      i = bits.nextSetBit(i + 1)
     }
+    throw new AssertionError("not a chain")
+  }
+
+  private def isChain(bits: util.BitSet): Boolean = {
+    var i = bits.nextSetBit(0)
+    while (i >= 0) {
+      val comparable = bits.clone.asInstanceOf[util.BitSet]
+      comparable.andNot(above(i))
+      comparable.andNot(below(i))
+      if (comparable.cardinality != 1)
+        return false
+      i = bits.nextSetBit(i + 1)
+    }
+    true
   }
 
   lazy val asOrdering: Ordering[T] = (x: T, y: T) => if (lessThanEq(x, y)) -1 else if (lessThanEq(y, x)) 1 else 0
@@ -111,8 +237,10 @@ class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
     * Return the subset of items from the argument which are not
     * less than any other item.
     */
-  def maximal(sorts : Iterable[T]) : Set[T] =
-    sorts.filter(s1 => !sorts.exists(s2 => lessThan(s1,s2))).toSet
+  def maximal(sorts : Iterable[T]) : Set[T] = {
+    val present = indexesOf(sorts)
+    sorts.filter(s1 => { val i = index(s1); i < 0 || !above(i).intersects(present) }).toSet
+  }
 
   def maximal(sorts : util.Collection[T]) : util.Set[T] = {
     import scala.collection.JavaConversions._
@@ -123,8 +251,10 @@ class POSet[T](directRelations: Set[(T, T)]) extends Serializable {
     * Return the subset of items from the argument which are not
     * greater than any other item.
     */
-  def minimal(sorts : Iterable[T]) : Set[T] =
-    sorts.filter(s1 => !sorts.exists(s2 => >(s1,s2))).toSet
+  def minimal(sorts : Iterable[T]) : Set[T] = {
+    val present = indexesOf(sorts)
+    sorts.filter(s1 => { val i = index(s1); i < 0 || !below(i).intersects(present) }).toSet
+  }
 
   def minimal(sorts : util.Collection[T]) : util.Set[T] = {
     import scala.collection.JavaConversions._
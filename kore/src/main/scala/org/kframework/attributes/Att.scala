@@ -2,8 +2,16 @@ package org.kframework.attributes
 
 import java.util.Optional
 
+import com.google.common.collect.{Interner, Interners}
 import org.kframework.Collections._
 
+/**
+ * The attributes of a sentence or a term.
+ *
+ * The attributes built by [[add]], [[addAll]] and [[remove]] are canonical: attribute lists holding only strings,
+ * such as `function` or `klabel(...)`, which repeat on many sentences, are shared, and so are the [[Source]]s of
+ * locations. Comparing two such attribute lists is then a reference comparison in the common case.
+ */
 case class Att(att: Map[(String, Class[_]), Any]) extends AttributesToString {
 
   override lazy val hashCode: Int = scala.runtime.ScalaRunTime._hashCode(Att.this)
@@ -26,20 +34,43 @@ case class Att(att: Map[(String, Class[_]), Any]) extends AttributesToString {
 
   def add(key: String): Att = add(key, "")
   def add(key: String, value: String): Att = add(key, classOf[String], value)
-  def add[T](key: String, cls: Class[T], value: T): Att = Att(att + ((key, cls) -> value))
+  def add[T](key: String, cls: Class[T], value: T): Att = Att.canonical(Att(att + ((key, cls) -> Att.share(value))))
   def add[T](key: Class[T], value: T): Att = add(key.getName, key, value)
-  def addAll(thatAtt: Att) = Att(att ++ thatAtt.att)
-  def addAll(thatAtt: java.util.Map[String, String]): Att = Att(immutable(thatAtt).map { case (k, v) => ((k, classOf[String]), v)}.toMap)
+  def addAll(thatAtt: Att): Att =
+    if (thatAtt.att.isEmpty) this
+    else if (att.isEmpty) Att.canonical(thatAtt)
+    else Att.canonical(Att(att ++ thatAtt.att))
+  def addAll(thatAtt: java.util.Map[String, String]): Att = Att.canonical(Att(immutable(thatAtt).map { case (k, v) => ((k, classOf[String]), v)}.toMap))
 
   def remove(key: String): Att = remove(key, classOf[String])
   def remove(key: Class[_]): Att = remove(key.getName, key)
-  def remove(key: String, cls: Class[_]): Att = Att(att - ((key, cls)))
+  def remove(key: String, cls: Class[_]): Att = if (att.contains((key, cls))) Att.canonical(Att(att - ((key, cls)))) else this
+
+  // attribute lists read from disk are shared with the ones built in this process
+  private def readResolve(): Object = Att.canonical(this)
 }
 
 object Att {
 
   val empty: Att = Att(Map.empty)
 
+  private val canonicalAtts: Interner[Att] = Interners.newWeakInterner()
+  private val sources: Interner[Source] = Interners.newWeakInterner()
+
+  /**
+   * Returns the shared instance of `att` if it only holds strings, and `att` itself otherwise. Other values can be
+   * large terms, which are not worth hashing to share the attribute lists that hold them.
+   */
+  def canonical(att: Att): Att =
+    if (att.att.isEmpty) empty
+    else if (att.att.valuesIterator.forall(_.isInstanceOf[String])) canonicalAtts.intern(att)
+    else att
+
+  private def share(value: Any): Any = value match {
+    case s: Source => sources.intern(s)
+    case _ => value
+  }
+
   /**
    * attribute marking the top rule label
    */
@@ -84,6 +84,32 @@ object Module {
   def apply(name: String, unresolvedLocalSentences: Set[Sentence]): Module = {
     new Module(name, Set(), unresolvedLocalSentences, Att.empty)
   }
+
+  /**
+    * A 128-bit fingerprint of a set, combined from the hash codes of its elements independently of their order, so
+    * that equal sets have equal fingerprints.
+    */
+  def fingerprint(elements: Iterable[Any]): (Long, Long) = {
+    var first = 0L
+    var second = 0L
+    elements foreach { e =>
+      val h = e.hashCode.toLong
+      first += mix(h)
+      second += mix(h ^ 0x9e3779b97f4a7c15L)
+    }
+    (first, second)
+  }
+
+  // the finalizer of MurmurHash3's 64-bit variant
+  private def mix(x: Long): Long = {
+    var h = x
+    h ^= h >>> 33
+    h *= 0xff51afd7ed558ccdL
+    h ^= h >>> 33
+    h *= 0xc4ceb9fe1a85ec53L
+    h ^= h >>> 33
+    h
+  }
 }
 
 case class Module(val name: String, val imports: Set[Module], localSentences: Set[Sentence], @(Nonnull@param) val att: Att = Att.empty)
@@ -291,10 +317,27 @@ case class Module(val name: String, val imports: Set[Module], localSentences: Se
     case _ =>
   }
 
+  /**
+    * Fingerprint of the sentences of this module, computed once. Equal modules have equal fingerprints, so only
+    * modules whose fingerprints agree need their sentences compared. It is derived from hash codes that are not
+    * stable across JVMs, so it is not serialized.
+    */
+  @transient lazy val fingerprint: (Long, Long) = Module.fingerprint(sentences)
+
+  /**
+    * Fingerprint of the sort, production, priority and associativity declarations of this module, which determine
+    * its grammar.
+    */
+  @transient lazy val syntaxFingerprint: (Long, Long) = Module.fingerprint(sentences filter {
+    case _: SyntaxSort | _: Production | _: SyntaxPriority | _: SyntaxAssociativity => true
+    case _ => false
+  })
+
   override lazy val hashCode: Int = name.hashCode
 
   override def equals(that: Any) = that match {
-    case m: Module => m.name == name && m.sentences == sentences
+    case m: Module => (m eq this) || (m.name == name && m.fingerprint == fingerprint && m.sentences == sentences)
+    case _ => false
   }
 }
 
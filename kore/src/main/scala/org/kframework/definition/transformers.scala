@@ -2,22 +2,37 @@
 
 package org.kframework.definition
 
-import java.util.function.BiFunction
+import java.util.concurrent.{ConcurrentHashMap, ExecutionException, ForkJoinPool, FutureTask}
+import java.util.function.{BiConsumer, BiFunction, Supplier}
 
 import org.kframework.attributes.{Source, Location}
 import org.kframework.definition
 import org.kframework.kore.{AttCompare, K}
 import org.kframework.utils.errorsystem.KEMException
 
+/**
+  * Transformers created with `parallel = true` transform the imports of a module concurrently, and the sentences
+  * of a module concurrently if they are sentence transformers. Their functions must be thread-safe, and their
+  * results must not depend on the order in which modules and sentences are transformed.
+  */
 object ModuleTransformer {
   def from(f: java.util.function.UnaryOperator[Module], name: String): ModuleTransformer = ModuleTransformer(f(_), name)
 
+  def from(f: java.util.function.UnaryOperator[Module], name: String, parallel: Boolean): ModuleTransformer =
+    ModuleTransformer(f(_), name, parallel)
+
   def fromSentenceTransformer(f: java.util.function.UnaryOperator[Sentence], name: String): ModuleTransformer =
     fromSentenceTransformer((m: Module, s: Sentence) => f(s), name)
 
+  def fromSentenceTransformer(f: java.util.function.UnaryOperator[Sentence], name: String, parallel: Boolean): ModuleTransformer =
+    fromSentenceTransformer((m: Module, s: Sentence) => f(s), name, parallel)
+
   def fromSentenceTransformer(f: (Module, Sentence) => Sentence, name: String): ModuleTransformer =
+    fromSentenceTransformer(f, name, false)
+
+  def fromSentenceTransformer(f: (Module, Sentence) => Sentence, name: String, parallel: Boolean): ModuleTransformer =
     ModuleTransformer(m => {
-      val newSentences = m.localSentences map { s =>
+      def transform(s: Sentence): Sentence =
         try {
           f(m, s)
         } catch {
@@ -27,13 +42,17 @@ object ModuleTransformer {
               + "\n\t" + s.att.getOption(classOf[Location]).map(_.toString).getOrElse("<none>"))
             throw e
         }
-      }
+      val newSentences =
+        if (parallel)
+          m.localSentences.par.map(transform).seq
+        else
+          m.localSentences map transform
       //TODO(compare attributes)
       if (newSentences != m.localSentences)
         Module(m.name, m.imports, newSentences, m.att)
       else
         m
-    }, name)
+    }, name, parallel)
 
   def fromRuleBodyTransformer(f: K => K, name: String): ModuleTransformer =
     fromRuleBodyTransformerWithRule((rule, k) => f(k), name)
@@ -53,37 +72,89 @@ object ModuleTransformer {
   def fromKTransformer(f: K => K, name: String): ModuleTransformer =
     fromKTransformerWithModuleInfo((mod, k) => f(k), name)
 
-  def apply(f: Module => Module, name: String): ModuleTransformer = f match {
+  def apply(f: Module => Module, name: String): ModuleTransformer = apply(f, name, false)
+
+  def apply(f: Module => Module, name: String, parallel: Boolean): ModuleTransformer = f match {
     case f: ModuleTransformer => f
-    case _ => new ModuleTransformer(f, name)
+    case _ => new ModuleTransformer(f, name, parallel)
   }
 }
 
 /**
   * Transform all modules, transforming each module after its imports.
   * The f function take a module with all the imported modules already transformed, and changes the current module.
+  * Each module is transformed once, even when it is reached through several imports at the same time.
   */
-class ModuleTransformer(f: Module => Module, name: String) extends (Module => Module) {
-  val memoization = collection.concurrent.TrieMap[Module, Module]()
+class ModuleTransformer(f: Module => Module, val name: String, val parallel: Boolean) extends (Module => Module) {
+  def this(f: Module => Module, name: String) = this(f, name, false)
+
+  private val memoization = new ConcurrentHashMap[Module, FutureTask[Module]]()
 
   override def apply(input: Module): Module = {
-    memoization.getOrElseUpdate(input, {
-      var newImports = input.imports map this
-      if (newImports != input.imports)
-        f(Module(input.name, newImports, input.localSentences, input.att))
+    var task = memoization.get(input)
+    if (task == null) {
+      val newTask = new FutureTask[Module](() => transform(input))
+      task = memoization.putIfAbsent(input, newTask)
+      if (task == null) {
+        task = newTask
+        newTask.run()
+      }
+    }
+    try {
+      // the module may be in progress on another worker of the `.par` pool; let the pool compensate for the wait
+      val pending = task
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker {
+        override def block(): Boolean = { pending.get(); true }
+        override def isReleasable: Boolean = pending.isDone
+      })
+      task.get()
+    } catch {
+      case e: ExecutionException => throw e.getCause
+    }
+  }
+
+  private def transform(input: Module): Module = {
+    val newImports =
+      if (parallel)
+        input.imports.par.map(this).seq
       else
-        f(input)
-    })
+        input.imports map this
+    if (newImports != input.imports)
+      f(Module(input.name, newImports, input.localSentences, input.att))
+    else
+      f(input)
   }
 }
 
 object DefinitionTransformer {
+  private val timingListener = new ThreadLocal[BiConsumer[String, java.lang.Long]]()
+
+  /**
+    * Runs `pipeline`, reporting to `listener` the name of each named [[DefinitionTransformer]] it applies on the
+    * current thread, together with the time the transformer took in nanoseconds.
+    */
+  def timed[T](listener: BiConsumer[String, java.lang.Long], pipeline: Supplier[T]): T = {
+    val previous = timingListener.get
+    timingListener.set(listener)
+    try {
+      pipeline.get
+    } finally {
+      timingListener.set(previous)
+    }
+  }
+
   def fromSentenceTransformer(f: java.util.function.UnaryOperator[Sentence], name: String): DefinitionTransformer =
     DefinitionTransformer(ModuleTransformer.fromSentenceTransformer(f, name))
 
+  def fromSentenceTransformer(f: java.util.function.UnaryOperator[Sentence], name: String, parallel: Boolean): DefinitionTransformer =
+    DefinitionTransformer(ModuleTransformer.fromSentenceTransformer(f, name, parallel))
+
   def fromSentenceTransformer(f: (Module, Sentence) => Sentence, name: String): DefinitionTransformer =
     DefinitionTransformer(ModuleTransformer.fromSentenceTransformer(f, name))
 
+  def fromSentenceTransformer(f: (Module, Sentence) => Sentence, name: String, parallel: Boolean): DefinitionTransformer =
+    DefinitionTransformer(ModuleTransformer.fromSentenceTransformer(f, name, parallel))
+
   def fromRuleBodyTransformer(f: K => K, name: String): DefinitionTransformer =
     DefinitionTransformer(ModuleTransformer.fromRuleBodyTransformer(f, name))
 
@@ -98,17 +169,34 @@ object DefinitionTransformer {
 
   def from(f: Module => Module, name: String): DefinitionTransformer = DefinitionTransformer(f, name)
 
+  def from(f: Module => Module, name: String, parallel: Boolean): DefinitionTransformer =
+    new DefinitionTransformer(ModuleTransformer(f, name, parallel))
+
   def apply(f: Module => Module): DefinitionTransformer = new DefinitionTransformer(f)
 
   def apply(f: Module => Module, name: String): DefinitionTransformer = new DefinitionTransformer(ModuleTransformer(f, name))
 }
 
 class DefinitionTransformer(moduleTransformer: Module => Module) extends (Definition => Definition) {
+  private val name = moduleTransformer match {
+    case m: ModuleTransformer => m.name
+    case _ => null
+  }
+  private val parallel = moduleTransformer match {
+    case m: ModuleTransformer => m.parallel
+    case _ => false
+  }
+
   override def apply(d: Definition): Definition = {
-    definition.Definition(
+    val start = System.nanoTime
+    val result = definition.Definition(
       moduleTransformer(d.mainModule),
-      d.entryModules map moduleTransformer,
+      if (parallel) d.entryModules.par.map(moduleTransformer).seq else d.entryModules map moduleTransformer,
       d.att)
+    val listener = DefinitionTransformer.timingListener.get
+    if (listener != null && name != null)
+      listener.accept(name, System.nanoTime - start)
+    result
   }
 }
 
@@ -1,5 +1,6 @@
 package org.kframework.kore
 
+import com.google.common.collect.{Interner, Interners, MapMaker}
 import org.kframework.{CombinerFromBuilder, Collector, attributes}
 import org.kframework.attributes.Att
 
@@ -24,6 +25,33 @@ object KORE extends Constructors with ScalaSugared {
 
   lazy val Att = attributes.Att.empty
 
+  /*
+   * Canonical tables of the labels, sorts, tokens and applications built here, used when interning is on.
+   * Structurally equal terms are then built once and shared, so that they take memory once and usually compare by
+   * reference. The equality of terms ignores attributes, so only terms without attributes whose children are
+   * themselves canonical are interned. The tables hold their terms weakly.
+   */
+  @volatile private var interning = false
+  private val klabels: Interner[KLabel] = Interners.newWeakInterner()
+  private val sorts: Interner[Sort] = Interners.newWeakInterner()
+  private val tokens: Interner[KToken] = Interners.newWeakInterner()
+  private val applications: Interner[KApply] = Interners.newWeakInterner()
+  // the applications in the table above, by identity
+  private val canonicalApplications: java.util.Map[KApply, java.lang.Boolean] = new MapMaker().weakKeys().makeMap()
+
+  /**
+   * Turns the interning of the terms built from now on on or off.
+   */
+  def setInterning(enabled: Boolean): Unit = interning = enabled
+
+  def isInterning: Boolean = interning
+
+  private def isCanonical(k: K): Boolean = k match {
+    case t: KToken => t.att.att.isEmpty
+    case t: KApply => canonicalApplications.containsKey(t)
+    case _ => false
+  }
+
   def Location(startLine: Int, startColumn: Int, endLine: Int, endColumn: Int) = attributes.Location(startLine,
     startColumn, endLine, endColumn)
 
@@ -45,20 +73,40 @@ object KORE extends Constructors with ScalaSugared {
   //  def toKSequence: Collector[K, KSequence] =
   //    Collector(() => new CombinerFromBuilder(KSequence.newBuilder()))
 
-  @annotation.varargs override def KLabel(name: String, params: Sort*): KLabel = ADT.KLabel(name, params:_*)
-
-  override def KApply(klabel: KLabel, klist: KList, att: Att): KApply = ADT.KApply(klabel, klist, att)
+  @annotation.varargs override def KLabel(name: String, params: Sort*): KLabel = {
+    val label = ADT.KLabel(name, params:_*)
+    if (interning) klabels.intern(label) else label
+  }
+
+  override def KApply(klabel: KLabel, klist: KList, att: Att): KApply = {
+    val k = ADT.KApply(klabel, klist, att)
+    // variables are not interned since a KVariable equals the KLabel with the same name
+    if (interning && att.att.isEmpty && klabel.isInstanceOf[ADT.KLabel] && klist.items.asScala.forall(isCanonical)) {
+      val canonical = applications.intern(k)
+      if (canonical eq k)
+        canonicalApplications.put(k, java.lang.Boolean.TRUE)
+      canonical
+    } else {
+      k
+    }
+  }
 
   override def KSequence(items: java.util.List[K], att: Att): KSequence = ADT.KSequence(items.asScala
     .toList, att)
 
   override def KVariable(name: String, att: Att): KVariable = ADT.KVariable(name, att)
 
-  @annotation.varargs override def Sort(name: String, params: Sort*): Sort = ADT.Sort(name, params:_*)
+  @annotation.varargs override def Sort(name: String, params: Sort*): Sort = {
+    val sort = ADT.Sort(name, params:_*)
+    if (interning) sorts.intern(sort) else sort
+  }
 
-  def Sort(name: String, params: java.util.List[Sort]): Sort = ADT.Sort(name, params.asScala:_*)
+  def Sort(name: String, params: java.util.List[Sort]): Sort = Sort(name, params.asScala:_*)
 
-  override def KToken(s: String, sort: Sort, att: Att): KToken = ADT.KToken(s, sort, att)
+  override def KToken(s: String, sort: Sort, att: Att): KToken = {
+    val token = ADT.KToken(s, sort, att)
+    if (interning && att.att.isEmpty) tokens.intern(token) else token
+  }
 
   override def KRewrite(left: K, right: K, att: Att): KRewrite = ADT.KRewrite(left, right, att)
 
@@ -25,6 +25,8 @@ abstract class ChildrenMapping[E, W] {
    * Transforms all children of the current item. If any of them is problematic,
    * it merge(...)es all problems and returns Left(...).
    * If everything is ok, replace children, and merge all warnings.
+   * If no child changed, the current item itself is returned, so that passes which leave most of
+   * a parse forest alone neither copy it nor break the sharing the next pass memoizes on.
    */
   def mapChildrenStrict(t: HasChildren): (Either[E, Term], W) = {
     val allResults = t.items.asScala.map(applyTerm) // visit all children
@@ -36,7 +38,10 @@ abstract class ChildrenMapping[E, W] {
       (Left(mergedErrors), mergedWarnings)
     } else {
       val newChildren: Iterable[Term] = eithers map { _.right.get }
-      (Right(t.replaceChildren(newChildren.asJavaCollection)), mergedWarnings)
+      if (newChildren.iterator.corresponds(t.items.asScala.iterator) { _ eq _ })
+        (Right(t.asInstanceOf[Term]), mergedWarnings)
+      else
+        (Right(t.replaceChildren(newChildren.asJavaCollection)), mergedWarnings)
     }
   }
 
@@ -0,0 +1,57 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+
+package org.kframework.kore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.attributes.Att;
+
+import static org.junit.Assert.*;
+import static org.kframework.kore.KORE.*;
+
+public class InterningTest {
+
+    @Before
+    public void setUp() {
+        KORE.setInterning(true);
+    }
+
+    @After
+    public void tearDown() {
+        KORE.setInterning(false);
+    }
+
+    @Test
+    public void equalTermsAreShared() {
+        K one = KApply(KLabel("_+_"), KToken("1", Sort("Int")), KToken("2", Sort("Int")));
+        K two = KApply(KLabel("_+_"), KToken("1", Sort("Int")), KToken("2", Sort("Int")));
+        assertSame(one, two);
+        assertSame(KApply(KLabel("f"), one), KApply(KLabel("f"), two));
+    }
+
+    @Test
+    public void termsWithAttributesAreNotShared() {
+        Att att = Att().add("foo");
+        K plain = KApply(KLabel("f"), KToken("1", Sort("Int")));
+        K withAtt = KApply(KLabel("f"), KList(KToken("1", Sort("Int"))), att);
+        assertNotSame(plain, withAtt);
+        assertEquals(att, withAtt.att());
+
+        K token = KToken("1", Sort("Int"), att);
+        K parent = KApply(KLabel("f"), token);
+        assertSame(token, ((KApply) parent).items().get(0));
+    }
+
+    @Test
+    public void variablesAreNotShared() {
+        K label = KApply(KLabel("X"));
+        K variable = KApply(KVariable("X"));
+        assertTrue(((KApply) variable).klabel() instanceof KVariable);
+        assertNotSame(label, variable);
+
+        Att att = Att().add(Sort.class, Sort("Int"));
+        K sorted = KApply(KLabel("f"), KVariable("X", att));
+        assertEquals(att, ((KApply) sorted).items().get(0).att());
+    }
+}
@@ -46,4 +46,23 @@ class POSetTest {
     assertEquals(None, POSet(b1 -> b2, b2 -> b3, b4 -> b5).lub)
     assertEquals(None, POSet(b1 -> b2, b2 -> b3, b2 -> b4).lub)
   }
+
+  @Test def diamond() {
+    implicit val p = POSet(b1 -> b2, b1 -> b3, b2 -> b4, b3 -> b4)
+
+    assertTrue(b1 < b4)
+    assertTrue(b4 > b1)
+    assertFalse(p.inSomeRelation(b2, b3))
+    assertFalse(b1 < b5)
+    assertEquals(Map(b1 -> Set(b2, b3, b4), b2 -> Set(b4), b3 -> Set(b4)), p.relations)
+    assertEquals(Some(b4), p.lub)
+  }
+
+  @Test def maximalAndMinimal() {
+    val p = POSet(b1 -> b2, b1 -> b3, b2 -> b4)
+
+    assertEquals(Set(b3, b4, b5), p.maximal(Seq(b1, b2, b3, b4, b5)))
+    assertEquals(Set(b1, b5), p.minimal(Seq(b1, b2, b3, b4, b5)))
+    assertEquals(Set(b2, b3), p.maximal(Seq(b2, b3)))
+  }
 }
@@ -0,0 +1,29 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+
+package org.kframework.attributes
+
+import org.junit.{Assert, Test}
+
+class AttTest {
+  @Test def stringAttributesAreShared(): Unit = {
+    val one = Att.empty.add("function").add("klabel", "foo")
+    val two = Att.empty.add("klabel", "foo").add("function")
+    Assert.assertSame(one, two)
+    Assert.assertSame(Att.empty, one.remove("function").remove("klabel"))
+    Assert.assertSame(one, one.remove("unknown"))
+  }
+
+  @Test def sourcesAreShared(): Unit = {
+    val one = Att.empty.add(classOf[Source], Source(new String("file.k")))
+    val two = Att.empty.add(classOf[Source], Source(new String("file.k")))
+    Assert.assertEquals(one, two)
+    Assert.assertSame(one.get(classOf[Source]), two.get(classOf[Source]))
+  }
+
+  @Test def otherAttributesAreKept(): Unit = {
+    val location = Location(1, 2, 3, 4)
+    val att = Att.empty.add("function").add(classOf[Location], location)
+    Assert.assertSame(location, att.get(classOf[Location]))
+    Assert.assertTrue(att.contains("function"))
+  }
+}
@@ -55,4 +55,18 @@ class OuterTest {
     val prod2 = Production(Some(KLabel("foo")), Sort("Foo"), Seq(), Att.add("klabel", "bar"))
     Assert.assertNotEquals(prod1, prod2)
   }
+
+  @Test def moduleFingerprint: Unit = {
+    val sort = Sort("Foo")
+    val prod = Production(Some(KLabel("foo")), sort, Seq(Terminal("foo")), Att)
+    val imported = Module("IMPORTED", Set(), Set(SyntaxSort(sort, Att)), Att)
+    val m1 = Module("M", Set(imported), Set(prod), Att)
+    val m2 = Module("M", Set(), Set(prod, SyntaxSort(sort, Att)), Att)
+    val m3 = Module("M", Set(imported), Set(prod, ModuleComment("bar", Att)), Att)
+    Assert.assertEquals(m1.fingerprint, m2.fingerprint)
+    Assert.assertEquals(m1, m2)
+    Assert.assertNotEquals(m1.fingerprint, m3.fingerprint)
+    Assert.assertNotEquals(m1, m3)
+    Assert.assertEquals(m1.syntaxFingerprint, m3.syntaxFingerprint)
+  }
 }
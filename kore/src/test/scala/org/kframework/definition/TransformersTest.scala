@@ -0,0 +1,45 @@
+// Copyright (c) 2019 K Team. All Rights Reserved.
+
+package org.kframework.definition
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.junit.{Assert, Test}
+import org.kframework.attributes.Att
+
+class TransformersTest {
+  val a = Module("A", Set(), Set(), Att.empty)
+  val b = Module("B", Set(a), Set(), Att.empty)
+  val c = Module("C", Set(a), Set(), Att.empty)
+  val d = Module("D", Set(b, c), Set(), Att.empty)
+
+  @Test def sharedImportsAreTransformedOnce(): Unit = {
+    val calls = new ConcurrentHashMap[String, AtomicInteger]()
+    val transformer = ModuleTransformer(m => {
+      calls.computeIfAbsent(m.name, _ => new AtomicInteger()).incrementAndGet()
+      Module(m.name, m.imports, m.localSentences, m.att.add("visited"))
+    }, "visit", true)
+
+    val result = transformer(d)
+
+    Assert.assertEquals(4, calls.size)
+    calls.values.forEach(count => Assert.assertEquals(1, count.get))
+    Assert.assertTrue(result.importedModules.forall(_.att.contains("visited")))
+    Assert.assertSame(result, transformer(d))
+  }
+
+  @Test def parallelSentenceTransformerMatchesSequential(): Unit = {
+    val sentences: Set[Sentence] = (1 to 100).map(i => ModuleComment("comment " + i, Att.empty)).toSet
+    val m = Module("M", Set(a), sentences, Att.empty)
+    val f = (s: Sentence) => s match {
+      case ModuleComment(comment, att) => ModuleComment(comment.toUpperCase, att)
+      case s => s
+    }
+
+    val sequential = ModuleTransformer.fromSentenceTransformer((_: Module, s: Sentence) => f(s), "upper case")(m)
+    val parallel = ModuleTransformer.fromSentenceTransformer((_: Module, s: Sentence) => f(s), "upper case", true)(m)
+
+    Assert.assertEquals(sequential.localSentences, parallel.localSentences)
+  }
+}